@@ -1,22 +1,73 @@
 package dev.nanoscript;
 
+import dev.nanoscript.api.StorageFlusher;
+import dev.nanoscript.api.StorageManager;
 import dev.nanoscript.command.NSCommand;
 import dev.nanoscript.engine.ScriptManager;
+import dev.nanoscript.engine.SpreadQueue;
+import dev.nanoscript.engine.TickBudget;
+import dev.nanoscript.engine.TimerWheel;
+import dev.nanoscript.engine.WorkerPool;
+import dev.nanoscript.jsengine.Watchdog;
+import dev.nanoscript.listener.EventHub;
+import dev.nanoscript.listener.EventIndex;
+import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public class NanoScript extends JavaPlugin {
 
     private static NanoScript instance;
     private ScriptManager scriptManager;
+    private WorkerPool workerPool;
+    // em.on handler'ları: (event sınıfı, öncelik) başına tek Bukkit listener
+    private EventHub eventHub;
+    // Event adı → sınıf; ilk kullanımda bir kez kurulur, reload'larda korunur
+    private EventIndex eventIndex;
+    // server.schedule / repeat (ana thread) ve repeatAsync (async thread) çarkları
+    private final TimerWheel syncTimers = new TimerWheel();
+    private final TimerWheel asyncTimers = new TimerWheel();
+    // server.spread işleri ve server.budget() için tick zaman bütçesi
+    private final TickBudget tickBudget = new TickBudget(TickBudget.paperMspt());
+    private final SpreadQueue spreadQueue = new SpreadQueue(tickBudget);
+    // Storage değişikliklerini toplu yazan arka plan thread'i
+    private StorageFlusher storageFlusher;
+    // server.getStorage(): tüm scriptlerin ad alanları, reload'larda sıcak kalır
+    private StorageManager storage;
 
     @Override
     public void onEnable() {
         instance = this;
 
+        // config.yml (watchdog sınırları vb.) yoksa varsayılanı yaz
+        saveDefaultConfig();
+
+        // server.worker(...) için paylaşılan thread havuzu
+        workerPool = new WorkerPool();
+        eventHub = new EventHub(this);
+        eventIndex = new EventIndex(getLogger());
+        storageFlusher = new StorageFlusher(getLogger(),
+                getConfig().getLong("storage.max-latency-ms", 1000),
+                getConfig().getInt("storage.max-batch", 512));
+        storage = new StorageManager(this);
 
         // Script yöneticisini başlat
         scriptManager = new ScriptManager(this);
 
+        // Tüm script zamanlayıcıları ve olay döngüleri (async/await, promise'ler)
+        // script başına BukkitTask yerine bu iki görevle ilerler
+        Bukkit.getScheduler().runTaskTimer(this, () -> {
+            tickBudget.beginTick();
+            syncTimers.advance();
+            scriptManager.tickAll();
+            try {
+                spreadQueue.run();
+            } catch (Watchdog.WatchdogError e) {
+                // İş iptal edildi; diğer işler sonraki tick'te devam eder
+                getLogger().warning("[NanoScript] server.spread durduruldu: " + e.getMessage());
+            }
+        }, 1L, 1L);
+        Bukkit.getScheduler().runTaskTimerAsynchronously(this, asyncTimers::advance, 1L, 1L);
+
         // Komutu kaydet
         NSCommand nsCommand = new NSCommand(this);
         getCommand("ns").setExecutor(nsCommand);
@@ -34,6 +85,16 @@ public class NanoScript extends JavaPlugin {
         if (scriptManager != null) {
             scriptManager.unloadAll();
         }
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
+        if (storageFlusher != null) {
+            storageFlusher.shutdown();
+        }
+        if (storage != null) {
+            // Log'lar anlık görüntüye katlanır — sonraki açılışta oynatılacak kayıt kalmaz
+            storage.saveAll();
+        }
         getLogger().info("NanoScript kapatıldı. Tüm scriptler durduruldu.");
     }
 
@@ -45,6 +106,42 @@ public class NanoScript extends JavaPlugin {
         return scriptManager;
     }
 
+    public WorkerPool getWorkerPool() {
+        return workerPool;
+    }
+
+    public EventHub getEventHub() {
+        return eventHub;
+    }
+
+    public EventIndex getEventIndex() {
+        return eventIndex;
+    }
+
+    public TimerWheel getSyncTimers() {
+        return syncTimers;
+    }
+
+    public TimerWheel getAsyncTimers() {
+        return asyncTimers;
+    }
+
+    public TickBudget getTickBudget() {
+        return tickBudget;
+    }
+
+    public SpreadQueue getSpreadQueue() {
+        return spreadQueue;
+    }
+
+    public StorageFlusher getStorageFlusher() {
+        return storageFlusher;
+    }
+
+    public StorageManager getStorage() {
+        return storage;
+    }
+
     public java.io.File getScriptsFolder() {
         return new java.io.File(getDataFolder(), "scripts");
     }
@@ -0,0 +1,208 @@
+package dev.nanoscript.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import dev.nanoscript.jsengine.JSArray;
+import dev.nanoscript.jsengine.JSObject;
+import dev.nanoscript.jsengine.JSValue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage'daki bir JsonObject üzerinde tembel JS görünümü (db.get / db.getObj).
+ *
+ * Alt değerler ancak okunduklarında JS'e çevrilir; büyük bir oyuncu profilinin
+ * tek alanını okumak profilin tamamını kopyalamaz. İç içe nesneler yine
+ * görünüm olarak döner, diziler eleman eleman çevrilir.
+ *
+ * Yazmalar (obj.x = 1, delete obj.x) yalnızca görünümün kendi katmanına gider;
+ * arkadaki JsonObject hiçbir zaman değişmez. Değişikliği kalıcı yapmak için
+ * eskisi gibi db.setObj(key, obj) çağrılır.
+ *
+ * İki kip:
+ *  - canlı (varsayılan): henüz okunmamış alanlar storage'ın o anki değerini verir.
+ *  - anlık görüntü (db.getObj(key, { snapshot: true })): okuma anındaki değerler.
+ *    Görünüm ad alanının Snapshots listesine kaydolur; storage'a bir sonraki
+ *    yazmadan hemen önce okunmamış alanlar kopyalanır (copy-on-write). Arada
+ *    yazma olmazsa hiç kopya yapılmaz.
+ *
+ * Tam kopya gerektiren işlemler (Object.keys, for-in, JSON.stringify, spread)
+ * ownProps üzerinden görünümü bir kez tamamen doldurur; sonrasında görünüm
+ * sıradan bir JSObject gibi davranır.
+ */
+final class JsonView extends JSObject {
+
+    private JsonObject source;          // tamamen dolunca null
+    private final Snapshots snapshots;  // canlı kipte null
+    private Set<String> deleted;
+
+    private JsonView(JsonObject source, Snapshots snapshots) {
+        this.source = source;
+        this.snapshots = snapshots;
+        if (snapshots != null) snapshots.register(this);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Dönüşüm
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Nesneler tembel görünüm, diziler eleman eleman (elemanlardaki nesneler yine görünüm) */
+    static JSValue toJs(JsonElement el, Snapshots snapshots) {
+        if (el == null || el.isJsonNull()) return JSValue.NULL;
+        if (el.isJsonPrimitive()) return primitive(el.getAsJsonPrimitive());
+        if (el.isJsonArray()) {
+            JSArray arr = new JSArray();
+            for (JsonElement item : el.getAsJsonArray()) arr.push(toJs(item, snapshots));
+            return JSValue.of(arr);
+        }
+        if (el.isJsonObject()) return JSValue.of(new JsonView(el.getAsJsonObject(), snapshots));
+        return JSValue.UNDEFINED;
+    }
+
+    /** Derin kopya (anlık görüntü dondurulurken) */
+    static JSValue copy(JsonElement el) {
+        if (el == null || el.isJsonNull()) return JSValue.NULL;
+        if (el.isJsonPrimitive()) return primitive(el.getAsJsonPrimitive());
+        if (el.isJsonArray()) {
+            JSArray arr = new JSArray();
+            for (JsonElement item : el.getAsJsonArray()) arr.push(copy(item));
+            return JSValue.of(arr);
+        }
+        if (el.isJsonObject()) {
+            JSObject obj = new JSObject();
+            for (Map.Entry<String, JsonElement> e : el.getAsJsonObject().entrySet()) {
+                obj.set(e.getKey(), copy(e.getValue()));
+            }
+            return JSValue.of(obj);
+        }
+        return JSValue.UNDEFINED;
+    }
+
+    private static JSValue primitive(JsonPrimitive p) {
+        if (p.isBoolean()) return JSValue.of(p.getAsBoolean());
+        if (p.isNumber())  return JSValue.of(p.getAsDouble());
+        return JSValue.of(p.getAsString());
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  JSObject
+    // ──────────────────────────────────────────────────────────────────
+
+    @Override
+    public JSValue get(String key) {
+        if (source == null || super.hasOwn(key)) return super.get(key);
+        if (deleted != null && deleted.contains(key)) return JSValue.UNDEFINED;
+        JsonElement el = source.get(key);
+        if (el == null) return JSValue.UNDEFINED;
+        JSValue value = toJs(el, snapshots);
+        super.set(key, value);   // sonraki okumalar ve nesne kimliği için
+        return value;
+    }
+
+    @Override
+    public void set(String key, JSValue value) {
+        if (deleted != null) deleted.remove(key);
+        super.set(key, value);
+    }
+
+    @Override
+    public boolean has(String key) {
+        return hasOwn(key);
+    }
+
+    @Override
+    public boolean hasOwn(String key) {
+        if (super.hasOwn(key)) return true;
+        return source != null && source.has(key) && (deleted == null || !deleted.contains(key));
+    }
+
+    @Override
+    public void delete(String key) {
+        super.delete(key);
+        if (source != null && source.has(key)) {
+            if (deleted == null) deleted = new HashSet<>();
+            deleted.add(key);
+        }
+    }
+
+    @Override
+    public Set<String> ownKeys() {
+        fill(false);
+        return super.ownKeys();
+    }
+
+    @Override
+    public Map<String, JSValue> ownProps() {
+        fill(false);
+        return super.ownProps();
+    }
+
+    @Override
+    public String toString() {
+        fill(false);
+        return super.toString();
+    }
+
+    /**
+     * Okunmamış bütün alanları doldurur ve görünümü storage'dan ayırır.
+     * Anahtar sırası storage'daki sıradır; sonradan eklenenler sonda.
+     * @param deep true ise alt nesneler de kopyalanır (anlık görüntü dondurma)
+     */
+    private void fill(boolean deep) {
+        if (source == null) return;
+        JsonObject src = source;
+        source = null;
+        Map<String, JSValue> own = super.ownProps();
+        Map<String, JSValue> added = new LinkedHashMap<>(own);
+        Map<String, JSValue> ordered = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> e : src.entrySet()) {
+            String key = e.getKey();
+            if (deleted != null && deleted.contains(key)) continue;
+            JSValue value = added.remove(key);
+            if (value == null) value = deep ? copy(e.getValue()) : toJs(e.getValue(), snapshots);
+            ordered.put(key, value);
+        }
+        ordered.putAll(added);
+        own.clear();
+        own.putAll(ordered);
+        deleted = null;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Anlık görüntüler
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Bir ad alanındaki henüz dondurulmamış anlık görüntü görünümleri */
+    static final class Snapshots {
+        private static final int PRUNE_SIZE = 256;
+        private final List<WeakReference<JsonView>> views = new ArrayList<>();
+
+        private void register(JsonView view) {
+            // Yazma olmadan çok okuma yapılırsa toplanmış referansları buda
+            if (views.size() >= PRUNE_SIZE) views.removeIf(ref -> ref.get() == null);
+            views.add(new WeakReference<>(view));
+        }
+
+        /** Storage'a yazmadan önce: okunmamış alanları şimdiki değerleriyle kopyala */
+        void freezeAll() {
+            if (views.isEmpty()) return;
+            for (WeakReference<JsonView> ref : views) {
+                JsonView view = ref.get();
+                if (view != null) view.fill(true);
+            }
+            views.clear();
+        }
+    }
+
+    /** db.setObj(key, görünüm): dokunulmamış görünüm için kaynağın kopyası (null = bilinmiyor) */
+    JsonElement unchangedSource() {
+        return source != null && deleted == null && super.ownProps().isEmpty() ? source.deepCopy() : null;
+    }
+}
@@ -0,0 +1,89 @@
+package dev.nanoscript.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bir storage ad alanının derlenmiş yol önbelleği.
+ *
+ * "bakiye.Steve" gibi noktalı yollar bir kez parçalara ayrılır (regex yok)
+ * ve son çözülen üst düğüm (root["bakiye"]) yolla birlikte tutulur. Aynı yolun
+ * sonraki okumaları tek bir hash aramasıdır: parent.get("Steve").
+ *
+ * Yapısal bir yazma (bir nesnenin silinmesi / başka değerle değiştirilmesi,
+ * db.clear) sürümü artırır; tutulan üst düğümler bir sonraki erişimde yeniden
+ * çözülür. Yaprak değer yazmaları (bakiye.Steve = 1500) önbelleği bozmaz.
+ *
+ * Yalnızca ana thread'den kullanılır (storage erişimi JS'ten gelir).
+ */
+final class PathCache {
+
+    /** Ad alanı başına tutulan en fazla yol (en az kullanılan atılır) */
+    static final int MAX_PATHS = 4096;
+
+    static final class Path {
+        final String[] parents;
+        final String leaf;
+        // Son çözülen üst düğüm — root + version eşleşirse geçerli
+        JsonObject parent;
+        JsonObject root;
+        int version;
+
+        Path(String[] parents, String leaf) {
+            this.parents = parents;
+            this.leaf    = leaf;
+        }
+    }
+
+    private final Map<String, Path> paths = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Path> eldest) {
+            return size() > MAX_PATHS;
+        }
+    };
+    private int version;
+
+    /** Noktalı yolu parçalara ayırır (split("\\.", -1) ile aynı sonuç) */
+    Path compile(String path) {
+        Path p = paths.get(path);
+        if (p != null) return p;
+        List<String> parts = new ArrayList<>(4);
+        int start = 0, dot;
+        while ((dot = path.indexOf('.', start)) >= 0) {
+            parts.add(path.substring(start, dot));
+            start = dot + 1;
+        }
+        p = new Path(parts.toArray(new String[0]), path.substring(start));
+        paths.put(path, p);
+        return p;
+    }
+
+    /** Üst düğümü çözer (oluşturmaz); yol üzerinde nesne olmayan varsa null */
+    JsonObject parent(JsonObject root, Path p) {
+        if (p.root == root && p.version == version) return p.parent;
+        JsonObject cur = root;
+        for (String part : p.parents) {
+            JsonElement next = cur.get(part);
+            if (next == null || !next.isJsonObject()) return null;
+            cur = next.getAsJsonObject();
+        }
+        remember(root, p, cur);
+        return cur;
+    }
+
+    void remember(JsonObject root, Path p, JsonObject parent) {
+        p.parent  = parent;
+        p.root    = root;
+        p.version = version;
+    }
+
+    /** Yapısal yazma: tutulan bütün üst düğümler geçersiz */
+    void invalidate() {
+        version++;
+    }
+}
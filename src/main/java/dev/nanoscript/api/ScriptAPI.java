@@ -2,10 +2,14 @@ package dev.nanoscript.api;
 
 import dev.nanoscript.NanoScript;
 import dev.nanoscript.engine.CommandMapUtil;
+import dev.nanoscript.engine.ScriptExecutor;
+import dev.nanoscript.engine.ScriptWorker;
 import dev.nanoscript.engine.ScriptInstance;
 import dev.nanoscript.jsengine.*;
 import dev.nanoscript.listener.DynamicCommand;
+import dev.nanoscript.listener.BatchedListener;
 import dev.nanoscript.listener.DynamicListener;
+import dev.nanoscript.listener.EventFilter;
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.*;
@@ -18,10 +22,10 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.inventory.*;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.potion.*;
-import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.scoreboard.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 /**
@@ -40,6 +44,7 @@ import java.util.logging.Logger;
  * │  db.push("log.entries", item);   // array'e ekle            │
  * │  db.getArray("log.entries");                                 │
  * │  db.save();  // zorla diske yaz                              │
+ * │  server.getStorage("ekonomi");   // paylaşılan ad alanı     │
  * │                                                              │
  * │  YENİ: Genişletilmiş Bukkit API                             │
  * │                                                              │
@@ -117,25 +122,12 @@ import java.util.logging.Logger;
  */
 public class ScriptAPI {
 
-    private static final String[] EVENT_PACKAGES = {
-            "org.bukkit.event.player.",
-            "org.bukkit.event.block.",
-            "org.bukkit.event.entity.",
-            "org.bukkit.event.inventory.",
-            "org.bukkit.event.server.",
-            "org.bukkit.event.world.",
-            "org.bukkit.event.weather.",
-            "org.bukkit.event.vehicle.",
-            "org.bukkit.event.hanging.",
-            "io.papermc.paper.event.player.",
-            "io.papermc.paper.event.entity.",
-    };
-
     private final NanoScript plugin;
     private final ScriptInstance instance;
     private final NanoEngine engine;
     private final Logger logger;
     private final StorageManager storage;
+    private final ScriptExecutor executor;
 
     public ScriptAPI(NanoScript plugin, ScriptInstance instance, NanoEngine engine, StorageManager storage) {
         this.plugin   = plugin;
@@ -143,6 +135,7 @@ public class ScriptAPI {
         this.engine   = engine;
         this.logger   = plugin.getLogger();
         this.storage  = storage;
+        this.executor = instance.getExecutor();
     }
 
     // Eski constructor ile geriye dönük uyumluluk
@@ -155,6 +148,10 @@ public class ScriptAPI {
     // ──────────────────────────────────────────────────────────────────
 
     public void installGlobals() {
+        // Yakalanmamış promise redleri / microtask hataları sunucu loguna
+        engine.getEventLoop().setErrorSink(msg ->
+                logger.warning("[NanoScript] " + instance.getFileName() + ": " + msg));
+
         JSObject serverObj = buildServerObject();
         engine.defineGlobal("getServer", fn("getServer", (args, env) -> JSValue.of(serverObj)));
 
@@ -179,9 +176,14 @@ public class ScriptAPI {
 
         // ── Depolama ──────────────────────────────────────────────────
         // server.getStorage() → script'e özel kalıcı depolama
+        // server.getStorage("ad") → scriptler arası paylaşılan ad alanı
         if (storage != null) {
             JSObject storageObj = storage.buildStorageObject(instance.getFileName().replace(".js", ""));
-            server.set("getStorage", fn("getStorage", (a, e) -> JSValue.of(storageObj)));
+            Map<String, JSObject> shared = new HashMap<>();
+            server.set("getStorage", fn("getStorage", (a, e) -> {
+                if (a.length == 0 || a[0].isNullish()) return JSValue.of(storageObj);
+                return JSValue.of(shared.computeIfAbsent(a[0].asString(), storage::buildSharedStorageObject));
+            }));
         }
 
         // ── Mesajlaşma ────────────────────────────────────────────────
@@ -849,40 +851,199 @@ public class ScriptAPI {
             requireFn(args, 2, "server.schedule(ticks, function)");
             long ticks = args[0].asLong();
             JSFunction cb = (JSFunction) args[1];
-            BukkitTask task = Bukkit.getScheduler().runTaskLater(plugin, () -> safeCall(cb), ticks);
-            instance.addTaskRef(task);
-            return JSValue.of(task.getTaskId());
+            return JSValue.of(instance.addTimer(plugin.getSyncTimers(), ticks, 0, () -> safeCall(cb)));
         }));
 
         server.set("repeat", fn("repeat", (args, env) -> {
             requireFn(args, 2, "server.repeat(ticks, function)");
             long ticks = args[0].asLong();
             JSFunction cb = (JSFunction) args[1];
-            BukkitTask task = Bukkit.getScheduler().runTaskTimer(plugin, () -> safeCall(cb), 0L, ticks);
-            instance.addTaskRef(task);
-            return JSValue.of(task.getTaskId());
+            return JSValue.of(instance.addTimer(plugin.getSyncTimers(), 0, Math.max(1, ticks), () -> safeCall(cb)));
         }));
 
+        // Zamanlayıcı async scheduler'da döner, fakat callback script motoruna
+        // dokunduğu için scriptin executor'ına bırakılır (ana thread'de çalışır).
+        // Önceki çalıştırma hâlâ kuyruktaysa yeni tetikleme atlanır (birikme olmaz).
         server.set("repeatAsync", fn("repeatAsync", (args, env) -> {
             requireFn(args, 2, "server.repeatAsync(ticks, function)");
             long ticks = args[0].asLong();
             JSFunction cb = (JSFunction) args[1];
-            BukkitTask task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> safeCall(cb), 0L, ticks);
-            instance.addTaskRef(task);
-            return JSValue.of(task.getTaskId());
+            AtomicBoolean pending = new AtomicBoolean(false);
+            return JSValue.of(instance.addTimer(plugin.getAsyncTimers(), 0, Math.max(1, ticks), () -> {
+                if (pending.compareAndSet(false, true)) {
+                    executor.post(() -> { pending.set(false); safeCall(cb); });
+                }
+            }));
         }));
 
         server.set("cancel", fn("cancel", (args, env) -> {
-            if (args.length > 0) Bukkit.getScheduler().cancelTask(args[0].asInt());
+            if (args.length > 0) instance.cancelTimer(args[0].asInt());
             return JSValue.UNDEFINED;
         }));
 
+        // server.runSync(function, ...args) — bir sonraki tick'te script thread'inde çalışır
         server.set("runSync", fn("runSync", (args, env) -> {
-            if (args.length > 0 && args[0].isFunction())
-                Bukkit.getScheduler().runTask(plugin, () -> safeCall((JSFunction) args[0]));
+            if (args.length > 0 && args[0].isFunction()) {
+                JSFunction cb = (JSFunction) args[0];
+                JSValue[] rest = Arrays.copyOfRange(args, 1, args.length);
+                executor.post(() -> safeCall(cb, rest));
+            }
+            return JSValue.UNDEFINED;
+        }));
+
+        // server.runAsync(function(data) { ... }, data?, function(result, error) { ... }?)
+        // İş fonksiyonu async thread'de, izole bir motorda çalışır: closure'a ve
+        // server API'sine erişemez. data ve dönüş değeri kopyalanarak aktarılır
+        // (fonksiyon / Java nesnesi aktarılamaz). Callback script thread'inde çağrılır.
+        server.set("runAsync", fn("runAsync", (args, env) -> {
+            requireFn(args, 1, "server.runAsync(function, data?, callback?)");
+            JSFunction work = (JSFunction) args[0];
+            if (work.isNative()) throw new JsError("server.runAsync: native fonksiyon izole çalıştırılamaz");
+            JSValue data = StructuredClone.copy(args.length > 1 ? args[1] : JSValue.UNDEFINED);
+            JSFunction callback = args.length > 2 && args[2].isFunction() ? (JSFunction) args[2] : null;
+            Watchdog watchdog = instance.createWorkerWatchdog();
+
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                JSValue result = JSValue.UNDEFINED;
+                JSValue error  = JSValue.NULL;
+                try {
+                    result = runIsolated(work, data, watchdog);
+                } catch (Exception e) {
+                    error = JSValue.of(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                }
+                if (callback != null) {
+                    JSValue[] cbArgs = {result, error};
+                    executor.post(() -> safeCall(callback, cbArgs));
+                } else if (!error.isNull()) {
+                    logger.warning("[NanoScript] runAsync hatası (" + instance.getFileName() + "): " + error.asString());
+                }
+            });
             return JSValue.UNDEFINED;
         }));
 
+        // ── Tick bütçesi ──────────────────────────────────────────────
+
+        // await server.spread(items, function(item, i) { ... }, { maxMsPerTick })
+        // Öğeleri tick bütçesi içinde parça parça işler; bütçe sunucu MSPT'sine
+        // göre küçülür. İşlenen öğe sayısıyla çözülen bir promise döner.
+        server.set("spread", fn("spread", (args, env) -> {
+            requireFn(args, 2, "server.spread(items, function, options?)");
+            if (!args[0].isArray()) throw new JsError("server.spread: items bir dizi olmalı");
+            List<JSValue> items = new ArrayList<>(args[0].asArray().elements());
+            JSFunction cb = (JSFunction) args[1];
+            double maxMs = 0;
+            if (args.length > 2 && args[2].isObject() && args[2].asObject() != null) {
+                JSValue v = args[2].asObject().get("maxMsPerTick");
+                if (v.isNumber()) maxMs = v.asNumber();
+            }
+            JSPromise promise = new JSPromise(engine.getEventLoop());
+            plugin.getSpreadQueue().submit(instance, items.size(),
+                    i -> engine.call(cb, new JSValue[]{ items.get(i), JSValue.of(i) }),
+                    (long) (maxMs * 1_000_000),
+                    () -> { promise.resolve(JSValue.of(items.size())); engine.runMicrotasks(); },
+                    e -> { promise.reject(JSPromise.reason(e)); engine.runMicrotasks(); });
+            return JSValue.of(promise);
+        }));
+
+        // server.budget() — bu tick'te kalan tahmini süre (ms), tick başında önbelleğe alınan saatle
+        server.set("budget", fn("budget", (args, env) ->
+                JSValue.of(plugin.getTickBudget().remainingMs())
+        ));
+
+        // server.getMSPT() — sunucunun ortalama tick süresi (ms); Paper dışında -1
+        server.set("getMSPT", fn("getMSPT", (args, env) ->
+                JSValue.of(plugin.getTickBudget().getMspt())
+        ));
+
+        // server.getTickInterval() — tick'lerin başlangıçları arası ortalama süre (20 TPS'te ~50 ms)
+        server.set("getTickInterval", fn("getTickInterval", (args, env) ->
+                JSValue.of(plugin.getTickBudget().getTickIntervalMs())
+        ));
+
+        // ── async / await ─────────────────────────────────────────────
+        // Promise döndürenler: devamlar scriptin olay döngüsünde çalışır, tek
+        // per-tick NanoScript görevi ilerletir (adım başına BukkitTask yok).
+
+        // await server.sleep(ticks) — tick'i bloklamadan bekler
+        server.set("sleep", fn("sleep", (args, env) -> {
+            long ticks = args.length > 0 ? args[0].asLong() : 1;
+            EventLoop loop = engine.getEventLoop();
+            JSPromise promise = new JSPromise(loop);
+            loop.setTimeout(ticks, () -> promise.resolve(JSValue.UNDEFINED));
+            return JSValue.of(promise);
+        }));
+
+        // const r = await server.async(function(data) { ... }, data?)
+        // runAsync ile aynı izolasyon; sonuç / hata promise'e yansır.
+        server.set("async", fn("async", (args, env) -> {
+            requireFn(args, 1, "server.async(function, data?)");
+            JSFunction work = (JSFunction) args[0];
+            if (work.isNative()) throw new JsError("server.async: native fonksiyon izole çalıştırılamaz");
+            JSValue data = StructuredClone.copy(args.length > 1 ? args[1] : JSValue.UNDEFINED);
+            JSPromise promise = new JSPromise(engine.getEventLoop());
+            Watchdog watchdog = instance.createWorkerWatchdog();
+
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                Runnable settle;
+                try {
+                    JSValue result = runIsolated(work, data, watchdog);
+                    settle = () -> promise.resolve(result);
+                } catch (Exception e) {
+                    JSValue reason = JSValue.of(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                    settle = () -> promise.reject(reason);
+                }
+                Runnable done = settle;
+                executor.post(() -> { done.run(); engine.runMicrotasks(); });
+            });
+            return JSValue.of(promise);
+        }));
+
+        // ── Worker'lar ────────────────────────────────────────────────
+
+        // const w = server.worker("workers/path.js");
+        // w.onmessage = function(e) { ... e.data ... };   // ana thread'de çağrılır
+        // w.onerror   = function(msg) { ... };            // opsiyonel
+        // w.postMessage({ from: [0, 64, 0], to: [100, 64, 20] });
+        // w.terminate();
+        // Dosya scripts/ klasörüne göre çözülür; scripts/ kökündeki .js dosyaları
+        // normal script olarak da yüklendiği için workers/ alt klasörü önerilir.
+        server.set("worker", fn("worker", (args, env) -> {
+            if (args.length == 0) throw new JsError("server.worker(dosya) şeklinde kullanın");
+            java.io.File file = resolveScriptFile(args[0].asString());
+            JSObject handle = new JSObject();
+
+            ScriptWorker worker = new ScriptWorker(file, plugin.getWorkerPool().executor(),
+                    msg -> executor.post(() -> {
+                        JSValue onMessage = handle.get("onmessage");
+                        if (!onMessage.isFunction()) return;
+                        JSObject event = new JSObject();
+                        event.set("data", msg);
+                        safeCall((JSFunction) onMessage, new JSValue[]{ JSValue.of(event) });
+                    }),
+                    error -> executor.post(() -> {
+                        JSValue onError = handle.get("onerror");
+                        if (onError.isFunction()) safeCall((JSFunction) onError, new JSValue[]{ JSValue.of(error) });
+                        else logger.warning("[NanoScript] Worker hatası (" + file.getName() + "): " + error);
+                    }),
+                    closed -> executor.post(() -> instance.removeWorkerRef(closed)),
+                    instance.createWorkerWatchdog());
+
+            handle.set("postMessage", fn("postMessage", (a, e) -> {
+                worker.postMessage(a.length > 0 ? a[0] : JSValue.UNDEFINED);
+                return JSValue.UNDEFINED;
+            }));
+            handle.set("terminate", fn("terminate", (a, e) -> {
+                worker.terminate();
+                instance.removeWorkerRef(worker);
+                return JSValue.UNDEFINED;
+            }));
+            handle.set("pending", fn("pending", (a, e) -> JSValue.of(worker.getPendingCount())));
+
+            instance.addWorkerRef(worker);
+            worker.start();
+            return JSValue.of(handle);
+        }));
+
         return server;
     }
 
@@ -940,20 +1101,47 @@ public class ScriptAPI {
     private JSObject buildEventManager() {
         JSObject em = new JSObject();
 
+        // em.on(eventAdı, function, { priority: "HIGH", ignoreCancelled: true, ...filtre }?)
+        // Filtre anahtarları (blockChanged, minDistance, worlds, permission, item,
+        // throttleMs) Java'da değerlendirilir; eşleşmeyen event JS'e hiç girmez.
         em.set("on", fn("on", (args, env) -> {
             if (args.length < 2 || !args[1].isFunction())
-                throw new JsError("em.on(eventAdı, function) şeklinde kullanın");
-            registerEvent(args[0].asString(), EventPriority.NORMAL, (JSFunction) args[1]);
+                throw new JsError("em.on(eventAdı, function, seçenekler?) şeklinde kullanın");
+            JSObject opts = args.length > 2 && args[2].isObject() ? args[2].asObject() : null;
+            EventPriority priority = EventPriority.NORMAL;
+            boolean ignoreCancelled = false;
+            if (opts != null) {
+                if (opts.has("priority")) priority = parsePriority(opts.get("priority").asString());
+                ignoreCancelled = opts.get("ignoreCancelled").asBoolean();
+            }
+            registerEvent(args[0].asString(), priority, ignoreCancelled, EventFilter.from(opts), (JSFunction) args[1]);
             return JSValue.UNDEFINED;
         }));
 
         em.set("onPriority", fn("onPriority", (args, env) -> {
             if (args.length < 3 || !args[2].isFunction())
                 throw new JsError("em.onPriority(eventAdı, öncelik, function) şeklinde kullanın");
-            EventPriority priority;
-            try { priority = EventPriority.valueOf(args[1].asString().toUpperCase()); }
-            catch (Exception ex) { priority = EventPriority.NORMAL; }
-            registerEvent(args[0].asString(), priority, (JSFunction) args[2]);
+            registerEvent(args[0].asString(), parsePriority(args[1].asString()), false, null, (JSFunction) args[2]);
+            return JSValue.UNDEFINED;
+        }));
+
+        // em.onBatched(eventAdı, anahtar, pencereTick, function(key, events, total), seçenekler?)
+        // anahtar: "player" | "world" | "block" | "global" | function(event)
+        // Event'ler Java'da anahtar başına biriktirilir; handler pencere başına bir kez çalışır.
+        em.set("onBatched", fn("onBatched", (args, env) -> {
+            if (args.length < 4 || !args[3].isFunction())
+                throw new JsError("em.onBatched(eventAdı, anahtar, pencereTick, function, seçenekler?) şeklinde kullanın");
+            JSObject opts = args.length > 4 && args[4].isObject() ? args[4].asObject() : null;
+            EventPriority priority = opts != null && opts.has("priority")
+                    ? parsePriority(opts.get("priority").asString()) : EventPriority.MONITOR;
+            boolean ignoreCancelled = opts != null && opts.get("ignoreCancelled").asBoolean();
+            String eventName = args[0].asString();
+            BatchedListener bl = new BatchedListener((JSFunction) args[3], eventName, engine, executor, logger,
+                    ignoreCancelled, EventFilter.from(opts), args[1]);
+            if (registerListener(eventName, priority, bl)) {
+                long window = Math.max(1, args[2].asLong());
+                instance.addTimer(plugin.getSyncTimers(), window, window, bl::flush);
+            }
             return JSValue.UNDEFINED;
         }));
 
@@ -1011,19 +1199,27 @@ public class ScriptAPI {
     //  Kayıt implementasyonları
     // ──────────────────────────────────────────────────────────────────
 
-    private void registerEvent(String eventName, EventPriority priority, JSFunction callback) {
+    private void registerEvent(String eventName, EventPriority priority, boolean ignoreCancelled,
+                               EventFilter filter, JSFunction callback) {
+        registerListener(eventName, priority,
+                new DynamicListener(callback, eventName, engine, executor, logger, ignoreCancelled, filter));
+    }
+
+    /** @return event sınıfı bulunup kaydedildiyse true */
+    private boolean registerListener(String eventName, EventPriority priority, DynamicListener dl) {
         Class<? extends Event> eventClass = resolveEventClass(eventName);
         if (eventClass == null) {
             logger.warning("[NanoScript] Event bulunamadı: '" + eventName + "'");
-            return;
+            return false;
         }
-        DynamicListener dl = new DynamicListener(callback, eventName, engine, logger);
-        Bukkit.getPluginManager().registerEvent(
-                eventClass, dl, priority,
-                (listener, event) -> { if (eventClass.isInstance(event)) ((DynamicListener) listener).handleEvent(event); },
-                plugin, false
-        );
+        plugin.getEventHub().register(eventClass, priority, dl);
         instance.addEventListenerRef(dl);
+        return true;
+    }
+
+    private static EventPriority parsePriority(String name) {
+        try { return EventPriority.valueOf(name.toUpperCase()); }
+        catch (Exception ex) { return EventPriority.NORMAL; }
     }
 
     private void registerCommand(String name, String description, String usage, JSFunction callback) {
@@ -1040,6 +1236,11 @@ public class ScriptAPI {
             @Override
             public java.util.List<String> tabComplete(org.bukkit.command.CommandSender sender,
                                                       String alias, String[] rawArgs) {
+                // Paper async tab-complete'i ana thread dışından çağırabilir
+                return executor.callAndWait(() -> complete(sender, rawArgs), java.util.Collections.emptyList());
+            }
+
+            private java.util.List<String> complete(org.bukkit.command.CommandSender sender, String[] rawArgs) {
                 try {
                     JSValue senderVal = JSValue.wrap(sender);
                     JSArray jsArgs = new JSArray();
@@ -1075,12 +1276,52 @@ public class ScriptAPI {
         return null;
     }
 
+    /** scripts/ klasörüne göre dosya çözer; klasör dışına çıkan yolları reddeder */
+    private java.io.File resolveScriptFile(String name) {
+        if (!name.endsWith(".js")) name += ".js";
+        java.io.File root = plugin.getScriptsFolder();
+        java.io.File file = new java.io.File(root, name);
+        try {
+            String rootPath = root.getCanonicalPath() + java.io.File.separator;
+            if (!file.getCanonicalPath().startsWith(rootPath))
+                throw new JsError("scripts/ klasörü dışındaki dosyalar kullanılamaz: " + name);
+        } catch (java.io.IOException e) {
+            throw new JsError("Dosya yolu çözülemedi: " + name);
+        }
+        if (!file.isFile()) throw new JsError("Dosya bulunamadı: scripts/" + name);
+        return file;
+    }
+
+    /**
+     * İş fonksiyonunu yeni bir izole motorda çalıştırır (async thread'den).
+     * async iş fonksiyonunun promise'i call sonunda boşaltılan microtask'larla
+     * tamamlanmış olmalıdır; sonuç kopyalanarak döner.
+     */
+    private static JSValue runIsolated(JSFunction work, JSValue data, Watchdog watchdog) {
+        NanoEngine isolated = new NanoEngine();
+        // Async thread'i sonsuz döngüye kaptırmamak için script'in çağrı sınırı
+        isolated.setWatchdog(watchdog);
+        JSValue result = isolated.call(isolated.adopt(work), new JSValue[]{data});
+        if (result.asObject() instanceof JSPromise p) {
+            switch (p.getState()) {
+                case FULFILLED -> result = p.getResult();
+                case REJECTED  -> throw new JsError(p.getResult().asString());
+                default        -> throw new JsError("iş fonksiyonu tamamlanmayan bir promise döndürdü");
+            }
+        }
+        return StructuredClone.copy(result);
+    }
+
     private String arg(JSValue[] args, int i, String def) {
         return args.length > i ? args[i].asString() : def;
     }
 
     private void safeCall(JSFunction callback) {
-        try { engine.call(callback, new JSValue[]{}); }
+        safeCall(callback, new JSValue[]{});
+    }
+
+    private void safeCall(JSFunction callback, JSValue[] args) {
+        try { engine.call(callback, args); }
         catch (JsError e) { logger.warning("[NanoScript] Callback hatası (" + instance.getFileName() + "): " + e.getMessage()); }
         catch (Exception e) { logger.warning("[NanoScript] Beklenmedik hata: " + e.getMessage()); }
     }
@@ -1098,14 +1339,7 @@ public class ScriptAPI {
         return JSFunction.native1(name, impl);
     }
 
-    @SuppressWarnings("unchecked")
     private Class<? extends Event> resolveEventClass(String name) {
-        try { return (Class<? extends Event>) Class.forName(name); }
-        catch (ClassNotFoundException ignored) {}
-        for (String pkg : EVENT_PACKAGES) {
-            try { return (Class<? extends Event>) Class.forName(pkg + name); }
-            catch (ClassNotFoundException ignored) {}
-        }
-        return null;
+        return plugin.getEventIndex().resolve(name);
     }
 }
\ No newline at end of file
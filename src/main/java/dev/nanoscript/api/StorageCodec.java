@@ -0,0 +1,317 @@
+package dev.nanoscript.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Storage anlık görüntülerinin ikili biçimi (data/<ad>.nsb).
+ *
+ *   "NSB" sürüm bayraklar [gövde uzunluğu] | [deflate] dizgi tablosu, kök değer
+ *
+ * Bütün anahtarlar ve dizgi değerler (alan adları, oyuncu adları, UUID'ler)
+ * bir kez tabloya yazılır, ağaçta yalnızca varint sıra numarası geçer. Sayılar
+ * tam sayıysa zigzag varint, değilse 8 bayt double. Bayraklardaki DEFLATE biti
+ * varsa tablo + ağaç Deflater ile sıkıştırılmıştır.
+ *
+ * Okuma metin ayrıştırmadan doğrudan JsonObject ağacı kurar. Eski .json
+ * anlık görüntüleri StorageLog ilk sıkıştırmada bu biçime dönüştürür.
+ */
+final class StorageCodec {
+
+    private static final byte[] MAGIC = { 'N', 'S', 'B' };
+    private static final int VERSION = 1;
+    private static final int DEFLATE = 1;
+
+    private static final int T_NULL   = 0;
+    private static final int T_FALSE  = 1;
+    private static final int T_TRUE   = 2;
+    private static final int T_INT    = 3;
+    private static final int T_DOUBLE = 4;
+    private static final int T_STRING = 5;
+    private static final int T_ARRAY  = 6;
+    private static final int T_OBJECT = 7;
+
+    /** Bu aralıktaki tam sayılar double'a kayıpsız döner */
+    private static final double MAX_INT = 1L << 53;
+
+    private StorageCodec() {}
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Yazma
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Kökü sıkıştırılmamış gövdeye çevirir (ad alanı kilidi altında çağrılır;
+     * ağaca yalnızca burada dokunulur).
+     */
+    static byte[] encode(JsonObject root) {
+        Map<String, Integer> table = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        Out tree = new Out(256);
+        write(tree, root, table, strings);
+
+        Out out = new Out(tree.size + strings.size() * 8 + 16);
+        out.varint(strings.size());
+        for (String s : strings) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            out.varint(b.length);
+            out.bytes(b, b.length);
+        }
+        out.bytes(tree.buf, tree.size);
+        return out.toArray();
+    }
+
+    /** Gövdeye başlık ekler, istenirse sıkıştırır (kilit dışında, flusher thread'i) */
+    static byte[] frame(byte[] body, boolean compress) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(compress ? body.length / 4 + 16 : body.length + 5);
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(compress ? DEFLATE : 0);
+        if (compress) {
+            // Açılırken gövde tek seferde, tam boyutlu diziye açılır
+            for (int shift = 24; shift >= 0; shift -= 8) out.write(body.length >>> shift);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream z = new DeflaterOutputStream(out, deflater)) {
+                z.write(body);
+            } finally {
+                deflater.end();
+            }
+        } else {
+            out.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(Out out, JsonElement el, Map<String, Integer> table, List<String> strings) {
+        if (el == null || el.isJsonNull()) {
+            out.u8(T_NULL);
+        } else if (el.isJsonObject()) {
+            JsonObject obj = el.getAsJsonObject();
+            out.u8(T_OBJECT);
+            out.varint(obj.size());
+            for (Map.Entry<String, JsonElement> e : obj.entrySet()) {
+                out.varint(intern(e.getKey(), table, strings));
+                write(out, e.getValue(), table, strings);
+            }
+        } else if (el.isJsonArray()) {
+            JsonArray arr = el.getAsJsonArray();
+            out.u8(T_ARRAY);
+            out.varint(arr.size());
+            for (JsonElement item : arr) write(out, item, table, strings);
+        } else {
+            JsonPrimitive p = el.getAsJsonPrimitive();
+            if (p.isBoolean()) {
+                out.u8(p.getAsBoolean() ? T_TRUE : T_FALSE);
+            } else if (p.isNumber()) {
+                double d = p.getAsDouble();
+                if (d == Math.rint(d) && Math.abs(d) < MAX_INT && !(d == 0 && 1 / d < 0)) {
+                    long v = (long) d;
+                    out.u8(T_INT);
+                    out.varint((v << 1) ^ (v >> 63));
+                } else {
+                    out.u8(T_DOUBLE);
+                    out.u64(Double.doubleToRawLongBits(d));
+                }
+            } else {
+                out.u8(T_STRING);
+                out.varint(intern(p.getAsString(), table, strings));
+            }
+        }
+    }
+
+    private static int intern(String s, Map<String, Integer> table, List<String> strings) {
+        Integer idx = table.get(s);
+        if (idx != null) return idx;
+        table.put(s, strings.size());
+        strings.add(s);
+        return strings.size() - 1;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Okuma
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Bu baytlar ikili anlık görüntü mü (başlık kontrolü) */
+    static boolean isBinary(byte[] bytes) {
+        return bytes.length >= 5 && Arrays.equals(bytes, 0, 3, MAGIC, 0, 3);
+    }
+
+    static JsonObject decode(byte[] bytes) throws IOException {
+        if (!isBinary(bytes)) throw new IOException("NSB başlığı yok");
+        if (bytes[3] != VERSION) throw new IOException("desteklenmeyen NSB sürümü " + bytes[3]);
+        byte[] body;
+        if ((bytes[4] & DEFLATE) != 0) {
+            if (bytes.length < 9) throw new IOException("NSB verisi bozuk");
+            int length = (bytes[5] & 0xFF) << 24 | (bytes[6] & 0xFF) << 16 | (bytes[7] & 0xFF) << 8 | (bytes[8] & 0xFF);
+            if (length < 0) throw new IOException("NSB verisi bozuk");
+            body = new byte[length];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(bytes, 9, bytes.length - 9);
+                int n = 0;
+                while (n < length && !inflater.finished()) {
+                    int r = inflater.inflate(body, n, length - n);
+                    if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    n += r;
+                }
+                if (n != length) throw new IOException("NSB verisi bozuk (eksik gövde)");
+            } catch (DataFormatException e) {
+                throw new IOException("NSB verisi bozuk: " + e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        } else {
+            body = Arrays.copyOfRange(bytes, 5, bytes.length);
+        }
+        try {
+            In in = new In(body);
+            String[] strings = new String[in.count()];
+            for (int i = 0; i < strings.length; i++) {
+                int len = in.count();
+                strings[i] = new String(body, in.take(len), len, StandardCharsets.UTF_8);
+            }
+            JsonElement root = read(in, strings);
+            if (!root.isJsonObject()) throw new IOException("kök nesne değil");
+            return root.getAsJsonObject();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("NSB verisi bozuk");
+        }
+    }
+
+    private static JsonElement read(In in, String[] strings) throws IOException {
+        int tag = in.u8();
+        switch (tag) {
+            case T_NULL:   return JsonNull.INSTANCE;
+            case T_FALSE:  return new JsonPrimitive(false);
+            case T_TRUE:   return new JsonPrimitive(true);
+            case T_INT: {
+                long z = in.varint();
+                return new JsonPrimitive((double) ((z >>> 1) ^ -(z & 1)));
+            }
+            case T_DOUBLE: return new JsonPrimitive(Double.longBitsToDouble(in.u64()));
+            case T_STRING: return new JsonPrimitive(strings[in.count()]);
+            case T_ARRAY: {
+                int n = in.count();
+                JsonArray arr = new JsonArray(n);
+                for (int i = 0; i < n; i++) arr.add(read(in, strings));
+                return arr;
+            }
+            case T_OBJECT: {
+                int n = in.count();
+                JsonObject obj = new JsonObject();
+                for (int i = 0; i < n; i++) {
+                    String key = strings[in.count()];
+                    obj.add(key, read(in, strings));
+                }
+                return obj;
+            }
+            default: throw new IOException("NSB: bilinmeyen etiket " + tag);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Bayt tamponları
+    // ──────────────────────────────────────────────────────────────────
+
+    private static final class Out {
+        byte[] buf;
+        int size;
+
+        Out(int capacity) {
+            buf = new byte[Math.max(16, capacity)];
+        }
+
+        private void ensure(int n) {
+            if (size + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+        }
+
+        void u8(int b) {
+            ensure(1);
+            buf[size++] = (byte) b;
+        }
+
+        void varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        void u64(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) buf[size++] = (byte) (v >>> shift);
+        }
+
+        void bytes(byte[] b, int len) {
+            ensure(len);
+            System.arraycopy(b, 0, buf, size, len);
+            size += len;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+
+    private static final class In {
+        final byte[] buf;
+        int pos;
+
+        In(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int u8() {
+            return buf[pos++] & 0xFF;
+        }
+
+        long varint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("NSB: varint çok uzun");
+        }
+
+        /** Uzunluk / sıra numarası: negatif ya da tampondan büyük olamaz */
+        int count() throws IOException {
+            long v = varint();
+            if (v < 0 || v > buf.length) throw new IOException("NSB: geçersiz uzunluk " + v);
+            return (int) v;
+        }
+
+        long u64() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = (v << 8) | u8();
+            return v;
+        }
+
+        /** len baytı atlar, başlangıç konumunu döner */
+        int take(int len) {
+            int start = pos;
+            if (start + len > buf.length) throw new IndexOutOfBoundsException();
+            pos += len;
+            return start;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package dev.nanoscript.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * db.counter("kills") — sık güncellenen tam sayı sayaçları için sütun deposu.
+ *
+ *   data/<ad>/<sayaç>.cnt   — başlık + anahtar başına 8 baytlık long (mmap)
+ *   data/<ad>/<sayaç>.keys  — satır i = i. yuvanın anahtarı (yalnızca eklenir)
+ *
+ * Değerler doğrudan bellek eşlemeli dosyada durur; add() tek bir VarHandle
+ * getAndAdd'dir — yol ayrıştırma, JsonPrimitive, log kaydı yok. İşletim sistemi
+ * sayfaları kendisi yazar; flusher ilk değişiklikten en geç max-latency-ms
+ * sonra force() eder (sunucu çökmesinde değerler zaten sayfa önbelleğindedir).
+ *
+ * Yeni anahtar nadirdir (yeni oyuncu): kilit altında bir yuva ayrılır,
+ * .keys'e bir satır eklenir, dosya dolarsa iki katına büyütülür. Açılışta
+ * anahtarı .keys'e yazılamamış yuvalar (çökme) sıfırlanır.
+ *
+ * Değerler long'dur; okuma ve ekleme her thread'den güvenlidir.
+ */
+final class StorageCounter implements StorageFlusher.Target {
+
+    private static final VarHandle SLOT =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int MAGIC = 0x4E534331;   // "NSC1"
+    /** Başlık 8'in katı: yuvalar hizalı kalır (atomik erişim için şart) */
+    private static final int HEADER = 16;
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final String name;
+    private final StorageFlusher flusher;
+    private final FileChannel data;
+    private final FileChannel keyLog;
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+
+    private volatile MappedByteBuffer buf;
+    // this altında
+    private int count;
+    private int capacity;
+    private boolean keysDirty;
+    private boolean closed;
+    // Son force'tan beri değişiklik var; flusher'a tur başına bir kez bildirilir
+    private volatile boolean dirty;
+
+    private StorageCounter(String name, StorageFlusher flusher, FileChannel data, FileChannel keyLog) {
+        this.name    = name;
+        this.flusher = flusher;
+        this.data    = data;
+        this.keyLog  = keyLog;
+    }
+
+    /** @param label /ns storage ve hata mesajlarında görünen ad */
+    static StorageCounter open(File dir, String name, String label, StorageFlusher flusher) throws IOException {
+        dir.mkdirs();
+        File dataFile = new File(dir, name + ".cnt");
+        File keyFile  = new File(dir, name + ".keys");
+
+        List<String> keys = readKeys(keyFile);
+        FileChannel data = FileChannel.open(dataFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel keyLog = FileChannel.open(keyFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        StorageCounter c = new StorageCounter(label, flusher, data, keyLog);
+        try {
+            c.init(keys, dataFile);
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            keyLog.close();
+            throw e;
+        }
+        return c;
+    }
+
+    /** Tam satırları okur; yarım son satır (çökme) dosyadan kesilir */
+    private static List<String> readKeys(File keyFile) throws IOException {
+        List<String> keys = new ArrayList<>();
+        if (!keyFile.exists()) return keys;
+        byte[] bytes = Files.readAllBytes(keyFile.toPath());
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            keys.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+            start = i + 1;
+        }
+        if (start < bytes.length) {
+            try (FileChannel ch = FileChannel.open(keyFile.toPath(), StandardOpenOption.WRITE)) {
+                ch.truncate(start);
+            }
+        }
+        return keys;
+    }
+
+    private void init(List<String> keys, File dataFile) throws IOException {
+        long size = data.size();
+        if (size > 0 && size < HEADER) throw new IOException(dataFile.getName() + ": bozuk başlık");
+        int slotsOnDisk = size == 0 ? 0 : (int) ((size - HEADER) / 8);
+        capacity = Math.max(INITIAL_SLOTS, slotsOnDisk);
+        while (capacity < keys.size()) capacity *= 2;
+        buf = map(capacity);
+        if (size == 0) {
+            buf.putInt(0, MAGIC);
+        } else if (buf.getInt(0) != MAGIC) {
+            throw new IOException(dataFile.getName() + ": sayaç dosyası değil");
+        }
+        keyLog.position(keyLog.size());
+        for (String key : keys) slots.putIfAbsent(key, count++);
+        // Anahtarı kaydedilmeden çökmüş yuvalardaki değerler kimseye ait değil
+        for (int i = count; i < slotsOnDisk; i++) {
+            if ((long) SLOT.get(buf, offset(i)) != 0) SLOT.set(buf, offset(i), 0L);
+        }
+    }
+
+    private MappedByteBuffer map(int slotCount) throws IOException {
+        // Dosyadan uzun eşleme dosyayı büyütür; eski ve yeni eşleme aynı sayfaları paylaşır
+        return data.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) slotCount * 8);
+    }
+
+    private static int offset(int slot) {
+        return HEADER + slot * 8;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Erişim
+    // ──────────────────────────────────────────────────────────────────
+
+    /** key'e n ekler, yeni değeri döner */
+    long add(String key, long n) {
+        int slot = slot(key);
+        long value = (long) SLOT.getAndAdd(buf, offset(slot), n) + n;
+        touch();
+        return value;
+    }
+
+    void set(String key, long value) {
+        SLOT.setVolatile(buf, offset(slot(key)), value);
+        touch();
+    }
+
+    /** Hiç eklenmemiş anahtar 0 */
+    long get(String key) {
+        Integer slot = slots.get(key);
+        return slot == null ? 0 : (long) SLOT.getVolatile(buf, offset(slot));
+    }
+
+    boolean has(String key) {
+        return slots.containsKey(key);
+    }
+
+    /** Yuva sırasıyla (ilk eklenen başta) */
+    List<String> keys() {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(slots.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+        List<String> keys = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Integer> e : entries) keys.add(e.getKey());
+        return keys;
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    private int slot(String key) {
+        Integer slot = slots.get(key);
+        return slot != null ? slot : allocate(key);
+    }
+
+    private synchronized int allocate(String key) {
+        Integer existing = slots.get(key);
+        if (existing != null) return existing;
+        if (closed) throw new IllegalStateException(name + " kapalı");
+        try {
+            if (count == capacity) {
+                buf = map(capacity * 2);
+                capacity *= 2;
+            }
+            ByteBuffer line = ByteBuffer.wrap((key + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) keyLog.write(line);
+        } catch (IOException e) {
+            throw new IllegalStateException(name + ": yeni anahtar kaydedilemedi: " + e.getMessage(), e);
+        }
+        keysDirty = true;
+        int slot = count++;
+        slots.put(key, slot);
+        touch();
+        return slot;
+    }
+
+    private void touch() {
+        if (dirty) return;
+        dirty = true;
+        flusher.markDirty(this);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Disk (flusher thread'i)
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Değerleri ve yeni anahtarları diske zorlar; bayt sayısını işletim sistemi bilir (0) */
+    @Override
+    public long flush() throws IOException {
+        // force'tan önce temizle: arada gelen bir add yeniden işaretler
+        dirty = false;
+        boolean keys;
+        MappedByteBuffer b;
+        synchronized (this) {
+            if (closed) return 0;
+            keys = keysDirty;
+            keysDirty = false;
+            b = buf;
+        }
+        // Önce anahtarlar: değeri kalıcı olup anahtarı kaybolan yuva açılışta sıfırlanır
+        if (keys) keyLog.force(false);
+        b.force();
+        return 0;
+    }
+
+    /** Kapanış: son kez yazar ve dosyaları bırakır */
+    void close() throws IOException {
+        flush();
+        synchronized (this) {
+            closed = true;
+            keyLog.close();
+            data.close();
+        }
+    }
+
+    @Override
+    public String getName() { return name; }
+}
@@ -0,0 +1,166 @@
+package dev.nanoscript.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Storage değişikliklerini diske taşıyan tek arka plan thread'i.
+ *
+ * Her değişiklik yalnızca ilgili log'u kirli işaretler (markDirty); zamanlayıcı
+ * görevi açılmaz. Thread ilk kirli işaretten en geç maxLatency sonra — ya da
+ * maxBatch değişiklik birikince hemen — kirli log'ların hepsini tek turda
+ * yazar. Döngüde 5000 db.increment yapan bir script böylece 5000 görev yerine
+ * tek bir append + fsync üretir.
+ *
+ * Log'ların yanında db.counter dosyaları da (StorageCounter) aynı turda
+ * force edilir; ikisi de Target'tır.
+ *
+ * Plugin ömrü boyunca tektir (NanoScript sahibidir); shutdown() kalan her şeyi
+ * çağıran thread'de yazar.
+ */
+public class StorageFlusher {
+
+    /** Flusher'ın yazdığı şey: ad alanı log'u ya da sayaç dosyası */
+    interface Target {
+        String getName();
+        /** @return diske yazılan bayt */
+        long flush() throws IOException;
+    }
+
+    private final Logger logger;
+    private final long maxLatencyNanos;
+    private final int maxBatch;
+    private final Thread thread;
+
+    // lock altında
+    private final Object lock = new Object();
+    private final Set<Target> dirty = new LinkedHashSet<>();
+    private long oldestDirty;
+    private int queued;
+    private boolean running = true;
+
+    // Metrikler (yalnızca flusher yazar)
+    private volatile long flushCount;
+    private volatile long bytesWritten;
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+    private volatile long totalFlushNanos;
+
+    public StorageFlusher(Logger logger, long maxLatencyMs, int maxBatch) {
+        this.logger = logger;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxLatencyMs));
+        this.maxBatch = Math.max(1, maxBatch);
+        this.thread = new Thread(this::loop, "NanoScript-Storage");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** Bir değişiklik kaydedildi — log'u sıradaki tura ekler */
+    void markDirty(Target log) {
+        synchronized (lock) {
+            if (dirty.isEmpty()) {
+                oldestDirty = System.nanoTime();
+                lock.notifyAll();
+            }
+            dirty.add(log);
+            if (++queued == maxBatch) lock.notifyAll();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Thread
+    // ──────────────────────────────────────────────────────────────────
+
+    private void loop() {
+        while (true) {
+            List<Target> batch;
+            synchronized (lock) {
+                try {
+                    while (running && dirty.isEmpty()) lock.wait();
+                    while (running && queued < maxBatch) {
+                        long wait = oldestDirty + maxLatencyNanos - System.nanoTime();
+                        if (wait <= 0) break;
+                        TimeUnit.NANOSECONDS.timedWait(lock, wait);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!running) return;
+                batch = drain();
+            }
+            flush(batch);
+        }
+    }
+
+    private List<Target> drain() {
+        List<Target> batch = new ArrayList<>(dirty);
+        dirty.clear();
+        queued = 0;
+        return batch;
+    }
+
+    private void flush(List<Target> batch) {
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (Target log : batch) {
+            try {
+                bytes += log.flush();
+            } catch (IOException | RuntimeException e) {
+                logger.warning("[Storage] Kayıt hatası (" + log.getName() + "): " + e.getMessage());
+                // Yazılamayan kayıtlar hedefte bekliyor — sonraki turda yeniden denenir
+                markDirty(log);
+            }
+        }
+        long took = System.nanoTime() - start;
+        flushCount++;
+        bytesWritten += bytes;
+        lastFlushNanos = took;
+        totalFlushNanos += took;
+        if (took > maxFlushNanos) maxFlushNanos = took;
+    }
+
+    /** onDisable: thread'i durdurur, kalan kirli log'ları hemen yazar */
+    public void shutdown() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try { thread.join(2000); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        List<Target> rest;
+        synchronized (lock) { rest = drain(); }
+        if (!rest.isEmpty()) flush(rest);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Metrikler (/ns storage)
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Henüz diske yazılmamış değişiklik sayısı */
+    public int getQueueDepth() {
+        synchronized (lock) { return queued; }
+    }
+
+    /** Kirli (yazılmayı bekleyen) ad alanı sayısı */
+    public int getDirtyCount() {
+        synchronized (lock) { return dirty.size(); }
+    }
+
+    public long getFlushCount()    { return flushCount; }
+    public long getBytesWritten()  { return bytesWritten; }
+    public double getLastFlushMs() { return lastFlushNanos / 1_000_000.0; }
+    public double getMaxFlushMs()  { return maxFlushNanos / 1_000_000.0; }
+
+    public double getAverageFlushMs() {
+        long count = flushCount;
+        return count == 0 ? 0 : totalFlushNanos / 1_000_000.0 / count;
+    }
+
+    public long getMaxLatencyMs() { return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos); }
+    public int getMaxBatch()      { return maxBatch; }
+}
@@ -0,0 +1,178 @@
+package dev.nanoscript.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * db.index("bakiye") — bir nesnenin sayısal alt değerleri üzerinde sıralı dizin.
+ *
+ * Sıralama: değer büyükten küçüğe, eşitlikte anahtar alfabetik. Yapı,
+ * her bağlantının kaç düğüm atladığını (span) tutan bir skip list'tir;
+ * ekleme / silme / sıra O(log n), ilk k veya bir aralık O(log n + k).
+ * Her yazmada StorageManager yalnızca etkilenen anahtarı günceller.
+ *
+ * Yalnızca ana thread'den kullanılır.
+ */
+final class StorageIndex {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double P = 0.25;
+
+    record Entry(String key, double value) {}
+
+    private static final class Node {
+        final String key;
+        final double value;
+        final Node[] next;
+        final int[] span;
+
+        Node(String key, double value, int level) {
+            this.key   = key;
+            this.value = value;
+            this.next  = new Node[level];
+            this.span  = new int[level];
+        }
+    }
+
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+    private final Map<String, Double> values = new HashMap<>();
+    private int level = 1;
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Güncelleme
+    // ──────────────────────────────────────────────────────────────────
+
+    void put(String key, double value) {
+        Double old = values.put(key, value);
+        if (old != null) {
+            if (old == value) return;
+            unlink(key, old);
+        }
+        insert(key, value);
+    }
+
+    void remove(String key) {
+        Double old = values.remove(key);
+        if (old != null) unlink(key, old);
+    }
+
+    void clear() {
+        values.clear();
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        level = 1;
+    }
+
+    int size() { return values.size(); }
+
+    /** a, (value, key)'den önce mi gelir */
+    private static boolean before(Node a, double value, String key) {
+        int c = Double.compare(value, a.value);
+        return c != 0 ? c < 0 : a.key.compareTo(key) < 0;
+    }
+
+    private void insert(String key, double value) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], value, key)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int lvl = randomLevel();
+        if (lvl > level) {
+            for (int i = level; i < lvl; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                update[i].span[i] = values.size() - 1;   // yeni anahtar values'a zaten eklendi
+            }
+            level = lvl;
+        }
+        x = new Node(key, value, lvl);
+        for (int i = 0; i < lvl; i++) {
+            x.next[i] = update[i].next[i];
+            update[i].next[i] = x;
+            x.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = lvl; i < level; i++) update[i].span[i]++;
+    }
+
+    private void unlink(String key, double value) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], value, key)) x = x.next[i];
+            update[i] = x;
+        }
+        x = x.next[0];
+        if (x == null || !x.key.equals(key)) return;
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].next[i] = x.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) level--;
+    }
+
+    private static int randomLevel() {
+        int lvl = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (lvl < MAX_LEVEL && random.nextDouble() < P) lvl++;
+        return lvl;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Sorgular
+    // ──────────────────────────────────────────────────────────────────
+
+    /** En büyük n değer */
+    List<Entry> top(int n) {
+        List<Entry> out = new ArrayList<>(Math.max(0, Math.min(n, values.size())));
+        for (Node x = head.next[0]; x != null && out.size() < n; x = x.next[0]) {
+            out.add(new Entry(x.key, x.value));
+        }
+        return out;
+    }
+
+    /** 1'den başlayan sıra (en büyük = 1); dizinde yoksa -1 */
+    int rank(String key) {
+        Double value = values.get(key);
+        if (value == null) return -1;
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (before(x.next[i], value, key) || x.next[i].key.equals(key))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x.key != null && x.key.equals(key)) return rank;
+        }
+        return -1;
+    }
+
+    /** min ≤ değer ≤ max olanlar, büyükten küçüğe (en fazla limit) */
+    List<Entry> range(double min, double max, int limit) {
+        List<Entry> out = new ArrayList<>();
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].value > max) x = x.next[i];
+        }
+        for (x = x.next[0]; x != null && x.value >= min && out.size() < limit; x = x.next[0]) {
+            out.add(new Entry(x.key, x.value));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,408 @@
+package dev.nanoscript.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bir storage ad alanının write-ahead log'u.
+ *
+ *   data/<ad>.nsb   — son sıkıştırmadaki tam anlık görüntü (ikili, bkz. StorageCodec)
+ *   data/<ad>.wal   — o andan sonraki değişiklikler, satır başına bir JSON kaydı
+ *
+ * Değişiklikler önce bellekte sıraya girer (append); flush() sıradakileri tek
+ * yazma + tek fsync ile log'a ekler (group commit). Log büyüyünce compact()
+ * anlık görüntüyü geçici dosyaya yazıp atomik olarak yerine taşır ve log'u
+ * boşaltır. Açılışta anlık görüntü okunur, log üzerine yeniden oynatılır.
+ *
+ * Kayıtlar idempotenttir (increment sonuç değeriyle "set", push beklenen
+ * uzunlukla), bu yüzden sıkıştırma ile log boşaltma arasında çökme olursa
+ * aynı kayıtların ikinci kez oynatılması sonucu değiştirmez. Yarım kalmış son
+ * satır (yazma sırasında çökme) yok sayılır.
+ *
+ * db.batch: begin() ile commit() arasındaki kayıtlar tek bir "batch" satırı
+ * olarak eklenir; satır ya tamamen okunur ya da yarım kalıp atlanır, yani
+ * batch çökmeden sonra ya bütünüyle uygulanmış ya da hiç uygulanmamış olur.
+ *
+ * Eski sürümlerin data/<ad>.json anlık görüntüsü .nsb yoksa okunur; ilk
+ * flush'ta ikili biçimde yazılıp silinir (dönüştürme).
+ *
+ * Kilitler: değişiklik + append ad alanı kilidi altında (this); dosya
+ * işlemleri ioLock altında tek seferde bir thread.
+ *
+ * Bölümlü storage'da bir parça bellekten atılırken log kapatılır (close);
+ * kapalı log'a bekleyen bir flush artık dokunmaz — aksi halde boşalmış
+ * önbellekten boş bir anlık görüntü yazardı.
+ */
+final class StorageLog implements StorageFlusher.Target {
+
+    private static final Gson GSON = new Gson();
+
+    /** Log bu boyutu aşınca sıkıştırılır */
+    static final long COMPACT_BYTES = 1L << 20;
+    /** Log boş değilse en geç bu sürede bir sıkıştırılır */
+    static final long COMPACT_INTERVAL_MS = 5 * 60_000L;
+
+    private final String name;
+    private final File snapshot;
+    /** Eski biçim (pretty JSON) — yalnızca okunur, dönüştürülünce silinir */
+    private final File legacy;
+    private final File wal;
+    /** Sıkıştırmada ad alanı kilidi altında çağrılır, güncel kökü döner */
+    private final Supplier<JsonObject> state;
+    private final Object ioLock = new Object();
+    private final boolean compress;
+
+    private List<String> pending = new ArrayList<>();
+    // this altında: kayıtlar sıradan alınmış ama henüz diske yazılmamış
+    private boolean writing;
+    private boolean closed;
+    // this altında: db.batch açıkken kayıtlar burada toplanır
+    private JsonArray batch;
+    private long walBytes;
+    private long lastCompact = System.currentTimeMillis();
+    // Anlık görüntü eski .json'dan okundu — sıradaki flush ikili biçimde yazar
+    private volatile boolean converting;
+
+    StorageLog(File dataDir, String name, Supplier<JsonObject> state, boolean compress) {
+        this.name     = name;
+        this.state    = state;
+        this.compress = compress;
+        this.snapshot = new File(dataDir, name + ".nsb");
+        this.legacy   = new File(dataDir, name + ".json");
+        this.wal      = new File(dataDir, name + ".wal");
+        this.walBytes = wal.length();
+        snapshot.getParentFile().mkdirs();
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Kayıtlar (ad alanı kilidi altında çağrılır)
+    // ──────────────────────────────────────────────────────────────────
+
+    void recordSet(String path, JsonElement value) {
+        JsonObject r = op("set");
+        r.addProperty("k", path);
+        r.add("v", value);
+        append(r);
+    }
+
+    void recordDelete(String path) {
+        JsonObject r = op("del");
+        r.addProperty("k", path);
+        append(r);
+    }
+
+    /** @param length push sonrası dizi uzunluğu — tekrar oynatmada çift eklemeyi önler */
+    void recordPush(String path, JsonElement value, int length) {
+        JsonObject r = op("push");
+        r.addProperty("k", path);
+        r.add("v", value);
+        r.addProperty("n", length);
+        append(r);
+    }
+
+    void recordClear() {
+        append(op("clear"));
+    }
+
+    private static JsonObject op(String name) {
+        JsonObject r = new JsonObject();
+        r.add("o", new JsonPrimitive(name));
+        return r;
+    }
+
+    private synchronized void append(JsonObject record) {
+        if (batch != null) {
+            batch.add(record);
+            return;
+        }
+        pending.add(GSON.toJson(record));
+    }
+
+    /** Sonraki kayıtları tek bir batch kaydında topla */
+    synchronized void begin() {
+        batch = new JsonArray();
+    }
+
+    /** Toplanan kayıtları tek satır olarak sıraya ekle */
+    synchronized void commit() {
+        JsonArray records = batch;
+        batch = null;
+        if (records.isEmpty()) return;
+        if (records.size() == 1) {
+            append(records.get(0).getAsJsonObject());
+            return;
+        }
+        JsonObject r = op("batch");
+        r.add("r", records);
+        append(r);
+    }
+
+    /** Toplanan kayıtları at (durum çağıran tarafından geri alınır) */
+    synchronized void rollback() {
+        batch = null;
+    }
+
+    synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Disk (async thread)
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Sıradaki kayıtları log'a ekler ve fsync eder; gerekirse sıkıştırır.
+     * @return diske yazılan bayt
+     */
+    @Override
+    public long flush() throws IOException {
+        synchronized (ioLock) {
+            List<String> batch;
+            synchronized (this) {
+                if (closed) return 0;
+                batch = pending;
+                pending = new ArrayList<>();
+                writing = true;
+            }
+            try {
+                long written = 0;
+                try {
+                    written += append(batch);
+                } catch (IOException | RuntimeException e) {
+                    // Kayıtlar kaybolmaz: sıranın başına döner, log temiz sayılmaz
+                    restore(batch);
+                    throw e;
+                }
+                return written + compactIfNeeded();
+            } finally {
+                synchronized (this) { writing = false; }
+            }
+        }
+    }
+
+    /** Yazılamayan kayıtları sonradan gelenlerin önüne geri koyar */
+    private synchronized void restore(List<String> batch) {
+        if (batch.isEmpty() || closed) return;
+        batch.addAll(pending);
+        pending = batch;
+    }
+
+    /**
+     * Kayıtları log'a ekler. Yazma yarıda kalırsa log eski uzunluğuna kesilir;
+     * kesme de başarısızsa sonraki ekleme yarım satırı yeni satırla kapatır.
+     */
+    private long append(List<String> batch) throws IOException {
+        if (batch.isEmpty()) return 0;
+        StringBuilder sb = new StringBuilder();
+        for (String line : batch) sb.append(line).append('\n');
+        try (FileChannel ch = FileChannel.open(wal.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long start = ch.size();
+            if (start > 0 && !endsWithNewline(ch, start)) sb.insert(0, '\n');
+            byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(bytes);
+                long pos = start;
+                while (buf.hasRemaining()) pos += ch.write(buf, pos);
+                ch.force(false);
+            } catch (IOException e) {
+                try { ch.truncate(start); }
+                catch (IOException suppressed) { e.addSuppressed(suppressed); }
+                throw e;
+            }
+            walBytes = start + bytes.length;
+            return bytes.length;
+        }
+    }
+
+    private static boolean endsWithNewline(FileChannel ch, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return ch.read(last, size - 1) == 1 && last.get(0) == '\n';
+    }
+
+    private long compactIfNeeded() throws IOException {
+        boolean stale = walBytes > 0 && System.currentTimeMillis() - lastCompact > COMPACT_INTERVAL_MS;
+        return walBytes > COMPACT_BYTES || stale || converting ? compact() : 0;
+    }
+
+    /** Anlık görüntüyü atomik olarak yazar ve log'u boşaltır */
+    long compact() throws IOException {
+        synchronized (ioLock) {
+            byte[] body;
+            boolean empty;
+            List<String> taken;
+            synchronized (this) {
+                if (closed) return 0;
+                // Sıradaki kayıtlar zaten durumun içinde — anlık görüntüyle birlikte gider
+                JsonObject root = state.get();
+                body = StorageCodec.encode(root);
+                empty = root.size() == 0;
+                taken = pending;
+                pending = new ArrayList<>();
+                writing = true;
+            }
+            try {
+                // Sıkıştırma kilit dışında: ana thread beklemez
+                return writeSnapshot(StorageCodec.frame(body, compress), empty);
+            } catch (IOException | RuntimeException e) {
+                // Anlık görüntü yazılamadı: kayıtlar log'a yazılmak üzere geri döner
+                restore(taken);
+                throw e;
+            } finally {
+                synchronized (this) { writing = false; }
+            }
+        }
+    }
+
+    private long writeSnapshot(byte[] bytes, boolean empty) throws IOException {
+        File tmp = new File(snapshot.getPath() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        try {
+            Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Çökme burada olursa log yeniden oynatılır — kayıtlar idempotent
+        Files.deleteIfExists(wal.toPath());
+        // .nsb varken .json okunmaz; boş .nsb silinmeden önce gitmeli
+        if (Files.deleteIfExists(legacy.toPath())) converting = false;
+        // Boş ad alanı dosya bırakmaz (silinmiş bölüm parçası listelenmez);
+        // önce boş anlık görüntü yazıldığı için her adımda çökme tutarlıdır
+        if (empty) Files.deleteIfExists(snapshot.toPath());
+        walBytes = 0;
+        lastCompact = System.currentTimeMillis();
+        return bytes.length;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Kurtarma
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Anlık görüntüyü okur (yoksa boş nesne); yalnızca eski .json varsa onu */
+    JsonObject readSnapshot() throws IOException {
+        if (snapshot.exists()) return StorageCodec.decode(Files.readAllBytes(snapshot.toPath()));
+        if (!legacy.exists()) return new JsonObject();
+        try (BufferedReader r = Files.newBufferedReader(legacy.toPath(), StandardCharsets.UTF_8)) {
+            JsonElement el = JsonParser.parseReader(r);
+            converting = true;
+            return el.isJsonObject() ? el.getAsJsonObject() : new JsonObject();
+        }
+    }
+
+    /**
+     * Okunamayan anlık görüntüyü (bozuk ya da yeni sürüm .nsb) ve ona bağlı
+     * log'u <dosya>.corrupt-<zaman> olarak kenara taşır. Boş durumla devam
+     * eden ad alanının ilk sıkıştırması böylece eski verinin üzerine yazmaz.
+     * @return taşınan dosyaların yeni adları
+     */
+    List<String> quarantine() throws IOException {
+        synchronized (ioLock) {
+            String suffix = ".corrupt-" + System.currentTimeMillis();
+            List<String> moved = new ArrayList<>();
+            for (File file : new File[]{ snapshot.exists() ? snapshot : legacy, wal }) {
+                if (!file.exists()) continue;
+                File target = new File(file.getPath() + suffix);
+                Files.move(file.toPath(), target.toPath());
+                moved.add(target.getName());
+            }
+            walBytes = 0;
+            converting = false;
+            return moved;
+        }
+    }
+
+    /** readSnapshot eski .json okudu; bir flush istenmeli */
+    boolean isConverting() {
+        return converting;
+    }
+
+    /** Ad alanının diskte verisi var mı (anlık görüntü, eski .json ya da log) */
+    static boolean exists(File dataDir, String name) {
+        return new File(dataDir, name + ".nsb").exists()
+                || new File(dataDir, name + ".json").exists()
+                || new File(dataDir, name + ".wal").exists();
+    }
+
+    /**
+     * Log kayıtlarını sırayla apply'a verir.
+     * @return oynatılan kayıt sayısı
+     */
+    int replay(Consumer<JsonObject> apply) throws IOException {
+        if (!wal.exists()) return 0;
+        int count = 0;
+        try (BufferedReader r = Files.newBufferedReader(wal.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonObject record;
+                try {
+                    record = JsonParser.parseString(line).getAsJsonObject();
+                } catch (RuntimeException torn) {
+                    // Yarım kalmış yazma: kayıtları sıraya geri döndü ve sonra yeniden yazıldı
+                    continue;
+                }
+                apply.accept(record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Bekleyen ya da yazılmakta olan kayıt yok (ad alanı kilidi altında çağrılır) */
+    synchronized boolean isClean() {
+        return pending.isEmpty() && !writing;
+    }
+
+    /** Parça bellekten atıldı: sonraki flush / compact hiçbir şey yazmaz */
+    synchronized void close() {
+        closed = true;
+    }
+
+    /**
+     * Dosyaların o anki kimliği (anlık görüntü inode + boyut, log boyutu).
+     * Async ön yükleme, okuduğu veri hâlâ diskteki ile aynıysa kurulur;
+     * sıkıştırma anlık görüntüyü yeni dosyayla değiştirdiği için inode değişir.
+     */
+    List<Object> fingerprint() {
+        Object key = null;
+        long size = -1;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(snapshot.toPath(), BasicFileAttributes.class);
+            key = attrs.fileKey() != null ? attrs.fileKey() : attrs.lastModifiedTime();
+            size = attrs.size();
+        } catch (IOException ignored) {
+            // anlık görüntü yok
+        }
+        return Arrays.asList(key, size, wal.length());
+    }
+
+    @Override
+    public String getName() { return name; }
+    long getWalBytes()      { return walBytes; }
+}
@@ -3,23 +3,35 @@ package dev.nanoscript.api;
 import com.google.gson.*;
 import dev.nanoscript.NanoScript;
 import dev.nanoscript.jsengine.*;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 
 import java.io.*;
-import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 /**
  * NanoScript Kalıcı Depolama Sistemi
  *
- * Her script için ayrı bir JSON dosyası tutar:
- *   plugins/NanoScript/data/<scriptAdı>.json
+ * Her script için ayrı bir anlık görüntü + değişiklik log'u tutar:
+ *   plugins/NanoScript/data/<scriptAdı>.nsb    (ikili anlık görüntü, bkz. StorageCodec)
+ *   plugins/NanoScript/data/<scriptAdı>.wal    (son değişiklikler, bkz. StorageLog)
  *
- * Reload, sunucu yeniden başlatma, plugin unload → veriler korunur.
+ * Değişiklik başına tüm dosya yeniden yazılmaz; yalnızca küçük bir log kaydı
+ * eklenir. Reload, sunucu yeniden başlatma, plugin unload, çökme → veriler korunur.
+ *
+ * Plugin ömrü boyunca tektir (NanoScript sahibidir). Her script kendi ad
+ * alanını kullanır; bellek önbelleği script reload'larında korunur, böylece
+ * reload diskten yeniden okumaz ve henüz yazılmamış değişiklikleri kaçırmaz.
+ * Paylaşılan ad alanları (data/shared/<ad>.nsb) birden çok scriptin aynı
+ * bellekteki veriyi JSON'a çevirmeden ortak kullanmasını sağlar.
  *
  * JS kullanımı:
  *   const db = server.getStorage();          // script'e özel storage
+ *   const eco = server.getStorage("ekonomi"); // scriptler arası paylaşılan storage
  *
  *   db.set("bakiye.Steve", 1500);            // noktalı yol = nested key
  *   db.get("bakiye.Steve");                  // → 1500
@@ -28,14 +40,35 @@ import java.util.logging.Logger;
  *   db.delete("bakiye.Steve");
  *
  *   db.setObj("oyuncu.Steve", { k: 1 });     // JS objesi kaydet
- *   db.getObj("oyuncu.Steve");               // JS objesi olarak al
+ *   db.getObj("oyuncu.Steve");               // tembel görünüm (bkz. JsonView)
+ *   db.getObj("oyuncu.Steve", { snapshot: true }); // okuma anındaki değerler
  *
  *   db.keys("bakiye");                       // → ["Steve","Alex",...]
  *   db.increment("bakiye.Steve", 100);       // +100 ekle
  *   db.decrement("bakiye.Steve", 50);        // -50 çıkar
  *
  *   db.save();                               // zorla diske yaz
+ *   db.export();                             // → data/export/<scriptAdı>.json (okunabilir kopya)
  *   db.clear();                              // tüm veriyi sil
+ *
+ *   db.batch(function(tx) {                  // hep ya da hiç: tek kilit, tek log kaydı
+ *       tx.decrement("bakiye.Steve", 100);
+ *       tx.increment("bakiye.Alex", 100);
+ *   });
+ *
+ *   db.index("bakiye");                      // sıralı dizin (bkz. StorageIndex)
+ *   db.top("bakiye", 10);                    // → [{ key: "Steve", value: 1500 }, ...]
+ *   db.rank("bakiye", "Steve");              // → 1 (en zengin)
+ *   db.range("bakiye", 1000, 5000);          // değeri aralıkta olanlar
+ *
+ *   // Her olayda artan sayaçlar: bellek eşlemeli dosya, kilitsiz (bkz. StorageCounter)
+ *   const kills = db.counter("kills");
+ *   kills.add(uuid, 1);                      // → yeni değer
+ *   kills.get(uuid);                         // → 0 (hiç eklenmemişse)
+ *
+ *   // Büyük oyuncu tabanı: anahtar başına ayrı dosya, LRU ile bellekte (bkz. StoragePartition)
+ *   const oyuncular = db.partition("oyuncular", { preload: "uuid" });
+ *   oyuncular.increment(uuid + ".bakiye", 100);
  */
 public class StorageManager {
 
@@ -47,15 +80,33 @@ public class StorageManager {
 
     // script adı → bellekteki JsonObject
     private final Map<String, JsonObject> cache = new ConcurrentHashMap<>();
-    // script adı → disk dosyası
-    private final Map<String, File> files = new ConcurrentHashMap<>();
-    // Dirty flag: değiştirilmiş ama henüz diske yazılmamış
-    private final Set<String> dirty = Collections.synchronizedSet(new HashSet<>());
+    // script adı → derlenmiş noktalı yollar (yalnızca ana thread)
+    private final Map<String, PathCache> paths = new ConcurrentHashMap<>();
+    // script adı → dondurulmayı bekleyen db.getObj(..., {snapshot}) görünümleri
+    private final Map<String, JsonView.Snapshots> snapshots = new ConcurrentHashMap<>();
+    // script adı → anlık görüntü + log
+    private final Map<String, StorageLog> logs = new ConcurrentHashMap<>();
+    // Kirli log'ları toplu yazan paylaşılan thread
+    private final StorageFlusher flusher;
+    // ad alanı → dizinlenmiş yol → sıralı dizin (db.index; yalnızca ana thread)
+    private final Map<String, Map<String, StorageIndex>> indexes = new ConcurrentHashMap<>();
+    // db.batch açık ad alanı → geri alma adımları (yalnızca ana thread)
+    private final Map<String, List<Runnable>> batches = new ConcurrentHashMap<>();
+    // "<ad alanı>/<sayaç>" → sayaç dosyası (db.counter)
+    private final Map<String, StorageCounter> counters = new ConcurrentHashMap<>();
+    // bölüm ad alanı → parçalar (db.partition)
+    private final Map<String, StoragePartition> partitions = new ConcurrentHashMap<>();
+    private final int partitionCapacity;
+    private final boolean compress;
+    private boolean preloadRegistered;
 
     public StorageManager(NanoScript plugin) {
         this.plugin  = plugin;
         this.logger  = plugin.getLogger();
+        this.flusher = plugin.getStorageFlusher();
         this.dataDir = new File(plugin.getDataFolder(), "data");
+        this.partitionCapacity = plugin.getConfig().getInt("storage.partition-cache", 1000);
+        this.compress = plugin.getConfig().getBoolean("storage.compress", true);
         if (!dataDir.exists()) dataDir.mkdirs();
     }
 
@@ -63,6 +114,13 @@ public class StorageManager {
     //  Script'e özel storage nesnesi — JS'e verilecek JSObject
     // ──────────────────────────────────────────────────────────────────
 
+    /** Paylaşılan ad alanının JS storage objesi (server.getStorage("ad")) */
+    public JSObject buildSharedStorageObject(String name) {
+        if (!name.matches("[A-Za-z0-9_\\-]+"))
+            throw new JsError("server.getStorage: paylaşılan ad yalnızca harf, rakam, _ ve - içerebilir");
+        return buildStorageObject("shared/" + name);
+    }
+
     /**
      * Belirli bir script için JS storage objesini oluşturur.
      * Bu obje script'e script-local veri erişimi sağlar.
@@ -70,23 +128,104 @@ public class StorageManager {
     public JSObject buildStorageObject(String scriptName) {
         // Dosyayı yükle (cache'e al)
         loadIfNeeded(scriptName);
+        JSObject db = buildStorageObject(key -> new Ref(scriptName, key), null);
+
+        // ── db.partition(name, { preload }?) ──────────────────────────
+        // Üst seviye anahtar başına ayrı dosya (bkz. StoragePartition)
+        db.set("partition", fn("partition", (args, env) -> {
+            requireArgs(args, 1, "db.partition(name, { preload }?)");
+            JSObject opts = args.length > 1 ? args[1].asObject() : null;
+            String preload = opts != null && opts.has("preload") ? opts.get("preload").asString() : null;
+            StoragePartition partition = partition(scriptName, args[0].asString(), preload);
+            return JSValue.of(buildStorageObject(key -> partitionRef(partition, key), partition));
+        }));
+
+        // ── db.counter(name) ──────────────────────────────────────────
+        // Sık güncellenen tam sayılar: mmap sütun deposu (bkz. StorageCounter)
+        db.set("counter", fn("counter", (args, env) -> {
+            requireArgs(args, 1, "db.counter(name)");
+            return JSValue.of(buildCounterObject(counter(scriptName, args[0].asString())));
+        }));
+
+        // ── db.batch(fn) ──────────────────────────────────────────────
+        // fn(tx) içindeki yazmalar tek kilit altında tek log kaydı olur;
+        // fn hata fırlatırsa hiçbiri kalmaz. tx bu db nesnesinin kendisidir.
+        db.set("batch", fn("batch", (args, env) -> {
+            requireArgs(args, 1, "db.batch(fn)");
+            if (!args[0].isFunction()) throw new JsError("db.batch: fonksiyon bekleniyor");
+            return batch(scriptName, (JSFunction) args[0], JSValue.of(db));
+        }));
+
+        // ── db.index(path) ────────────────────────────────────────────
+        // path altındaki sayısal değerler için sıralı dizin; yazmalarla güncel kalır
+        db.set("index", fn("index", (args, env) -> {
+            requireArgs(args, 1, "db.index(path)");
+            String path = args[0].asString();
+            if (path.isEmpty()) throw new JsError("db.index: yol boş olamaz");
+            indexes.computeIfAbsent(scriptName, k -> new HashMap<>()).computeIfAbsent(path, k -> {
+                StorageIndex index = new StorageIndex();
+                rebuild(scriptName, k, index);
+                return index;
+            });
+            return JSValue.UNDEFINED;
+        }));
+
+        // ── db.top(path, n?) ──────────────────────────────────────────
+        db.set("top", fn("top", (args, env) -> {
+            requireArgs(args, 1, "db.top(path, n?)");
+            int n = args.length > 1 ? args[1].asInt() : 10;
+            return entries(requireIndex(scriptName, args[0].asString(), "top").top(n));
+        }));
+
+        // ── db.rank(path, key) ────────────────────────────────────────
+        // 1 = en büyük değer; dizinde yoksa -1
+        db.set("rank", fn("rank", (args, env) -> {
+            requireArgs(args, 2, "db.rank(path, key)");
+            return JSValue.of(requireIndex(scriptName, args[0].asString(), "rank").rank(args[1].asString()));
+        }));
+
+        // ── db.range(path, min, max, limit?) ──────────────────────────
+        db.set("range", fn("range", (args, env) -> {
+            requireArgs(args, 3, "db.range(path, min, max, limit?)");
+            int limit = args.length > 3 ? args[3].asInt() : Integer.MAX_VALUE;
+            return entries(requireIndex(scriptName, args[0].asString(), "range")
+                    .range(args[1].asNumber(), args[2].asNumber(), limit));
+        }));
+
+        return db;
+    }
+
+    /** Bir storage çağrısının hedefi: ad alanı + o ad alanındaki yol (null = kök) */
+    private record Ref(String ns, String path) {}
 
+    private static Ref partitionRef(StoragePartition partition, String key) {
+        int dot = key.indexOf('.');
+        String shard = dot < 0 ? key : key.substring(0, dot);
+        if (!shard.matches(StoragePartition.KEY_PATTERN))
+            throw new JsError("Bölümlü storage: geçersiz anahtar '" + shard + "' (harf, rakam, _ ve - kullanın)");
+        return new Ref(partition.touch(shard), dot < 0 ? null : key.substring(dot + 1));
+    }
+
+    /**
+     * db nesnesinin fonksiyonları. Her anahtar önce hedef ad alanına çözülür;
+     * düz storage'da bu scriptin ad alanı, bölümlü storage'da anahtarın ilk parçası.
+     */
+    private JSObject buildStorageObject(Function<String, Ref> at, StoragePartition partition) {
         JSObject db = new JSObject();
 
         // ── db.set(key, value) ────────────────────────────────────────
         db.set("set", fn("set", (args, env) -> {
             requireArgs(args, 2, "db.set(key, value)");
-            String key = args[0].asString();
-            setPath(scriptName, key, jsToJson(args[1]));
-            scheduleSave(scriptName);
+            Ref r = at.apply(args[0].asString());
+            write(r.ns(), r.path(), jsToJson(args[1]));
             return JSValue.UNDEFINED;
         }));
 
         // ── db.get(key, default?) ─────────────────────────────────────
         db.set("get", fn("get", (args, env) -> {
             requireArgs(args, 1, "db.get(key)");
-            String key = args[0].asString();
-            JsonElement el = getPath(scriptName, key);
+            Ref r = at.apply(args[0].asString());
+            JsonElement el = getPath(r.ns(), r.path());
             if (el == null || el.isJsonNull())
                 return args.length > 1 ? args[1] : JSValue.UNDEFINED;
             return jsonToJs(el);
@@ -95,42 +234,52 @@ public class StorageManager {
         // ── db.has(key) ───────────────────────────────────────────────
         db.set("has", fn("has", (args, env) -> {
             requireArgs(args, 1, "db.has(key)");
-            JsonElement el = getPath(scriptName, args[0].asString());
+            Ref r = at.apply(args[0].asString());
+            JsonElement el = getPath(r.ns(), r.path());
             return JSValue.of(el != null && !el.isJsonNull());
         }));
 
         // ── db.delete(key) ────────────────────────────────────────────
         db.set("delete", fn("delete", (args, env) -> {
             requireArgs(args, 1, "db.delete(key)");
-            deletePath(scriptName, args[0].asString());
-            scheduleSave(scriptName);
+            Ref r = at.apply(args[0].asString());
+            remove(r.ns(), r.path());
             return JSValue.UNDEFINED;
         }));
 
         // ── db.setObj(key, jsObject) ──────────────────────────────────
         db.set("setObj", fn("setObj", (args, env) -> {
             requireArgs(args, 2, "db.setObj(key, object)");
-            setPath(scriptName, args[0].asString(), jsToJson(args[1]));
-            scheduleSave(scriptName);
+            Ref r = at.apply(args[0].asString());
+            write(r.ns(), r.path(), jsToJson(args[1]));
             return JSValue.UNDEFINED;
         }));
 
-        // ── db.getObj(key) ────────────────────────────────────────────
+        // ── db.getObj(key, { snapshot }?) ─────────────────────────────
+        // Alanlar okundukça çevrilir; snapshot: sonraki yazmalardan etkilenmez
         db.set("getObj", fn("getObj", (args, env) -> {
             requireArgs(args, 1, "db.getObj(key)");
-            JsonElement el = getPath(scriptName, args[0].asString());
+            Ref r = at.apply(args[0].asString());
+            JsonElement el = getPath(r.ns(), r.path());
             if (el == null || !el.isJsonObject()) return JSValue.NULL;
-            return jsonToJs(el);
+            JSObject opts = args.length > 1 ? args[1].asObject() : null;
+            boolean snapshot = opts != null && opts.get("snapshot").asBoolean();
+            return JsonView.toJs(el, snapshot ? snapshots(r.ns()) : null);
         }));
 
         // ── db.keys(prefix?) ──────────────────────────────────────────
         // Belirli bir nesnenin tüm anahtarlarını döner
+        // (bölümlü storage'da prefix'siz: bütün parça anahtarları)
         db.set("keys", fn("keys", (args, env) -> {
             String prefix = args.length > 0 ? args[0].asString() : null;
-            JsonObject root = cache.get(scriptName);
-            JsonElement target = prefix != null ? getPath(scriptName, prefix) : root;
-            if (target == null || !target.isJsonObject()) return JSValue.of(new JSArray());
             JSArray arr = new JSArray();
+            if (prefix == null && partition != null) {
+                for (String k : partition.keys()) arr.push(JSValue.of(k));
+                return JSValue.of(arr);
+            }
+            Ref r = at.apply(prefix != null ? prefix : "");
+            JsonElement target = prefix != null ? getPath(r.ns(), r.path()) : root(r.ns());
+            if (target == null || !target.isJsonObject()) return JSValue.of(arr);
             for (String k : target.getAsJsonObject().keySet()) arr.push(JSValue.of(k));
             return JSValue.of(arr);
         }));
@@ -138,26 +287,25 @@ public class StorageManager {
         // ── db.increment(key, amount?) ────────────────────────────────
         db.set("increment", fn("increment", (args, env) -> {
             requireArgs(args, 1, "db.increment(key, amount?)");
-            String key = args[0].asString();
+            Ref r = at.apply(args[0].asString());
             double amount = args.length > 1 ? args[1].asNumber() : 1.0;
-            JsonElement cur = getPath(scriptName, key);
+            JsonElement cur = getPath(r.ns(), r.path());
             double current = (cur != null && cur.isJsonPrimitive()) ? cur.getAsDouble() : 0.0;
             double newVal = current + amount;
-            setPath(scriptName, key, new JsonPrimitive(newVal));
-            scheduleSave(scriptName);
+            // Log'a sonuç değeri yazılır (set) — tekrar oynatmada iki kez eklenmez
+            write(r.ns(), r.path(), new JsonPrimitive(newVal));
             return JSValue.of(newVal);
         }));
 
         // ── db.decrement(key, amount?) ────────────────────────────────
         db.set("decrement", fn("decrement", (args, env) -> {
             requireArgs(args, 1, "db.decrement(key, amount?)");
-            String key = args[0].asString();
+            Ref r = at.apply(args[0].asString());
             double amount = args.length > 1 ? args[1].asNumber() : 1.0;
-            JsonElement cur = getPath(scriptName, key);
+            JsonElement cur = getPath(r.ns(), r.path());
             double current = (cur != null && cur.isJsonPrimitive()) ? cur.getAsDouble() : 0.0;
             double newVal = current - amount;
-            setPath(scriptName, key, new JsonPrimitive(newVal));
-            scheduleSave(scriptName);
+            write(r.ns(), r.path(), new JsonPrimitive(newVal));
             return JSValue.of(newVal);
         }));
 
@@ -165,11 +313,10 @@ public class StorageManager {
         // Varsa al, yoksa default'u kaydet ve döndür
         db.set("getOrSet", fn("getOrSet", (args, env) -> {
             requireArgs(args, 2, "db.getOrSet(key, default)");
-            String key = args[0].asString();
-            JsonElement el = getPath(scriptName, key);
+            Ref r = at.apply(args[0].asString());
+            JsonElement el = getPath(r.ns(), r.path());
             if (el != null && !el.isJsonNull()) return jsonToJs(el);
-            setPath(scriptName, key, jsToJson(args[1]));
-            scheduleSave(scriptName);
+            write(r.ns(), r.path(), jsToJson(args[1]));
             return args[1];
         }));
 
@@ -177,57 +324,400 @@ public class StorageManager {
         // Bir array anahtarına eleman ekle
         db.set("push", fn("push", (args, env) -> {
             requireArgs(args, 2, "db.push(key, value)");
-            String key = args[0].asString();
-            JsonElement el = getPath(scriptName, key);
-            JsonArray arr;
-            if (el != null && el.isJsonArray()) arr = el.getAsJsonArray();
-            else arr = new JsonArray();
-            arr.add(jsToJson(args[1]));
-            setPath(scriptName, key, arr);
-            scheduleSave(scriptName);
-            return JSValue.of(arr.size());
+            Ref r = at.apply(args[0].asString());
+            if (r.path() == null) throw new JsError("db.push: bölümlü storage'da yol 'anahtar.alan' biçiminde olmalı");
+            JsonElement value = jsToJson(args[1]);
+            StorageLog log = log(r.ns());
+            int size;
+            synchronized (log) {
+                freezeSnapshots(r.ns());
+                undoPush(r.ns(), r.path());
+                size = pushPath(r.ns(), r.path(), value);
+                indexWrite(r.ns(), r.path(), null);   // artık dizi
+                log.recordPush(r.path(), value, size);
+            }
+            scheduleSave(r.ns());
+            return JSValue.of(size);
         }));
 
         // ── db.getArray(key) ──────────────────────────────────────────
         db.set("getArray", fn("getArray", (args, env) -> {
             requireArgs(args, 1, "db.getArray(key)");
-            JsonElement el = getPath(scriptName, args[0].asString());
+            Ref r = at.apply(args[0].asString());
+            JsonElement el = getPath(r.ns(), r.path());
             if (el == null || !el.isJsonArray()) return JSValue.of(new JSArray());
             JSArray result = new JSArray();
-            for (JsonElement item : el.getAsJsonArray()) result.push(jsonToJs(item));
+            for (JsonElement item : el.getAsJsonArray()) result.push(JsonView.toJs(item, null));
             return JSValue.of(result);
         }));
 
         // ── db.save() ─────────────────────────────────────────────────
+        // Log'u anlık görüntüye katlar (sıkıştırma)
         db.set("save", fn("save", (args, env) -> {
-            flushToDisk(scriptName);
+            if (partition == null) compact(at.apply("").ns());
+            else for (String ns : partition.loadedNamespaces()) compact(ns);
             return JSValue.UNDEFINED;
         }));
 
+        // ── db.export() ───────────────────────────────────────────────
+        // Hata ayıklama: ad alanının okunabilir JSON kopyası; yolu döner
+        db.set("export", fn("export", (args, env) -> {
+            if (partition != null)
+                throw new JsError("db.export: bölümlü storage'da desteklenmez");
+            return JSValue.of(export(at.apply("").ns()));
+        }));
+
         // ── db.clear() ────────────────────────────────────────────────
         db.set("clear", fn("clear", (args, env) -> {
-            cache.put(scriptName, new JsonObject());
-            scheduleSave(scriptName);
+            if (partition != null)
+                throw new JsError("db.clear: bölümlü storage'da desteklenmez; parça için db.delete(anahtar) kullanın");
+            clear(at.apply("").ns());
             return JSValue.UNDEFINED;
         }));
 
         // ── db.debug() ────────────────────────────────────────────────
         db.set("debug", fn("debug", (args, env) -> {
-            JsonObject root = cache.getOrDefault(scriptName, new JsonObject());
-            return JSValue.of(GSON.toJson(root));
+            if (partition != null) {
+                return JSValue.of(partition.getBase() + ": " + partition.getLoadedCount() + "/"
+                        + partition.getCapacity() + " parça bellekte");
+            }
+            return JSValue.of(GSON.toJson(root(at.apply("").ns())));
         }));
 
         return db;
     }
 
+    // ──────────────────────────────────────────────────────────────────
+    //  Sayaçlar (db.counter)
+    // ──────────────────────────────────────────────────────────────────
+
+    private StorageCounter counter(String scriptName, String name) {
+        if (!name.matches(StoragePartition.KEY_PATTERN))
+            throw new JsError("db.counter: ad yalnızca harf, rakam, _ ve - içerebilir");
+        return counters.computeIfAbsent(scriptName + "/" + name, label -> {
+            try {
+                return StorageCounter.open(new File(dataDir, scriptName), name, label, flusher);
+            } catch (IOException e) {
+                throw new JsError("db.counter: " + label + " açılamadı: " + e.getMessage());
+            }
+        });
+    }
+
+    private JSObject buildCounterObject(StorageCounter counter) {
+        JSObject c = new JSObject();
+
+        // ── counter.add(key, n?) ──────────────────────────────────────
+        c.set("add", fn("add", (args, env) -> {
+            requireArgs(args, 1, "counter.add(key, n?)");
+            long n = args.length > 1 ? whole(args[1], "counter.add") : 1;
+            return JSValue.of((double) counter.add(counterKey(args[0]), n));
+        }));
+
+        // ── counter.get(key) ──────────────────────────────────────────
+        c.set("get", fn("get", (args, env) -> {
+            requireArgs(args, 1, "counter.get(key)");
+            return JSValue.of((double) counter.get(args[0].asString()));
+        }));
+
+        // ── counter.set(key, value) ───────────────────────────────────
+        c.set("set", fn("set", (args, env) -> {
+            requireArgs(args, 2, "counter.set(key, value)");
+            counter.set(counterKey(args[0]), whole(args[1], "counter.set"));
+            return JSValue.UNDEFINED;
+        }));
+
+        // ── counter.has(key) ──────────────────────────────────────────
+        c.set("has", fn("has", (args, env) -> {
+            requireArgs(args, 1, "counter.has(key)");
+            return JSValue.of(counter.has(args[0].asString()));
+        }));
+
+        // ── counter.keys() ────────────────────────────────────────────
+        c.set("keys", fn("keys", (args, env) -> {
+            JSArray arr = new JSArray();
+            for (String k : counter.keys()) arr.push(JSValue.of(k));
+            return JSValue.of(arr);
+        }));
+
+        // ── counter.size() ────────────────────────────────────────────
+        c.set("size", fn("size", (args, env) -> JSValue.of(counter.size())));
+
+        return c;
+    }
+
+    /** Anahtarlar .keys dosyasında satır başına bir tane durur */
+    private static String counterKey(JSValue v) {
+        String key = v.asString();
+        if (key.isEmpty() || key.indexOf('\n') >= 0)
+            throw new JsError("db.counter: anahtar boş olamaz ve satır sonu içeremez");
+        return key;
+    }
+
+    /** Sayaçlar long tutar: kesirli değer sessizce yuvarlanmaz */
+    private static long whole(JSValue v, String op) {
+        double d = v.asNumber();
+        if (d != Math.rint(d) || Double.isInfinite(d))
+            throw new JsError(op + ": tam sayı bekleniyor (" + v.asString() + ")");
+        return (long) d;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Toplu yazma (db.batch)
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * fn'i ad alanı kilidi altında çalıştırır. Yazmalar belleğe hemen uygulanır
+     * (fn kendi yazdığını okur), log kayıtları StorageLog'da toplanır ve sonda
+     * tek kayıt olarak eklenir. Hata olursa adımlar ters sırada geri alınır.
+     *
+     * Kilit fn boyunca tutulur: flusher yarım kalmış bir batch'i anlık görüntüye
+     * yazamaz. Yalnızca bu ad alanı kapsanır (bölümler, paylaşılan storage hariç);
+     * fn senkron olmalı — await sonrası yazmalar batch dışında kalır.
+     */
+    private JSValue batch(String scriptName, JSFunction fn, JSValue tx) {
+        // İç içe batch dıştakine katılır
+        if (batches.containsKey(scriptName)) return fn.call(null, new JSValue[]{ tx });
+
+        StorageLog log = log(scriptName);
+        List<Runnable> undo = new ArrayList<>();
+        JSValue result;
+        synchronized (log) {
+            freezeSnapshots(scriptName);
+            batches.put(scriptName, undo);
+            log.begin();
+            try {
+                result = fn.call(null, new JSValue[]{ tx });
+                log.commit();
+            } catch (RuntimeException | Error e) {
+                log.rollback();
+                for (int i = undo.size() - 1; i >= 0; i--) undo.get(i).run();
+                paths(scriptName).invalidate();
+                reindexAll(scriptName);
+                throw e;
+            } finally {
+                batches.remove(scriptName);
+            }
+        }
+        if (!undo.isEmpty()) scheduleSave(scriptName);
+        return result;
+    }
+
+    /** Batch içindeyse path'in yazmadan önceki hâlini geri alma adımı olarak sakla */
+    private void undoWrite(String scriptName, String path) {
+        List<Runnable> undo = batches.get(scriptName);
+        if (undo == null) return;
+        if (path == null) {
+            // clear / parça değişimi kökü yeni nesneyle değiştirir; eskisi dokunulmadan kalır
+            JsonObject old = root(scriptName);
+            undo.add(() -> cache.put(scriptName, old));
+            return;
+        }
+        // setPath nesne olmayan ilk ara düğümden itibaren yeni nesneler kurar;
+        // geri alınacak nokta orası
+        String at = path;
+        for (int dot = path.indexOf('.'); dot >= 0; dot = path.indexOf('.', dot + 1)) {
+            JsonElement el = getPath(scriptName, path.substring(0, dot));
+            if (el == null || !el.isJsonObject()) {
+                at = path.substring(0, dot);
+                break;
+            }
+        }
+        String target = at;
+        JsonElement prev = getPath(scriptName, target);
+        undo.add(prev == null ? () -> deletePath(scriptName, target) : () -> setPath(scriptName, target, prev));
+    }
+
+    /** push var olan diziyi yerinde büyütür; geri almada son eleman çıkarılır */
+    private void undoPush(String scriptName, String path) {
+        List<Runnable> undo = batches.get(scriptName);
+        if (undo == null) return;
+        JsonElement el = getPath(scriptName, path);
+        if (el != null && el.isJsonArray()) {
+            JsonArray arr = el.getAsJsonArray();
+            undo.add(() -> arr.remove(arr.size() - 1));
+        } else {
+            undoWrite(scriptName, path);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Sıralı dizinler
+    // ──────────────────────────────────────────────────────────────────
+
+    private StorageIndex requireIndex(String scriptName, String path, String op) {
+        Map<String, StorageIndex> byPath = indexes.get(scriptName);
+        StorageIndex index = byPath != null ? byPath.get(path) : null;
+        if (index == null) throw new JsError("db." + op + ": önce db.index(\"" + path + "\") çağrılmalı");
+        return index;
+    }
+
+    private static JSValue entries(List<StorageIndex.Entry> list) {
+        JSArray arr = new JSArray();
+        for (StorageIndex.Entry e : list) {
+            JSObject o = new JSObject();
+            o.set("key", JSValue.of(e.key()));
+            o.set("value", JSValue.of(e.value()));
+            arr.push(JSValue.of(o));
+        }
+        return JSValue.of(arr);
+    }
+
+    /**
+     * Bir yazmadan sonra (path'e value yazıldı, null = silindi) dizinleri günceller.
+     * Dizinlenen nesnenin doğrudan alt değeri → tek anahtar; daha derin → o
+     * anahtar artık nesne; nesnenin kendisi ya da bir üstü → yeniden kur.
+     */
+    private void indexWrite(String scriptName, String path, JsonElement value) {
+        Map<String, StorageIndex> byPath = indexes.get(scriptName);
+        if (byPath == null) return;
+        for (Map.Entry<String, StorageIndex> e : byPath.entrySet()) {
+            String base = e.getKey();
+            StorageIndex index = e.getValue();
+            int len = base.length();
+            if (path.length() > len && path.charAt(len) == '.' && path.startsWith(base)) {
+                int end = path.indexOf('.', len + 1);
+                String key = path.substring(len + 1, end < 0 ? path.length() : end);
+                JsonElement current = end < 0 ? value : getPath(scriptName, base + "." + key);
+                if (current != null && current.isJsonPrimitive() && current.getAsJsonPrimitive().isNumber())
+                    index.put(key, current.getAsDouble());
+                else
+                    index.remove(key);
+            } else if (base.equals(path) || (len > path.length() && base.charAt(path.length()) == '.' && base.startsWith(path))) {
+                rebuild(scriptName, base, index);
+            }
+        }
+    }
+
+    /** clear / parça değişimi: ad alanının bütün dizinleri baştan */
+    private void reindexAll(String scriptName) {
+        Map<String, StorageIndex> byPath = indexes.get(scriptName);
+        if (byPath == null) return;
+        byPath.forEach((base, index) -> rebuild(scriptName, base, index));
+    }
+
+    private void rebuild(String scriptName, String base, StorageIndex index) {
+        index.clear();
+        JsonElement el = getPath(scriptName, base);
+        if (el == null || !el.isJsonObject()) return;
+        for (Map.Entry<String, JsonElement> e : el.getAsJsonObject().entrySet()) {
+            JsonElement v = e.getValue();
+            if (v.isJsonPrimitive() && v.getAsJsonPrimitive().isNumber()) index.put(e.getKey(), v.getAsDouble());
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Bölümlü storage
+    // ──────────────────────────────────────────────────────────────────
+
+    private StoragePartition partition(String scriptName, String name, String preload) {
+        if (!name.matches(StoragePartition.KEY_PATTERN))
+            throw new JsError("db.partition: ad yalnızca harf, rakam, _ ve - içerebilir");
+        if (preload != null && !preload.equals("uuid") && !preload.equals("name"))
+            throw new JsError("db.partition: preload \"uuid\" veya \"name\" olmalı");
+        String base = scriptName + "/" + name;
+        StoragePartition partition = partitions.computeIfAbsent(base,
+                k -> new StoragePartition(this, k, new File(dataDir, k), partitionCapacity));
+        if (preload != null) {
+            partition.setPreload(preload);
+            registerPreload();
+        }
+        return partition;
+    }
+
+    /** StoragePartition: parçayı yükle (ana thread) */
+    void load(String ns) {
+        loadIfNeeded(ns);
+    }
+
+    /**
+     * StoragePartition: temiz parçayı bellekten atar.
+     * @return false ise parçada henüz diske yazılmamış değişiklik var
+     */
+    boolean evict(String ns) {
+        StorageLog log = logs.get(ns);
+        if (log != null) {
+            synchronized (log) {
+                if (!log.isClean()) return false;
+                log.close();
+            }
+        }
+        logs.remove(ns);
+        cache.remove(ns);
+        paths.remove(ns);
+        snapshots.remove(ns);
+        indexes.remove(ns);
+        return true;
+    }
+
+    /** Oyuncu bağlanırken (async thread) preload'lu bölümlerdeki parçasını oku */
+    private void registerPreload() {
+        if (preloadRegistered) return;
+        preloadRegistered = true;
+        org.bukkit.Bukkit.getPluginManager().registerEvent(AsyncPlayerPreLoginEvent.class, new Listener() {},
+                EventPriority.MONITOR, (listener, event) -> preload((AsyncPlayerPreLoginEvent) event), plugin, true);
+    }
+
+    private void preload(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        for (StoragePartition partition : partitions.values()) {
+            String mode = partition.getPreload();
+            if (mode == null) continue;
+            String key = mode.equals("uuid") ? event.getUniqueId().toString() : event.getName();
+            String ns = partition.namespace(key);
+            if (cache.containsKey(ns)) continue;
+            if (!StorageLog.exists(dataDir, ns)) continue;
+
+            StorageLog log = new StorageLog(dataDir, ns, () -> root(ns), compress);
+            List<Object> fingerprint = log.fingerprint();
+            JsonObject root;
+            List<JsonObject> records = new ArrayList<>();
+            try {
+                root = log.readSnapshot();
+                log.replay(records::add);
+            } catch (Exception e) {
+                continue;   // ana thread ilk erişimde yeniden dener ve hatayı loglar
+            }
+            // Kurulum ana thread'de: o ana kadar parça yüklenmediyse ve disk değişmediyse
+            org.bukkit.Bukkit.getScheduler().runTask(plugin, () -> {
+                if (cache.containsKey(ns) || !fingerprint.equals(log.fingerprint())) return;
+                logs.put(ns, log);
+                cache.put(ns, root);
+                for (JsonObject record : records) apply(ns, record);
+                partition.adopt(key);
+                if (log.isConverting()) scheduleSave(ns);
+            });
+        }
+    }
+
+    /** data/export/<ad>.json'a pretty JSON yazar (anlık görüntü biçimi ikili olduğu için) */
+    private String export(String scriptName) {
+        File file = new File(dataDir, "export/" + scriptName + ".json");
+        file.getParentFile().mkdirs();
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), java.nio.charset.StandardCharsets.UTF_8)) {
+            GSON.toJson(root(scriptName), w);
+        } catch (IOException e) {
+            throw new JsError("db.export: " + file.getName() + " yazılamadı: " + e.getMessage());
+        }
+        return "data/export/" + scriptName + ".json";
+    }
+
     // ──────────────────────────────────────────────────────────────────
     //  Tüm scriptleri diske yaz (sunucu kapanırken çağrılır)
     // ──────────────────────────────────────────────────────────────────
 
     public void saveAll() {
-        for (String name : new HashSet<>(dirty)) {
-            flushToDisk(name);
+        for (Map.Entry<String, StorageLog> e : logs.entrySet()) {
+            StorageLog log = e.getValue();
+            if (log.hasPending() || log.getWalBytes() > 0) compact(e.getKey());
+        }
+        for (StorageCounter counter : counters.values()) {
+            try {
+                counter.close();
+            } catch (IOException e) {
+                logger.warning("[Storage] Sayaç kaydedilemedi (" + counter.getName() + "): " + e.getMessage());
+            }
         }
+        counters.clear();
     }
 
     // ──────────────────────────────────────────────────────────────────
@@ -237,94 +727,236 @@ public class StorageManager {
     private void loadIfNeeded(String scriptName) {
         if (cache.containsKey(scriptName)) return;
 
-        File f = new File(dataDir, scriptName + ".json");
-        files.put(scriptName, f);
-
-        if (f.exists()) {
-            try (Reader r = new FileReader(f)) {
-                JsonElement el = JsonParser.parseReader(r);
-                cache.put(scriptName, el.isJsonObject() ? el.getAsJsonObject() : new JsonObject());
-                logger.fine("[Storage] " + scriptName + ".json yüklendi.");
-            } catch (Exception e) {
-                logger.warning("[Storage] " + scriptName + ".json okunamadı: " + e.getMessage());
-                cache.put(scriptName, new JsonObject());
+        StorageLog log = log(scriptName);
+        try {
+            cache.put(scriptName, log.readSnapshot());
+            logger.fine("[Storage] " + scriptName + " yüklendi.");
+        } catch (Exception e) {
+            // Boş durumla devam etmeden önce dosyalar kenara alınmalı: yoksa ilk
+            // sıkıştırma okunamayan veriyi boş anlık görüntüyle değiştirir
+            List<String> moved;
+            try {
+                moved = log.quarantine();
+            } catch (IOException io) {
+                logs.remove(scriptName);
+                logger.severe("[Storage] " + scriptName + " anlık görüntüsü okunamadı (" + e.getMessage()
+                        + ") ve kenara alınamadı (" + io.getMessage() + "); ad alanı açılmıyor.");
+                throw new JsError("[Storage] " + scriptName + " verisi okunamadı: " + e.getMessage());
             }
-        } else {
+            logger.severe("[Storage] " + scriptName + " anlık görüntüsü okunamadı: " + e.getMessage()
+                    + " — dosyalar kenara alındı (" + String.join(", ", moved) + "), boş veriyle devam ediliyor.");
             cache.put(scriptName, new JsonObject());
+            return;
+        }
+        try {
+            int replayed = log.replay(record -> apply(scriptName, record));
+            if (replayed > 0) logger.info("[Storage] " + scriptName + ": log'dan " + replayed + " değişiklik geri yüklendi.");
+        } catch (Exception e) {
+            logger.warning("[Storage] " + scriptName + ".wal okunamadı: " + e.getMessage());
+        }
+        if (log.isConverting()) {
+            logger.info("[Storage] " + scriptName + ".json ikili biçime (.nsb) dönüştürülüyor.");
+            scheduleSave(scriptName);
+        }
+    }
+
+    private StorageLog log(String scriptName) {
+        return logs.computeIfAbsent(scriptName, k -> new StorageLog(dataDir, k, () -> root(k), compress));
+    }
+
+    /** Değer yazar + log kaydı ekler (path null: bölüm parçasının tamamı) */
+    private void write(String scriptName, String path, JsonElement value) {
+        if (path == null) {
+            replaceRoot(scriptName, value);
+            return;
+        }
+        StorageLog log = log(scriptName);
+        synchronized (log) {
+            freezeSnapshots(scriptName);
+            undoWrite(scriptName, path);
+            setPath(scriptName, path, value);
+            indexWrite(scriptName, path, value);
+            log.recordSet(path, value);
+        }
+        scheduleSave(scriptName);
+    }
+
+    private void remove(String scriptName, String path) {
+        if (path == null) {
+            clear(scriptName);
+            return;
+        }
+        StorageLog log = log(scriptName);
+        synchronized (log) {
+            freezeSnapshots(scriptName);
+            undoWrite(scriptName, path);
+            deletePath(scriptName, path);
+            indexWrite(scriptName, path, null);
+            log.recordDelete(path);
+        }
+        scheduleSave(scriptName);
+    }
+
+    private void clear(String scriptName) {
+        StorageLog log = log(scriptName);
+        synchronized (log) {
+            freezeSnapshots(scriptName);
+            undoWrite(scriptName, null);
+            resetRoot(scriptName);
+            reindexAll(scriptName);
+            log.recordClear();
+        }
+        scheduleSave(scriptName);
+    }
+
+    /** Bölüm parçasını bir nesneyle değiştirir: clear + üst seviye her alan için set */
+    private void replaceRoot(String scriptName, JsonElement value) {
+        if (!value.isJsonObject()) throw new JsError("Bölümlü storage: parçanın kendisine yalnızca nesne yazılabilir");
+        StorageLog log = log(scriptName);
+        synchronized (log) {
+            freezeSnapshots(scriptName);
+            undoWrite(scriptName, null);
+            resetRoot(scriptName);
+            JsonObject root = root(scriptName);
+            for (Map.Entry<String, JsonElement> e : value.getAsJsonObject().entrySet()) {
+                root.add(e.getKey(), e.getValue());
+                log.recordSet(e.getKey(), e.getValue());
+            }
+            reindexAll(scriptName);
+        }
+        scheduleSave(scriptName);
+    }
+
+    /** Log kaydını tekrar oynatır (açılışta, kurtarma) */
+    private void apply(String scriptName, JsonObject record) {
+        String path = record.has("k") ? record.get("k").getAsString() : null;
+        switch (record.get("o").getAsString()) {
+            case "set"   -> setPath(scriptName, path, record.get("v"));
+            case "del"   -> deletePath(scriptName, path);
+            case "clear" -> resetRoot(scriptName);
+            case "batch" -> {
+                for (JsonElement r : record.getAsJsonArray("r")) apply(scriptName, r.getAsJsonObject());
+            }
+            case "push"  -> {
+                // Sıkıştırmadan önce uygulanmış bir push tekrar eklenmez
+                JsonElement el = getPath(scriptName, path);
+                int size = el != null && el.isJsonArray() ? el.getAsJsonArray().size() : 0;
+                if (size < record.get("n").getAsInt()) pushPath(scriptName, path, record.get("v"));
+            }
+            default -> logger.warning("[Storage] " + scriptName + ".wal: bilinmeyen kayıt " + record);
         }
     }
 
     /** Noktalı yol ile iç içe key erişimi: "bakiye.Steve" → root["bakiye"]["Steve"] */
     private JsonElement getPath(String scriptName, String path) {
         JsonObject root = cache.getOrDefault(scriptName, new JsonObject());
-        if (!path.contains(".")) return root.get(path);
-
-        String[] parts = path.split("\\.", -1);
-        JsonElement cur = root;
-        for (int i = 0; i < parts.length - 1; i++) {
-            if (!cur.isJsonObject()) return null;
-            cur = cur.getAsJsonObject().get(parts[i]);
-            if (cur == null) return null;
-        }
-        return cur.isJsonObject() ? cur.getAsJsonObject().get(parts[parts.length - 1]) : null;
+        if (path == null) return root.size() > 0 ? root : null;   // bölüm parçasının tamamı
+        if (path.indexOf('.') < 0) return root.get(path);
+
+        PathCache pc = paths(scriptName);
+        PathCache.Path p = pc.compile(path);
+        JsonObject parent = pc.parent(root, p);
+        return parent != null ? parent.get(p.leaf) : null;
     }
 
     /** Noktalı yol ile iç içe key set etme */
     private void setPath(String scriptName, String path, JsonElement value) {
         JsonObject root = cache.computeIfAbsent(scriptName, k -> new JsonObject());
-        if (!path.contains(".")) {
+        if (path.indexOf('.') < 0) {
+            if (root.get(path) instanceof JsonObject) paths(scriptName).invalidate();
             root.add(path, value);
             return;
         }
 
-        String[] parts = path.split("\\.", -1);
-        JsonObject cur = root;
-        for (int i = 0; i < parts.length - 1; i++) {
-            JsonElement next = cur.get(parts[i]);
-            if (next == null || !next.isJsonObject()) {
-                JsonObject newObj = new JsonObject();
-                cur.add(parts[i], newObj);
-                cur = newObj;
-            } else {
-                cur = next.getAsJsonObject();
+        PathCache pc = paths(scriptName);
+        PathCache.Path p = pc.compile(path);
+        JsonObject cur = pc.parent(root, p);
+        if (cur == null) {
+            // Eksik ara düğümleri oluştur — yalnızca nesne olmayan değerlerin
+            // yerine geçildiği için tutulan başka bir üst düğüm bozulmaz
+            cur = root;
+            for (String part : p.parents) {
+                JsonElement next = cur.get(part);
+                if (next == null || !next.isJsonObject()) {
+                    JsonObject newObj = new JsonObject();
+                    cur.add(part, newObj);
+                    cur = newObj;
+                } else {
+                    cur = next.getAsJsonObject();
+                }
             }
+            pc.remember(root, p, cur);
         }
-        cur.add(parts[parts.length - 1], value);
+        if (cur.get(p.leaf) instanceof JsonObject) pc.invalidate();
+        cur.add(p.leaf, value);
+    }
+
+    /** Dizi anahtarına ekler (dizi değilse yenisiyle değiştirir); yeni uzunluğu döner */
+    private int pushPath(String scriptName, String path, JsonElement value) {
+        JsonElement el = getPath(scriptName, path);
+        JsonArray arr;
+        if (el != null && el.isJsonArray()) arr = el.getAsJsonArray();
+        else arr = new JsonArray();
+        arr.add(value);
+        setPath(scriptName, path, arr);
+        return arr.size();
     }
 
     private void deletePath(String scriptName, String path) {
         JsonObject root = cache.getOrDefault(scriptName, new JsonObject());
-        if (!path.contains(".")) { root.remove(path); return; }
-
-        String[] parts = path.split("\\.", -1);
-        JsonObject cur = root;
-        for (int i = 0; i < parts.length - 1; i++) {
-            JsonElement next = cur.get(parts[i]);
-            if (next == null || !next.isJsonObject()) return;
-            cur = next.getAsJsonObject();
+        JsonObject parent;
+        String leaf;
+        if (path.indexOf('.') < 0) {
+            parent = root;
+            leaf = path;
+        } else {
+            PathCache pc = paths(scriptName);
+            PathCache.Path p = pc.compile(path);
+            parent = pc.parent(root, p);
+            leaf = p.leaf;
         }
-        cur.remove(parts[parts.length - 1]);
+        if (parent != null && parent.remove(leaf) instanceof JsonObject) paths(scriptName).invalidate();
+    }
+
+    /** db.clear: kök yeni nesneyle değişir, tutulan bütün yollar geçersiz */
+    private void resetRoot(String scriptName) {
+        cache.put(scriptName, new JsonObject());
+        paths(scriptName).invalidate();
+    }
+
+    /** Storage'a yazmadan önce: bekleyen anlık görüntüler eski değerleri kopyalar */
+    private void freezeSnapshots(String scriptName) {
+        JsonView.Snapshots s = snapshots.get(scriptName);
+        if (s != null) s.freezeAll();
+    }
+
+    private JsonView.Snapshots snapshots(String scriptName) {
+        return snapshots.computeIfAbsent(scriptName, k -> new JsonView.Snapshots());
+    }
+
+    private PathCache paths(String scriptName) {
+        return paths.computeIfAbsent(scriptName, k -> new PathCache());
     }
 
     private void scheduleSave(String scriptName) {
-        dirty.add(scriptName);
-        // 20 tick (1 saniye) sonra async kaydet — sık değişimlerde thrash önler
-        org.bukkit.Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
-            if (dirty.contains(scriptName)) flushToDisk(scriptName);
-        }, 20L);
-    }
-
-    private synchronized void flushToDisk(String scriptName) {
-        dirty.remove(scriptName);
-        File f = files.computeIfAbsent(scriptName, k -> new File(dataDir, k + ".json"));
-        JsonObject data = cache.getOrDefault(scriptName, new JsonObject());
-        try (Writer w = new FileWriter(f)) {
-            GSON.toJson(data, w);
+        if (batches.containsKey(scriptName)) return;   // batch sonunda bir kez
+        // Görev açılmaz — flusher en geç storage.max-latency-ms içinde tek fsync'le yazar
+        flusher.markDirty(log(scriptName));
+    }
+
+    private void compact(String scriptName) {
+        if (batches.containsKey(scriptName)) throw new JsError("db.save: db.batch içinde kullanılamaz");
+        try {
+            log(scriptName).compact();
         } catch (Exception e) {
             logger.warning("[Storage] Kayıt hatası (" + scriptName + "): " + e.getMessage());
         }
     }
 
+    private JsonObject root(String scriptName) {
+        return cache.getOrDefault(scriptName, new JsonObject());
+    }
+
     // ──────────────────────────────────────────────────────────────────
     //  JSValue ↔ JsonElement dönüşümleri
     // ──────────────────────────────────────────────────────────────────
@@ -340,8 +972,13 @@ public class StorageManager {
             return arr;
         }
         if (val.isObject()) {
-            JsonObject obj = new JsonObject();
             JSObject jsObj = val.asObject();
+            // Dokunulmamış görünüm: JS nesnelerine çevirmeden kaynağı kopyala
+            if (jsObj instanceof JsonView view) {
+                JsonElement src = view.unchangedSource();
+                if (src != null) return src;
+            }
+            JsonObject obj = new JsonObject();
             for (Map.Entry<String, JSValue> e : jsObj.ownProps().entrySet()) {
                 obj.add(e.getKey(), jsToJson(e.getValue()));
             }
@@ -351,27 +988,9 @@ public class StorageManager {
         return new JsonPrimitive(val.asString());
     }
 
+    /** Nesneler tembel görünüm olarak döner (bkz. JsonView) */
     private JSValue jsonToJs(JsonElement el) {
-        if (el == null || el.isJsonNull()) return JSValue.NULL;
-        if (el.isJsonPrimitive()) {
-            JsonPrimitive p = el.getAsJsonPrimitive();
-            if (p.isBoolean()) return JSValue.of(p.getAsBoolean());
-            if (p.isNumber())  return JSValue.of(p.getAsDouble());
-            return JSValue.of(p.getAsString());
-        }
-        if (el.isJsonArray()) {
-            JSArray arr = new JSArray();
-            for (JsonElement item : el.getAsJsonArray()) arr.push(jsonToJs(item));
-            return JSValue.of(arr);
-        }
-        if (el.isJsonObject()) {
-            JSObject obj = new JSObject();
-            for (Map.Entry<String, JsonElement> e : el.getAsJsonObject().entrySet()) {
-                obj.set(e.getKey(), jsonToJs(e.getValue()));
-            }
-            return JSValue.of(obj);
-        }
-        return JSValue.UNDEFINED;
+        return JsonView.toJs(el, null);
     }
 
     // ──────────────────────────────────────────────────────────────────
@@ -0,0 +1,107 @@
+package dev.nanoscript.api;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Bölümlü storage: her üst seviye anahtar (ör. oyuncu UUID'si) ayrı bir
+ * parça dosyasında, kendi log'uyla durur.
+ *
+ *   const oyuncular = server.getStorage().partition("oyuncular", { preload: "uuid" });
+ *   oyuncular.increment(player.getUniqueId() + ".bakiye", 100);
+ *   // → data/<script>/oyuncular/<uuid>.nsb (+ .wal)
+ *
+ * Parçalar ilk erişimde yüklenir; preload verilirse oyuncu bağlanırken
+ * (AsyncPlayerPreLoginEvent) async okunur. Bellekte en fazla `capacity`
+ * parça tutulur: sınır aşılınca en uzun süre kullanılmamış ve diske yazılmış
+ * (temiz) parçalar atılır. Kirli parçalar flusher yazana kadar bekler.
+ * Her parça bağımsız olarak yazılır ve sıkıştırılır.
+ *
+ * Yalnızca ana thread'den kullanılır (ön yükleme sonucu ana thread'de kurulur).
+ */
+final class StoragePartition {
+
+    /** Parça anahtarı dosya adı olur */
+    static final String KEY_PATTERN = "[A-Za-z0-9_\\-]+";
+
+    private final StorageManager storage;
+    private final String base;
+    private final File dir;
+    private final int capacity;
+    /** "uuid", "name" veya null */
+    private volatile String preload;
+
+    /** parça anahtarı → ad alanı; erişim sırasında (en eski başta) */
+    private final LinkedHashMap<String, String> loaded = new LinkedHashMap<>(64, 0.75f, true);
+
+    StoragePartition(StorageManager storage, String base, File dir, int capacity) {
+        this.storage  = storage;
+        this.base     = base;
+        this.dir      = dir;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /** Parçanın ad alanı; yüklü değilse yükler ve LRU'yu günceller */
+    String touch(String key) {
+        String ns = loaded.get(key);
+        if (ns != null) return ns;
+        ns = namespace(key);
+        storage.load(ns);
+        loaded.put(key, ns);
+        evictOverflow(key);
+        return ns;
+    }
+
+    /** Ön yükleme ana thread'de kurulduğunda */
+    void adopt(String key) {
+        loaded.put(key, namespace(key));
+        evictOverflow(key);
+    }
+
+    boolean isLoaded(String key) {
+        return loaded.containsKey(key);
+    }
+
+    String namespace(String key) {
+        return base + "/" + key;
+    }
+
+    private void evictOverflow(String keep) {
+        if (loaded.size() <= capacity) return;
+        Iterator<Map.Entry<String, String>> it = loaded.entrySet().iterator();
+        while (loaded.size() > capacity && it.hasNext()) {
+            Map.Entry<String, String> e = it.next();
+            if (e.getKey().equals(keep)) continue;
+            if (storage.evict(e.getValue())) it.remove();
+        }
+    }
+
+    /** Diskteki ve bellekteki bütün parça anahtarları (sıralı) */
+    Set<String> keys() {
+        Set<String> keys = new TreeSet<>(loaded.keySet());
+        String[] files = dir.list();
+        if (files != null) {
+            for (String f : files) {
+                if (f.endsWith(".nsb") || f.endsWith(".wal")) keys.add(f.substring(0, f.length() - 4));
+                else if (f.endsWith(".json")) keys.add(f.substring(0, f.length() - 5));   // dönüştürülmemiş
+            }
+        }
+        return keys;
+    }
+
+    Iterable<String> loadedNamespaces() {
+        return loaded.values();
+    }
+
+    int getLoadedCount() { return loaded.size(); }
+    int getCapacity()    { return capacity; }
+    String getBase()     { return base; }
+    File getDir()        { return dir; }
+
+    String getPreload()            { return preload; }
+    void setPreload(String preload) { this.preload = preload; }
+}
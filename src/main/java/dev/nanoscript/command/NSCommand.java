@@ -1,6 +1,7 @@
 package dev.nanoscript.command;
 
 import dev.nanoscript.NanoScript;
+import dev.nanoscript.api.StorageFlusher;
 import dev.nanoscript.engine.ScriptManager;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -22,6 +23,8 @@ import java.util.stream.Collectors;
  * /ns list               → aktif scriptleri listele
  * /ns reload all         → unload + load all
  * /ns reload <dosya.js>  → tek scripti yeniden yükle
+ * /ns events [filtre]    → em.on ile dinlenebilecek event'leri listele
+ * /ns storage            → storage yazma kuyruğu ve flush metrikleri
  */
 public class NSCommand implements CommandExecutor, TabCompleter {
 
@@ -31,7 +34,10 @@ public class NSCommand implements CommandExecutor, TabCompleter {
         "  §f/ns load all §7| /ns load <dosya.js>\n" +
         "  §f/ns unload all §7| /ns unload <dosya.js>\n" +
         "  §f/ns reload all §7| /ns reload <dosya.js>\n" +
-        "  §f/ns list";
+        "  §f/ns list §7| /ns events [filtre] §7| /ns storage";
+
+    /** /ns events çıktısında gösterilecek en fazla ad */
+    private static final int EVENT_LIST_LIMIT = 60;
 
     private final NanoScript plugin;
     private final ScriptManager sm;
@@ -94,6 +100,8 @@ public class NSCommand implements CommandExecutor, TabCompleter {
                 }
             }
             case "list" -> sender.sendMessage(sm.list());
+            case "events" -> sender.sendMessage(listEvents(args.length > 1 ? args[1] : ""));
+            case "storage" -> sender.sendMessage(storageStatus());
             default -> sender.sendMessage(USAGE);
         }
 
@@ -107,7 +115,7 @@ public class NSCommand implements CommandExecutor, TabCompleter {
         if (!sender.hasPermission("nanoscript.admin")) return List.of();
 
         if (args.length == 1) {
-            return filterStart(args[0], Arrays.asList("load", "unload", "reload", "list"));
+            return filterStart(args[0], Arrays.asList("load", "unload", "reload", "list", "events", "storage"));
         }
 
         if (args.length == 2) {
@@ -129,6 +137,27 @@ public class NSCommand implements CommandExecutor, TabCompleter {
         return List.of();
     }
 
+    private String listEvents(String filter) {
+        List<String> names = plugin.getEventIndex().list(filter);
+        if (names.isEmpty()) return PREFIX + "§eEşleşen event yok.";
+        int shown = Math.min(names.size(), EVENT_LIST_LIMIT);
+        StringBuilder sb = new StringBuilder(PREFIX + "§fEvent'ler §7(" + names.size() + ")§f:\n§7");
+        sb.append(String.join("§8, §7", names.subList(0, shown)));
+        if (names.size() > shown) sb.append("\n§8... ve ").append(names.size() - shown).append(" tane daha (filtre ile daraltın)");
+        return sb.toString();
+    }
+
+    private String storageStatus() {
+        StorageFlusher f = plugin.getStorageFlusher();
+        return PREFIX + "§fStorage:\n" +
+            "  §7Kuyruk: §e" + f.getQueueDepth() + " §7değişiklik, §e" + f.getDirtyCount() + " §7ad alanı" +
+            " §8(en fazla " + f.getMaxLatencyMs() + "ms / " + f.getMaxBatch() + ")\n" +
+            "  §7Flush: §f" + f.getFlushCount() + " §7| Son: §f" + String.format("%.2f", f.getLastFlushMs()) + "ms" +
+            " §7| Ort: §f" + String.format("%.2f", f.getAverageFlushMs()) + "ms" +
+            " §7| En uzun: §f" + String.format("%.2f", f.getMaxFlushMs()) + "ms\n" +
+            "  §7Yazılan: §f" + f.getBytesWritten() / 1024 + " KB";
+    }
+
     private List<String> filterStart(String input, List<String> options) {
         return options.stream()
             .filter(o -> o.toLowerCase().startsWith(input.toLowerCase()))
@@ -0,0 +1,133 @@
+package dev.nanoscript.engine;
+
+import dev.nanoscript.NanoScript;
+import org.bukkit.Bukkit;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Script başına tek thread'li yürütme bağlamı (actor modeli).
+ *
+ * Bir scriptin NanoEngine'i, Environment'ları ve JSObject'leri thread-safe
+ * değildir. Bu yüzden scriptin JS kodu yalnızca sunucu ana thread'inde çalışır:
+ *  - Ana thread'den gelen işler doğrudan çalışır.
+ *  - Diğer thread'lerden gelen işler (repeatAsync, async event'ler,
+ *    runAsync sonuçları) mailbox'a bırakılır ve bir sonraki tick'te sırayla
+ *    boşaltılır. Boşaltma plugin'in tek per-tick görevinden yapılır
+ *    (ScriptManager.tickAll); iş başına BukkitTask açılmaz.
+ *
+ * unload sonrası mailbox kapanır; bekleyen işler atılır.
+ */
+public class ScriptExecutor {
+
+    /** Async event / tab-complete çağrılarının ana thread'i bekleme süresi */
+    private static final long WAIT_TIMEOUT_MS = 2000;
+
+    private final String scriptName;
+    private final Logger logger;
+
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed = false;
+
+    public ScriptExecutor(NanoScript plugin, String scriptName) {
+        this.scriptName = scriptName;
+        this.logger     = plugin.getLogger();
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Submission
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Ana thread'deysek hemen çalıştırır, değilsek mailbox'a bırakır */
+    public void execute(Runnable task) {
+        if (closed) return;
+        if (Bukkit.isPrimaryThread()) runSafely(task);
+        else post(task);
+    }
+
+    /**
+     * İşi her zaman mailbox'a bırakır (ana thread'den çağrılsa bile bir
+     * sonraki tick'te çalışır).
+     * @return kabul edildiyse true (script kapanmışsa false)
+     */
+    public boolean post(Runnable task) {
+        if (closed) return false;
+        mailbox.add(task);
+        return true;
+    }
+
+    /**
+     * Async thread'den çağrılır: işi ana thread'de çalıştırır ve sonucunu
+     * bekler (ör. async event'i iptal edebilmek için). Zaman aşımında iş
+     * iptal edilir ve fallback döner; hiçbir zaman süresiz bloklamaz.
+     * Script kapanmışsa iş çalıştırılmaz, fallback döner.
+     */
+    public <T> T callAndWait(Callable<T> task, T fallback) {
+        if (closed) return fallback;
+        if (Bukkit.isPrimaryThread()) {
+            try { return task.call(); }
+            catch (Exception e) { logError(e); return fallback; }
+        }
+
+        FutureTask<T> future = new FutureTask<>(task);
+        if (!post(future)) return fallback;
+        try {
+            return future.get(WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            logger.warning("[NanoScript] " + scriptName + ": ana thread " + WAIT_TIMEOUT_MS
+                    + "ms içinde yanıt vermedi, async çağrı atlandı.");
+            return fallback;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            return fallback;
+        } catch (ExecutionException e) {
+            logError(e.getCause());
+            return fallback;
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Drain (ana thread)
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Per-tick görevden (ScriptInstance.tick) çağrılır */
+    public void drain() {
+        // Yalnızca giriş anındaki işler: drain sırasında eklenenler bir sonraki tick'e kalır
+        for (int n = mailbox.size(); n > 0 && !closed; n--) {
+            Runnable task = mailbox.poll();
+            if (task == null) break;
+            runSafely(task);
+        }
+    }
+
+    private void runSafely(Runnable task) {
+        try { task.run(); }
+        catch (Exception e) { logError(e); }
+    }
+
+    private void logError(Throwable e) {
+        logger.warning("[NanoScript] " + scriptName + " görev hatası: " + e.getMessage());
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Lifecycle / status
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Mailbox'ı kapatır; bekleyen işler atılır */
+    public void shutdown() {
+        closed = true;
+        mailbox.clear();
+    }
+
+    public boolean isClosed()   { return closed; }
+    public int getPendingCount() { return mailbox.size(); }
+}
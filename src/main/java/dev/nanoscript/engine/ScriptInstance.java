@@ -6,12 +6,13 @@ import dev.nanoscript.api.StorageManager;
 import dev.nanoscript.jsengine.*;
 import dev.nanoscript.listener.DynamicCommand;
 import dev.nanoscript.listener.DynamicListener;
-import org.bukkit.event.HandlerList;
-import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.configuration.ConfigurationSection;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tek bir .js dosyasının tam izolasyonu.
@@ -32,17 +33,23 @@ public class ScriptInstance {
     private ScriptAPI api;
     private StorageManager storage;
 
+    // Tüm JS çalıştırmasının geçtiği tek thread'li bağlam
+    private final ScriptExecutor executor;
 
 
     // Kayıtlı kaynaklar
     private final List<DynamicListener> eventListeners = new ArrayList<>();
-    private final List<BukkitTask> tasks = new ArrayList<>();
+    /** server.schedule / repeat kimliği → çark tutamacı (O(1) iptal) */
+    private final Map<Integer, TimerWheel.Handle> timers = new HashMap<>();
+    private int nextTimerId = 1;
     private final List<String> registeredCommands = new ArrayList<>();
+    private final List<ScriptWorker> workers = new ArrayList<>();
 
     public ScriptInstance(NanoScript plugin, File file) {
         this.plugin = plugin;
         this.file = file;
-        this.storage = new StorageManager(plugin);
+        this.storage = plugin.getStorage();
+        this.executor = new ScriptExecutor(plugin, file.getName());
     }
 
     // ──────────────────────────────────────────────────────────────────
@@ -57,6 +64,7 @@ public class ScriptInstance {
         try {
             // Yeni izole motor oluştur
             engine = new NanoEngine();
+            engine.setWatchdog(createWatchdog());
 
             // ScriptAPI'yi motora bağla
             api = new ScriptAPI(plugin, this, engine, storage);
@@ -85,17 +93,17 @@ public class ScriptInstance {
      * event listener'lar, task'lar, komutlar temizlenir.
      */
     public void unload() {
+        // 0. Bekleyen async işleri at, yenilerini reddet
+        executor.shutdown();
+
         // 1. Event listener'ları kaldır
-        for (DynamicListener dl : eventListeners) {
-            try { HandlerList.unregisterAll(dl); } catch (Exception ignored) {}
-        }
+        for (DynamicListener dl : eventListeners) plugin.getEventHub().unregister(dl);
         eventListeners.clear();
 
-        // 2. Scheduler task'larını iptal et
-        for (BukkitTask task : tasks) {
-            try { task.cancel(); } catch (Exception ignored) {}
-        }
-        tasks.clear();
+        // 2. Zamanlayıcıları iptal et
+        for (TimerWheel.Handle timer : timers.values()) timer.cancel();
+        timers.clear();
+        plugin.getSpreadQueue().cancelAll(this);
 
         // 3. Dinamik komutları kaldır
         for (String cmd : registeredCommands) {
@@ -103,11 +111,54 @@ public class ScriptInstance {
         }
         registeredCommands.clear();
 
+        // 3b. Worker'ları sonlandır
+        for (ScriptWorker worker : workers) worker.terminate();
+        workers.clear();
+
         // 4. Motoru temizle (GC'ye bırak)
         cleanup();
     }
 
+    /** Per-tick görevden: mailbox'ı boşaltır ve scriptin olay döngüsünü bir tick ilerletir */
+    public void tick() {
+        if (engine == null) return;
+        executor.drain();
+        try {
+            engine.tick();
+        } catch (Exception e) {
+            plugin.getLogger().warning("[NanoScript] " + file.getName() + " olay döngüsü hatası: " + e.getMessage());
+        }
+    }
+
+    /** config.yml'deki watchdog ayarları; script bazında tanım varsa o geçerli */
+    private Watchdog createWatchdog() {
+        ConfigurationSection cfg = plugin.getConfig().getConfigurationSection("watchdog");
+        if (cfg == null) return null;
+        ConfigurationSection own = cfg.getConfigurationSection("scripts." + file.getName().replaceFirst("\\.js$", ""));
+        double tickMs = cfg.getDouble("tick-ms", 50);
+        if (own != null) tickMs = own.getDouble("tick-ms", tickMs);
+        return new Watchdog(invocationLimit(cfg), tickMs, cfg.getBoolean("fatal", false));
+    }
+
+    /**
+     * Worker / izole motorlar için bekçi: aynı çağrı sınırı, tick bütçesi yok
+     * (tick thread'inde çalışmazlar). Ayar yoksa sınırsızdır ama abort() ile
+     * yine durdurulabilir.
+     */
+    public Watchdog createWorkerWatchdog() {
+        ConfigurationSection cfg = plugin.getConfig().getConfigurationSection("watchdog");
+        if (cfg == null) return new Watchdog(0, 0, true);
+        return new Watchdog(invocationLimit(cfg), 0, cfg.getBoolean("fatal", false));
+    }
+
+    private double invocationLimit(ConfigurationSection cfg) {
+        ConfigurationSection own = cfg.getConfigurationSection("scripts." + file.getName().replaceFirst("\\.js$", ""));
+        double invocationMs = cfg.getDouble("invocation-ms", 100);
+        return own != null ? own.getDouble("invocation-ms", invocationMs) : invocationMs;
+    }
+
     private void cleanup() {
+        executor.shutdown();
         engine = null;
         api = null;
     }
@@ -117,17 +168,37 @@ public class ScriptInstance {
     // ──────────────────────────────────────────────────────────────────
 
     public void addEventListenerRef(DynamicListener dl)  { eventListeners.add(dl); }
-    public void addTaskRef(BukkitTask task)               { tasks.add(task); }
     public void addCommandRef(String name)                { registeredCommands.add(name); }
-    public void removeTaskRef(BukkitTask task)            { tasks.remove(task); }
+    public void addWorkerRef(ScriptWorker worker)         { workers.add(worker); }
+    public void removeWorkerRef(ScriptWorker worker)      { workers.remove(worker); }
+
+    /**
+     * Zamanlayıcıyı verilen çarka ekler ve script'e kaydeder.
+     * Tek seferlik zamanlayıcılar çalışınca kayıttan kendiliğinden düşer.
+     * @return server.cancel için kimlik
+     */
+    public int addTimer(TimerWheel wheel, long delay, long period, Runnable task) {
+        int id = nextTimerId++;
+        Runnable run = period > 0 ? task : () -> { timers.remove(id); task.run(); };
+        timers.put(id, wheel.schedule(delay, period, run));
+        return id;
+    }
+
+    public void cancelTimer(int id) {
+        TimerWheel.Handle timer = timers.remove(id);
+        if (timer != null) timer.cancel();
+    }
 
     // ──────────────────────────────────────────────────────────────────
     //  Status
     // ──────────────────────────────────────────────────────────────────
 
     public int getEventCount()   { return eventListeners.size(); }
-    public int getTaskCount()    { return tasks.size(); }
+    public int getTimerCount()   { return timers.size(); }
     public int getCommandCount() { return registeredCommands.size(); }
+    public int getWorkerCount()  { return workers.size(); }
     public String getFileName()  { return file.getName(); }
     public NanoEngine getEngine(){ return engine; }
+    public Watchdog getWatchdog(){ return engine != null ? engine.getWatchdog() : null; }
+    public ScriptExecutor getExecutor() { return executor; }
 }
@@ -1,6 +1,7 @@
 package dev.nanoscript.engine;
 
 import dev.nanoscript.NanoScript;
+import dev.nanoscript.jsengine.Watchdog;
 import org.bukkit.Bukkit;
 
 import java.io.File;
@@ -143,12 +144,30 @@ public class ScriptManager {
             sb.append("  §a● §f").append(name)
               .append(" §7| Eventler: §b").append(instance.getEventCount())
               .append(" §7| Komutlar: §d").append(instance.getCommandCount())
-              .append(" §7| Task'lar: §e").append(instance.getTaskCount())
-              .append("\n");
+              .append(" §7| Zamanlayıcılar: §e").append(instance.getTimerCount())
+              .append(" §7| Worker'lar: §3").append(instance.getWorkerCount());
+            Watchdog watchdog = instance.getWatchdog();
+            if (watchdog != null) {
+                sb.append(" §7| CPU: §f").append(String.format("%.1f", watchdog.getLastTickMs())).append("ms/tick");
+                if (watchdog.getViolations() > 0) sb.append(" §7| Aşım: §c").append(watchdog.getViolations());
+            }
+            sb.append("\n");
         });
         return sb.toString().trim();
     }
 
+    // ─────────────────────────────────────────────
+    //  TICK
+    // ─────────────────────────────────────────────
+
+    /**
+     * Tek per-tick görevden (NanoScript) çağrılır: her scriptin olay
+     * döngüsü (await server.sleep, promise devamları) bir tick ilerler.
+     */
+    public void tickAll() {
+        for (ScriptInstance instance : loadedScripts.values()) instance.tick();
+    }
+
     // ─────────────────────────────────────────────
     //  HELPERS
     // ─────────────────────────────────────────────
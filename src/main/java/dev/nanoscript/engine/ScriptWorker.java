@@ -0,0 +1,198 @@
+package dev.nanoscript.engine;
+
+import dev.nanoscript.jsengine.*;
+
+import java.io.File;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * server.worker("dosya.js") — WorkerPool üzerinde çalışan izole bir NanoEngine.
+ *
+ * Worker tarafında görünen global'ler yalnızca JS builtin'leri ile:
+ *   postMessage(data)          → ana scriptin worker.onmessage({ data }) callback'i
+ *   onmessage = function(e) {} → ana scriptin worker.postMessage(data) çağrıları (e.data)
+ *   close()                    → worker'ı sonlandırır
+ *
+ * getServer(), Bukkit nesneleri ve ana scriptin değişkenleri görünmez;
+ * mesajlar StructuredClone ile kopyalanır (Java nesnesi ve fonksiyon aktarılamaz).
+ * Worker bir aktördür: mesajları sırayla, aynı anda tek thread'de işler.
+ *
+ * Motorun kendi bekçisi vardır: terminate() onu abort eder, böylece
+ * while(true) içindeki bir worker da bir sonraki safepoint'te durur ve
+ * havuz thread'ini bırakır. Olay döngüsü her drain sonunda bir tick ilerler;
+ * bekleyen zamanlayıcı varsa worker bir tick süresi sonra kendini uyandırır.
+ */
+public class ScriptWorker {
+
+    /** İşlenmeyi bekleyen en fazla mesaj — aşılırsa postMessage hata verir */
+    private static final int MAX_INBOX = 10_000;
+    /** Bir havuz görevinde işlenecek en fazla mesaj (diğer worker'lara sıra gelsin) */
+    private static final int BATCH = 32;
+    /** Bekleyen zamanlayıcısı olan worker'ın uyanma aralığı (bir sunucu tick'i) */
+    private static final long TICK_MS = 50;
+
+    private final File file;
+    private final ExecutorService pool;
+    private final Consumer<JSValue> toParent;
+    private final Consumer<String> onError;
+    private final Consumer<ScriptWorker> onClose;
+    private final Watchdog watchdog;
+
+    private final Queue<JSValue> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inboxSize = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean terminated = false;
+
+    // Yalnızca drain() içinde kullanılır — drain aynı anda tek thread'de çalışır
+    private NanoEngine engine;
+
+    /**
+     * @param toParent worker'ın postMessage'ı (kopyalanmış mesaj, worker thread'inden çağrılır)
+     * @param onError  yükleme / handler hataları (worker thread'inden çağrılır)
+     * @param onClose  worker kendi close()'unu çağırdığında (worker thread'inden çağrılır)
+     * @param watchdog worker motorunun bekçisi (ScriptInstance.createWorkerWatchdog)
+     */
+    public ScriptWorker(File file, ExecutorService pool, Consumer<JSValue> toParent,
+                        Consumer<String> onError, Consumer<ScriptWorker> onClose, Watchdog watchdog) {
+        this.file     = file;
+        this.pool     = pool;
+        this.toParent = toParent;
+        this.onError  = onError;
+        this.onClose  = onClose;
+        this.watchdog = watchdog;
+    }
+
+    /** Dosyayı worker thread'inde yükler (ilk drain) */
+    public void start() {
+        schedule();
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Ana script → worker
+    // ──────────────────────────────────────────────────────────────────
+
+    public void postMessage(JSValue message) {
+        if (terminated) throw new JsError("Worker sonlandırılmış: " + file.getName());
+        JSValue copy = StructuredClone.copy(message);
+        if (inboxSize.incrementAndGet() > MAX_INBOX) {
+            inboxSize.decrementAndGet();
+            throw new JsError("Worker kuyruğu dolu (" + MAX_INBOX + " mesaj): " + file.getName());
+        }
+        inbox.add(copy);
+        schedule();
+    }
+
+    /** Dışarıdan sonlandırma: çalışan kod bir sonraki safepoint'te durur */
+    public void terminate() {
+        stop();
+        watchdog.abort("Worker sonlandırıldı: " + file.getName());
+    }
+
+    private void stop() {
+        terminated = true;
+        inbox.clear();
+        inboxSize.set(0);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Worker thread
+    // ──────────────────────────────────────────────────────────────────
+
+    private void schedule() {
+        if (terminated || !scheduled.compareAndSet(false, true)) return;
+        try {
+            pool.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Havuz kapanıyor (plugin disable)
+            scheduled.set(false);
+            terminate();
+        }
+    }
+
+    private void drain() {
+        try {
+            if (engine == null && !boot()) return;
+            for (int i = 0; i < BATCH && !terminated; i++) {
+                JSValue msg = inbox.poll();
+                if (msg == null) break;
+                inboxSize.decrementAndGet();
+                deliver(msg);
+            }
+            if (!terminated) advance();
+        } finally {
+            scheduled.set(false);
+            // Drain bitmeden gelen mesajlar / limitte kalan microtask'lar için yeniden sıraya gir
+            if (!inbox.isEmpty() || (engine != null && engine.getEventLoop().getPendingMicrotasks() > 0)) {
+                schedule();
+            } else if (engine != null && !terminated && engine.getEventLoop().getPendingTimers() > 0) {
+                CompletableFuture.delayedExecutor(TICK_MS, TimeUnit.MILLISECONDS, pool).execute(this::schedule);
+            }
+        }
+    }
+
+    /** Olay döngüsünü bir tick ilerletir: zamanı gelen zamanlayıcılar + microtask'lar */
+    private void advance() {
+        try {
+            engine.tick();
+        } catch (JsError e) {
+            if (!terminated) onError.accept(e.getMessage());
+        }
+    }
+
+    private boolean boot() {
+        try {
+            engine = new NanoEngine();
+            engine.setWatchdog(watchdog);
+            engine.defineGlobal("postMessage", JSFunction.native1("postMessage", (args, env) -> {
+                if (!terminated) toParent.accept(StructuredClone.copy(args.length > 0 ? args[0] : JSValue.UNDEFINED));
+                return JSValue.UNDEFINED;
+            }));
+            engine.defineGlobal("close", JSFunction.native1("close", (args, env) -> {
+                // Tarayıcıdaki gibi: çalışan handler biter, sonraki mesajlar teslim edilmez
+                if (!terminated) {
+                    stop();
+                    onClose.accept(this);
+                }
+                return JSValue.UNDEFINED;
+            }));
+            engine.executeFile(file);
+            return true;
+        } catch (JsError e) {
+            if (!terminated) onError.accept(file.getName() + " yüklenemedi: " + e.getMessage());
+            stop();
+            return false;
+        }
+    }
+
+    private void deliver(JSValue msg) {
+        JSValue handler = engine.getGlobal("onmessage");
+        if (!handler.isFunction()) return;
+        JSObject event = new JSObject();
+        event.set("data", msg);
+        try {
+            engine.call(handler, new JSValue[]{ JSValue.of(event) });
+        } catch (JsError e) {
+            if (!terminated) onError.accept(e.getMessage());
+        } catch (ThrowSignal t) {
+            onError.accept("Yakalanmamış throw: " + t.value.asString());
+        } catch (Exception e) {
+            onError.accept("Beklenmedik hata: " + e.getMessage());
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Status
+    // ──────────────────────────────────────────────────────────────────
+
+    public boolean isTerminated() { return terminated; }
+    public int getPendingCount()  { return inboxSize.get(); }
+    public String getFileName()   { return file.getName(); }
+}
@@ -0,0 +1,120 @@
+package dev.nanoscript.engine;
+
+import dev.nanoscript.jsengine.Watchdog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * server.spread(items, fn) işleri — tek tick'e sığmayan döngüleri tick'lere böler.
+ *
+ * Her tick TickBudget'ın verdiği süre içinde işler sırayla (round-robin)
+ * birer birer ilerletilir; süre dolunca kalan öğeler sonraki tick'e kalır.
+ * Bir işin kendi tick sınırı (maxMsPerTick) da olabilir. Bütçe tükense bile
+ * tick başına en az bir öğe işlenir, böylece ağır yükte de iş tamamlanır.
+ *
+ * Bir adım fatal bütçe aşımı (WatchdogError) fırlatırsa iş reddedilmez:
+ * iş iptal edilir ve hata çağırana geçer.
+ *
+ * Yalnızca ana thread'den kullanılır.
+ */
+public final class SpreadQueue {
+
+    public static final class Job {
+        private final Object owner;
+        private final int count;
+        private final IntConsumer step;
+        private final long maxNanos;
+        private final Runnable onDone;
+        private final Consumer<RuntimeException> onError;
+        private int index = 0;
+        private boolean cancelled;
+
+        private Job(Object owner, int count, IntConsumer step, long maxNanos,
+                    Runnable onDone, Consumer<RuntimeException> onError) {
+            this.owner    = owner;
+            this.count    = count;
+            this.step     = step;
+            this.maxNanos = maxNanos;
+            this.onDone   = onDone;
+            this.onError  = onError;
+        }
+
+        public void cancel()       { cancelled = true; }
+        public int getProcessed()  { return index; }
+    }
+
+    private final TickBudget budget;
+    private final List<Job> jobs = new ArrayList<>();
+    /** Round-robin: bu tick'te ilk sırada olacak iş */
+    private int cursor = 0;
+
+    public SpreadQueue(TickBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param count    öğe sayısı; step 0..count-1 ile sırayla çağrılır
+     * @param maxNanos işin tick başına en fazla süresi (≤ 0 = yalnızca genel bütçe)
+     * @param onDone   tüm öğeler işlenince
+     * @param onError  step hata fırlatırsa (iş durur)
+     */
+    public Job submit(Object owner, int count, IntConsumer step, long maxNanos,
+                      Runnable onDone, Consumer<RuntimeException> onError) {
+        Job job = new Job(owner, count, step, maxNanos, onDone, onError);
+        jobs.add(job);
+        return job;
+    }
+
+    /** Script kaldırılırken: sahibin bekleyen işlerini at */
+    public void cancelAll(Object owner) {
+        for (Job job : jobs) if (job.owner == owner) job.cancel();
+    }
+
+    /** Per-tick görevden: bütçe bitene kadar işleri ilerletir */
+    public void run() {
+        jobs.removeIf(j -> j.cancelled);
+        if (jobs.isEmpty()) return;
+
+        long start = System.nanoTime();
+        long deadline = start + budget.spreadBudgetNanos();
+        int n = jobs.size();
+        cursor %= n;
+        boolean progressed = false;
+
+        for (int k = 0; k < n; k++) {
+            Job job = jobs.get((cursor + k) % n);
+            long now = System.nanoTime();
+            if (progressed && now >= deadline) break;
+            long jobDeadline = job.maxNanos > 0 ? Math.min(deadline, now + job.maxNanos) : deadline;
+            do {
+                if (job.cancelled || job.index >= job.count) break;
+                try {
+                    job.step.accept(job.index++);
+                } catch (Watchdog.WatchdogError e) {
+                    job.cancel();
+                    throw e;
+                } catch (RuntimeException e) {
+                    job.cancel();
+                    job.onError.accept(e);
+                    break;
+                }
+                progressed = true;
+            } while (System.nanoTime() < jobDeadline);
+            if (!job.cancelled && job.index >= job.count) {
+                job.cancel();
+                job.onDone.run();
+            }
+        }
+        cursor++;
+        jobs.removeIf(j -> j.cancelled);
+    }
+
+    public int size() {
+        int live = 0;
+        for (Job job : jobs) if (!job.cancelled) live++;
+        return live;
+    }
+}
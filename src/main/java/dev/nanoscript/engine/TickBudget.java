@@ -0,0 +1,123 @@
+package dev.nanoscript.engine;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Tick başına zaman bütçesi — server.spread, server.budget() ve server.getMSPT() için.
+ *
+ * beginTick() plugin'in per-tick görevinde bir kez çağrılır ve görevin
+ * başlangıcını System.nanoTime() ile önbelleğe alır. Plugin görevleri tick'in
+ * başında, dünyalar tick'lenmeden önce çalışır; bu yüzden tick'in gerçek işi
+ * (MSPT) buradan ölçülemez ve sunucudan okunur:
+ *   - Paper: Server#getAverageTickTime() (son 100 tick'in ortalaması). Yayılmış
+ *     işlere ayrılan bütçe MSPT arttıkça küçülür: ~25 ms'ye kadar tam bütçe,
+ *     50 ms'de (tick dolu) alt sınır. server.budget() tick'in tahmini boşluğunu
+ *     (50 − MSPT) görev başından beri geçen süre kadar azaltarak verir.
+ *   - Spigot: MSPT bilinmez (getMSPT() -1). Elde yalnızca görevin iki çalışması
+ *     arasındaki aralık vardır; sunucu 20 TPS'te iken bu ~50 ms'ye sabitlenir.
+ *     Bütçe bu aralıktan hesaplanır, yani ancak TPS 20'nin altına düşünce
+ *     küçülür; server.budget() dünya tick'ini hesaba katmayan bir üst sınırdır.
+ *
+ * Yalnızca ana thread'den kullanılır.
+ */
+public final class TickBudget {
+
+    public static final double TICK_MS = 50.0;
+
+    /** Sunucu rahatken yayılmış işlere ayrılan en fazla süre (tick başına) */
+    private static final double MAX_SPREAD_MS = 5.0;
+    /** Sunucu ne kadar geride olursa olsun işler ilerlesin diye alt sınır */
+    private static final double MIN_SPREAD_MS = 0.5;
+    /** MSPT bu değere kadar tam bütçe; TICK_MS'e doğru alt sınıra iner */
+    private static final double FULL_BUDGET_MSPT = 25.0;
+    /** Aralık ortalamasına yeni ölçümün ağırlığı (~20 tick'lik pencere) */
+    private static final double ALPHA = 0.05;
+
+    /** Sunucunun bildirdiği MSPT; null = desteklenmiyor (Spigot) */
+    private final DoubleSupplier serverMspt;
+
+    private long tickStart = System.nanoTime();
+    private double avgIntervalMs = TICK_MS;
+    private double mspt = -1;
+
+    /** @param serverMspt ortalama tick süresi (ms); null = sunucu bildirmiyor */
+    public TickBudget(DoubleSupplier serverMspt) {
+        this.serverMspt = serverMspt;
+    }
+
+    /**
+     * Paper'ın Server#getAverageTickTime() metodu (Spigot API'sinde yok).
+     * Arama bir kez yapılır; çağrı her tick doğrudan MethodHandle ile.
+     * @return desteklenmiyorsa null
+     */
+    public static DoubleSupplier paperMspt() {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup()
+                    .findVirtual(Server.class, "getAverageTickTime", MethodType.methodType(double.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+        return () -> {
+            try {
+                return (double) handle.invokeExact(Bukkit.getServer());
+            } catch (Throwable t) {
+                return -1;
+            }
+        };
+    }
+
+    /** Per-tick görevin başında çağrılır */
+    public void beginTick() {
+        long now = System.nanoTime();
+        double interval = (now - tickStart) / 1_000_000.0;
+        // Sunucu donup geri geldiyse (ör. /reload) tek ölçüm ortalamayı bozmasın
+        avgIntervalMs += ALPHA * (Math.min(interval, TICK_MS * 20) - avgIntervalMs);
+        tickStart = now;
+        if (serverMspt != null) mspt = serverMspt.getAsDouble();
+    }
+
+    /**
+     * Bu tick'te kalan tahmini süre (ms). MSPT biliniyorsa tick'in ortalama
+     * boşluğundan, bilinmiyorsa 50 ms'den görev başından beri geçen süre düşülür.
+     */
+    public double remainingMs() {
+        double idle = mspt >= 0 ? TICK_MS - mspt : TICK_MS;
+        return Math.max(0, idle - elapsedMs());
+    }
+
+    public double elapsedMs() {
+        return (System.nanoTime() - tickStart) / 1_000_000.0;
+    }
+
+    /** Sunucunun ortalama tick süresi (ms); sunucu bildirmiyorsa -1 */
+    public double getMspt() {
+        return mspt;
+    }
+
+    /** Per-tick görevin iki çalışması arasındaki ortalama süre (20 TPS'te ~50 ms) */
+    public double getTickIntervalMs() {
+        return avgIntervalMs;
+    }
+
+    /** Bu tick'te yayılmış işlere verilecek süre (ns) */
+    public long spreadBudgetNanos() {
+        double load;
+        if (mspt >= 0) {
+            // 25 ms'de 0, 50 ms ve üstünde 1
+            load = (mspt - FULL_BUDGET_MSPT) / (TICK_MS - FULL_BUDGET_MSPT);
+        } else {
+            // Yalnızca aralık: 50 ms'de 0, 100 ms'de (10 TPS) 1
+            load = (avgIntervalMs - TICK_MS) / TICK_MS;
+        }
+        load = Math.min(1, Math.max(0, load));
+        double ms = Math.max(MIN_SPREAD_MS, MAX_SPREAD_MS * (1 - load));
+        return (long) (ms * 1_000_000);
+    }
+}
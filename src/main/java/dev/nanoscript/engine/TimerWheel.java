@@ -0,0 +1,170 @@
+package dev.nanoscript.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hiyerarşik zamanlama çarkı — tüm scriptlerin server.schedule / repeat
+ * zamanlayıcıları tek bir Bukkit görevi üzerinden çalışır.
+ *
+ * 4 seviye × 64 yuva: seviye 0 tek tick çözünürlüklüdür, her üst seviyenin
+ * yuvası alttakinin tam turu kadardır (64, 4096, 262144 tick). Alt seviye
+ * tur attığında üstteki sıradaki yuva aşağı dağıtılır (cascade). Ekleme ve
+ * iptal O(1): her zamanlayıcı yuvasındaki çift bağlı listeden doğrudan
+ * çıkarılır, tarama yoktur.
+ *
+ * Thread-safe: ekleme/iptal script thread'inden, advance() çarkı süren
+ * görevden (senkron çark ana thread, async çark Bukkit async thread'i)
+ * gelir. Görevler kilit dışında çalışır.
+ */
+public final class TimerWheel {
+
+    private static final int BITS   = 6;
+    private static final int SLOTS  = 1 << BITS;
+    private static final int MASK   = SLOTS - 1;
+    private static final int LEVELS = 4;
+    /** Çarkın tek seferde kapsadığı en uzun süre; daha uzakları en üst seviyede bekler */
+    private static final long MAX_SPAN = 1L << (BITS * LEVELS);
+
+    /** Zamanlanmış bir görev — iptal için tutulan tutamaç */
+    public static final class Handle {
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long period; // 0 = tek seferlik
+        private long deadline;
+        private Handle prev, next;
+        private volatile boolean cancelled;
+
+        private Handle(TimerWheel wheel, Runnable task, long period, long deadline) {
+            this.wheel    = wheel;
+            this.task     = task;
+            this.period   = period;
+            this.deadline = deadline;
+        }
+
+        public void cancel() { wheel.cancel(this); }
+        public boolean isRepeating() { return period > 0; }
+    }
+
+    /** Her yuva bir döngüsel listenin başıdır (sentinel) */
+    private final Handle[][] slots = new Handle[LEVELS][SLOTS];
+    /** Sıradaki işlenecek tick */
+    private long now = 0;
+    private int size = 0;
+
+    public TimerWheel() {
+        for (int l = 0; l < LEVELS; l++) {
+            for (int s = 0; s < SLOTS; s++) {
+                Handle head = new Handle(this, null, 0, 0);
+                head.prev = head.next = head;
+                slots[l][s] = head;
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Scheduling
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * task'ı delay tick sonra çalıştırır; period > 0 ise ardından her period tick'te bir.
+     * delay ve period en az 1 tick'tir (bir sonraki advance).
+     */
+    public synchronized Handle schedule(long delay, long period, Runnable task) {
+        Handle h = new Handle(this, task, Math.max(0, period), now + Math.max(1, delay) - 1);
+        insert(h);
+        size++;
+        return h;
+    }
+
+    private synchronized void cancel(Handle h) {
+        if (h.cancelled) return;
+        h.cancelled = true;
+        if (h.next != null) {
+            unlink(h);
+            size--;
+        }
+    }
+
+    private void insert(Handle h) {
+        long expires = Math.min(h.deadline, now + MAX_SPAN - 1);
+        long delta = expires - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) level++;
+        Handle head = slots[level][(int) (expires >>> (BITS * level)) & MASK];
+        h.prev = head.prev;
+        h.next = head;
+        head.prev.next = h;
+        head.prev = h;
+    }
+
+    private static void unlink(Handle h) {
+        h.prev.next = h.next;
+        h.next.prev = h.prev;
+        h.prev = h.next = null;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Driving
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Bir tick ilerler ve zamanı gelen görevleri çalıştırır */
+    public void advance() {
+        List<Handle> due = collectDue();
+        for (Handle h : due) {
+            if (h.cancelled) continue; // aynı tick'te önceki bir görev iptal etti
+            try { h.task.run(); }
+            catch (RuntimeException ignored) {
+                // Görevler kendi hatalarını raporlar (ScriptAPI.safeCall); çark durmamalı
+            }
+            if (h.period > 0) reschedule(h);
+        }
+    }
+
+    private synchronized List<Handle> collectDue() {
+        int index = (int) (now & MASK);
+        // Seviye 0 tur attı: üst seviyelerin sıradaki yuvalarını aşağı dağıt
+        for (int level = 1; index == 0 && level < LEVELS; level++) {
+            index = cascade(level);
+        }
+
+        List<Handle> due = new ArrayList<>();
+        Handle head = slots[0][(int) (now & MASK)];
+        while (head.next != head) {
+            Handle h = head.next;
+            unlink(h);
+            if (h.deadline > now) { insert(h); continue; } // MAX_SPAN'den uzak: beklemeye devam
+            due.add(h);
+            size--; // tekrarlayanlar reschedule'da geri sayılır
+        }
+        now++;
+        return due;
+    }
+
+    /** @return dağıtılan yuvanın indeksi (0 ise bir üst seviye de dağıtılır) */
+    private int cascade(int level) {
+        int index = (int) (now >>> (BITS * level)) & MASK;
+        Handle head = slots[level][index];
+        while (head.next != head) {
+            Handle h = head.next;
+            unlink(h);
+            insert(h);
+        }
+        return index;
+    }
+
+    private synchronized void reschedule(Handle h) {
+        if (h.cancelled) return;
+        h.deadline = Math.max(h.deadline + h.period, now);
+        insert(h);
+        size++;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Status
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Bekleyen (iptal edilmemiş) zamanlayıcı sayısı */
+    public synchronized int size()        { return size; }
+    public synchronized long currentTick() { return now; }
+}
@@ -0,0 +1,50 @@
+package dev.nanoscript.engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * server.worker(...) ile açılan izole motorların paylaştığı sınırlı thread havuzu.
+ *
+ * Havuz plugin ömrü boyunca tektir (NanoScript sahibidir). Bir worker hiçbir
+ * zaman aynı anda iki thread'de çalışmaz; havuz yalnızca hangi thread'in
+ * sıradaki mesaj grubunu işleyeceğini belirler. Thread sayısı çekirdek
+ * sayısına göre sınırlıdır, böylece ağır worker'lar tick thread'iyle CPU
+ * için yarışsa da sunucuyu boğamaz.
+ */
+public class WorkerPool {
+
+    private static final int MAX_THREADS = 4;
+
+    private final ThreadPoolExecutor pool;
+
+    public WorkerPool() {
+        int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "NanoScript-Worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        };
+        this.pool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    public ExecutorService executor() { return pool; }
+
+    public int getThreadCount() { return pool.getMaximumPoolSize(); }
+    public int getActiveCount() { return pool.getActiveCount(); }
+
+    /** onDisable: yeni iş kabul etme, çalışanları kısa süre bekle */
+    public void shutdown() {
+        pool.shutdownNow();
+        try { pool.awaitTermination(2, TimeUnit.SECONDS); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+}
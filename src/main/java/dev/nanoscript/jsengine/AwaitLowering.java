@@ -0,0 +1,419 @@
+package dev.nanoscript.jsengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * async fonksiyon gövdesini Coroutine'in adım adım yürütebileceği biçime
+ * indirger (parse anında bir kez).
+ *
+ * Her await, bulunduğu ifadeden çıkarılıp kendi ifadesine taşınır:
+ *   log("x: " + await f(a));
+ * →
+ *   var $await0 = await f(a);
+ *   log("x: " + $await0);
+ *
+ * Sonuçta await yalnızca {@code ExprStmt(Await)} veya tek bildirimli
+ * {@code VarDecl(x = Await)} olarak kalır; diğer ifadelerin hiçbiri beklemez.
+ *  - Await'ten önce değerlendirilen kardeş ifadeler geçici değişkene alınır
+ *    (soldan sağa değerlendirme sırası korunur).
+ *  - && / || / ?? / ?: sağ tarafında await varsa if'e çevrilir; await yalnızca
+ *    o dal çalışırsa bekler.
+ *  - Koşulunda veya güncellemesinde await olan döngüler while (true) + break
+ *    biçimine çevrilir; continue yine koşula / güncellemeye gider.
+ */
+final class AwaitLowering {
+
+    private static final String TEMP_PREFIX = "$await";
+
+    private int temps = 0;
+
+    private AwaitLowering() {}
+
+    static Node.AsyncBody lower(Node.Block body) {
+        return new Node.AsyncBody(new AwaitLowering().block(body));
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Statements
+    // ──────────────────────────────────────────────────────────────────
+
+    private Node.Block block(Node.Block b) {
+        if (!containsAwait(b)) return b;
+        List<Node> out = new ArrayList<>(b.body().size());
+        for (Node s : b.body()) statement(s, out);
+        return new Node.Block(out);
+    }
+
+    /** if / döngü / try dalı: birden fazla ifadeye açılırsa bloğa sarılır */
+    private Node branch(Node s) {
+        if (s == null || !containsAwait(s)) return s;
+        if (s instanceof Node.Block b) return block(b);
+        List<Node> out = new ArrayList<>();
+        statement(s, out);
+        return out.size() == 1 ? out.get(0) : new Node.Block(out);
+    }
+
+    private void statement(Node s, List<Node> out) {
+        if (!containsAwait(s)) { out.add(s); return; }
+        switch (s) {
+            case Node.Block b -> out.add(block(b));
+
+            case Node.ExprStmt e -> {
+                Node expr = e.expr() instanceof Node.Await a
+                        ? new Node.Await(expr(a.arg(), out))
+                        : expr(e.expr(), out);
+                out.add(new Node.ExprStmt(expr));
+            }
+
+            case Node.VarDecl d -> {
+                // Her bildirim ayrı: sonraki init'ler önceki await'i bekler
+                for (Node.VarDecl.Declarator decl : d.decls()) {
+                    Node init = decl.init() instanceof Node.Await a
+                            ? new Node.Await(expr(a.arg(), out))
+                            : expr(decl.init(), out);
+                    out.add(new Node.VarDecl(d.kind(), List.of(new Node.VarDecl.Declarator(decl.name(), init))));
+                }
+            }
+
+            case Node.ReturnStmt r -> {
+                Node value = expr(r.value(), out);
+                out.add(new Node.ReturnStmt(value));
+            }
+
+            case Node.ThrowStmt t -> {
+                Node value = expr(t.value(), out);
+                out.add(new Node.ThrowStmt(value));
+            }
+
+            case Node.IfStmt i -> {
+                Node test = expr(i.test(), out);
+                out.add(new Node.IfStmt(test, branch(i.then()), branch(i.else_())));
+            }
+
+            case Node.WhileStmt w -> {
+                if (containsAwait(w.test())) loop(w.test(), null, w.body(), true, out);
+                else out.add(new Node.WhileStmt(w.test(), branch(w.body())));
+            }
+
+            case Node.DoWhileStmt d -> {
+                if (containsAwait(d.test())) loop(d.test(), null, d.body(), false, out);
+                else out.add(new Node.DoWhileStmt(branch(d.body()), d.test()));
+            }
+
+            case Node.ForStmt f -> {
+                if (!containsAwait(f.init()) && !containsAwait(f.test()) && !containsAwait(f.update())) {
+                    out.add(new Node.ForStmt(f.init(), f.test(), f.update(), branch(f.body())));
+                    return;
+                }
+                // for (init; ...) → { init; döngü } — init'in scope'u bloğa taşınır
+                List<Node> scope = new ArrayList<>();
+                if (f.init() != null)
+                    statement(f.init() instanceof Node.VarDecl ? f.init() : new Node.ExprStmt(f.init()), scope);
+                if (containsAwait(f.test()) || containsAwait(f.update())) loop(f.test(), f.update(), f.body(), true, scope);
+                else scope.add(new Node.ForStmt(null, f.test(), f.update(), branch(f.body())));
+                out.add(new Node.Block(scope));
+            }
+
+            case Node.ForInStmt f -> {
+                Node obj = expr(f.obj(), out);
+                out.add(new Node.ForInStmt(f.kind(), f.var(), obj, branch(f.body()), f.isOf()));
+            }
+
+            case Node.TryStmt t ->
+                    out.add(new Node.TryStmt(branch(t.body()), t.catchVar(), branch(t.catchBody()), branch(t.finallyBody())));
+
+            case Node.SwitchStmt w -> {
+                Node disc = expr(w.disc(), out);
+                List<Node.SwitchStmt.SwitchCase> cases = new ArrayList<>(w.cases().size());
+                for (Node.SwitchStmt.SwitchCase c : w.cases()) {
+                    if (containsAwait(c.test()))
+                        throw new JsError("await, switch case ifadesinde kullanılamaz");
+                    List<Node> body = new ArrayList<>(c.body().size());
+                    for (Node stmt : c.body()) statement(stmt, body);
+                    cases.add(new Node.SwitchStmt.SwitchCase(c.test(), body));
+                }
+                out.add(new Node.SwitchStmt(disc, cases));
+            }
+
+            default -> out.add(s);
+        }
+    }
+
+    /**
+     * Koşulu / güncellemesi await içeren döngü:
+     *   var $first = true;
+     *   while (true) {
+     *     if (!$first) { update; [do-while: koşul] }
+     *     $first = false;
+     *     [while / for: koşul]
+     *     body
+     *   }
+     * Koşul: {@code var $t = ...; if (!$t) break;}
+     */
+    private void loop(Node test, Node update, Node body, boolean testFirst, List<Node> out) {
+        List<Node> again = new ArrayList<>();
+        if (update != null) statement(new Node.ExprStmt(update), again);
+
+        List<Node> check = new ArrayList<>();
+        if (test != null) {
+            Node t = expr(test, check);
+            check.add(new Node.IfStmt(new Node.Unary("!", t, true), new Node.BreakStmt(null), null));
+        }
+        if (!testFirst) {
+            again.addAll(check);
+            check.clear();
+        }
+
+        List<Node> iteration = new ArrayList<>();
+        if (!again.isEmpty()) {
+            String first = temp();
+            out.add(declare(first, new Node.Lit(Boolean.TRUE)));
+            iteration.add(new Node.IfStmt(new Node.Unary("!", new Node.Ident(first), true), new Node.Block(again), null));
+            iteration.add(new Node.ExprStmt(new Node.Assign(new Node.Ident(first), null, new Node.Lit(Boolean.FALSE))));
+        }
+        iteration.addAll(check);
+        if (body instanceof Node.Block b) for (Node s : b.body()) statement(s, iteration);
+        else statement(body, iteration);
+
+        out.add(new Node.WhileStmt(new Node.Lit(Boolean.TRUE), new Node.Block(iteration)));
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Expressions
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * e'yi await içermeyen bir ifadeye çevirir; await'ler ve onlardan önce
+     * değerlendirilmesi gereken kısımlar pre'ye ifade olarak eklenir.
+     */
+    private Node expr(Node e, List<Node> pre) {
+        if (e == null || !containsAwait(e)) return e;
+        return switch (e) {
+            case Node.Await a -> {
+                Node arg = expr(a.arg(), pre);
+                String t = temp();
+                pre.add(declare(t, new Node.Await(arg)));
+                yield new Node.Ident(t);
+            }
+
+            case Node.Binary b -> {
+                List<Node> ops = operands(List.of(b.left(), b.right()), pre);
+                yield new Node.Binary(b.op(), ops.get(0), ops.get(1));
+            }
+
+            case Node.Logical l -> {
+                Node left = expr(l.left(), pre);
+                if (!containsAwait(l.right())) yield new Node.Logical(l.op(), left, l.right());
+                // a && await b  →  var $t = a; if ($t) { $t = await b; }
+                String t = temp();
+                pre.add(declare(t, left));
+                Node cond = switch (l.op()) {
+                    case "&&" -> new Node.Ident(t);
+                    case "||" -> new Node.Unary("!", new Node.Ident(t), true);
+                    default   -> new Node.Binary(Node.Op.EQ, new Node.Ident(t), new Node.Lit(null)); // ??
+                };
+                pre.add(new Node.IfStmt(cond, assignTo(t, l.right()), null));
+                yield new Node.Ident(t);
+            }
+
+            case Node.Ternary t -> {
+                Node test = expr(t.test(), pre);
+                if (!containsAwait(t.then()) && !containsAwait(t.else_()))
+                    yield new Node.Ternary(test, t.then(), t.else_());
+                String r = temp();
+                pre.add(declare(r, null));
+                pre.add(new Node.IfStmt(test, assignTo(r, t.then()), assignTo(r, t.else_())));
+                yield new Node.Ident(r);
+            }
+
+            case Node.Assign a -> {
+                Node target = containsAwait(a.target()) ? target(a.target(), pre) : a.target();
+                yield new Node.Assign(target, a.op(), expr(a.value(), pre));
+            }
+
+            case Node.Update u -> new Node.Update(u.op(), target(u.operand(), pre), u.prefix());
+            case Node.Unary u  -> new Node.Unary(u.op(), expr(u.operand(), pre), u.prefix());
+            case Node.Member m -> new Node.Member(expr(m.obj(), pre), m.prop());
+
+            case Node.Index i -> {
+                List<Node> ops = operands(List.of(i.obj(), i.key()), pre);
+                yield new Node.Index(ops.get(0), ops.get(1));
+            }
+
+            case Node.Call c -> {
+                Node callee = callee(c.callee(), c.args(), pre);
+                yield new Node.Call(callee, operands(c.args(), pre));
+            }
+
+            case Node.New_ n -> {
+                Node callee = callee(n.callee(), n.args(), pre);
+                yield new Node.New_(callee, operands(n.args(), pre));
+            }
+
+            case Node.ArrayLit a -> new Node.ArrayLit(operands(a.elements(), pre));
+
+            case Node.ObjLit o -> {
+                List<Node> values = new ArrayList<>(o.props().size());
+                for (Node.ObjLit.ObjProp p : o.props()) values.add(p.value());
+                values = operands(values, pre);
+                List<Node.ObjLit.ObjProp> props = new ArrayList<>(values.size());
+                for (int i = 0; i < values.size(); i++) {
+                    Node.ObjLit.ObjProp p = o.props().get(i);
+                    props.add(new Node.ObjLit.ObjProp(p.key(), values.get(i), p.computed()));
+                }
+                yield new Node.ObjLit(props);
+            }
+
+            case Node.Template t -> new Node.Template(t.quasis(), operands(t.exprs(), pre));
+            case Node.Spread s   -> new Node.Spread(expr(s.expr(), pre));
+
+            default -> throw new JsError("await bu ifadede kullanılamaz: " + e.getClass().getSimpleName());
+        };
+    }
+
+    /**
+     * Sırayla değerlendirilen ifade listesi (argümanlar, operandlar...): son
+     * await'li elemandan öncekiler geçici değişkene alınır ki await'ten önce
+     * değerlendirilsinler.
+     */
+    private List<Node> operands(List<Node> items, List<Node> pre) {
+        int last = -1;
+        for (int i = 0; i < items.size(); i++) if (containsAwait(items.get(i))) last = i;
+        if (last < 0) return items;
+
+        List<Node> out = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Node item = items.get(i);
+            if (i > last) out.add(item);
+            else if (i == last) out.add(expr(item, pre));
+            else if (item instanceof Node.Spread s) out.add(new Node.Spread(spill(expr(s.expr(), pre), pre)));
+            else out.add(spill(expr(item, pre), pre));
+        }
+        return out;
+    }
+
+    /** Argümanlarda await varsa çağrılan ifade önce değerlendirilir ('this' nesnesi korunur) */
+    private Node callee(Node callee, List<Node> args, List<Node> pre) {
+        boolean argsAwait = false;
+        for (Node a : args) argsAwait |= containsAwait(a);
+        if (!argsAwait) return expr(callee, pre);
+        return switch (callee) {
+            case Node.Member m -> new Node.Member(spill(expr(m.obj(), pre), pre), m.prop());
+            case Node.Index i  -> {
+                Node obj = spill(expr(i.obj(), pre), pre);
+                yield new Node.Index(obj, spill(expr(i.key(), pre), pre));
+            }
+            default -> spill(expr(callee, pre), pre);
+        };
+    }
+
+    /** Atama hedefi: nesne ve anahtar await'ten önce sabitlenir */
+    private Node target(Node n, List<Node> pre) {
+        return switch (n) {
+            case Node.Member m -> new Node.Member(spill(expr(m.obj(), pre), pre), m.prop());
+            case Node.Index i  -> {
+                Node obj = spill(expr(i.obj(), pre), pre);
+                yield new Node.Index(obj, spill(expr(i.key(), pre), pre));
+            }
+            default -> n;
+        };
+    }
+
+    /** { [pre] $t = value; } */
+    private Node.Block assignTo(String t, Node value) {
+        List<Node> body = new ArrayList<>();
+        Node v = expr(value, body);
+        body.add(new Node.ExprStmt(new Node.Assign(new Node.Ident(t), null, v)));
+        return new Node.Block(body);
+    }
+
+    /** Değeri şimdi değerlendirip geçici değişkene bağlar (sabitler ve temp'ler hariç) */
+    private Node spill(Node value, List<Node> pre) {
+        if (value instanceof Node.Lit || value instanceof Node.FuncExpr || value instanceof Node.ArrowFunc) return value;
+        if (value instanceof Node.Ident id && id.name().startsWith(TEMP_PREFIX)) return value;
+        String t = temp();
+        pre.add(declare(t, value));
+        return new Node.Ident(t);
+    }
+
+    private String temp() { return TEMP_PREFIX + temps++; }
+
+    private static Node.VarDecl declare(String name, Node init) {
+        return new Node.VarDecl("var", List.of(new Node.VarDecl.Declarator(name, init)));
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Analysis
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Bir await'e giden yol üzerindeki ifadeleri toplar (Node.AsyncBody için).
+     * İç fonksiyonlara girilmez — onların await'leri kendi gövdelerine aittir.
+     */
+    static void collectSuspending(Node s, Set<Node> out) {
+        if (s == null || !containsAwait(s)) return;
+        out.add(s);
+        switch (s) {
+            case Node.Block b       -> b.body().forEach(c -> collectSuspending(c, out));
+            case Node.IfStmt i      -> { collectSuspending(i.then(), out); collectSuspending(i.else_(), out); }
+            case Node.WhileStmt w   -> collectSuspending(w.body(), out);
+            case Node.DoWhileStmt d -> collectSuspending(d.body(), out);
+            case Node.ForStmt f     -> collectSuspending(f.body(), out);
+            case Node.ForInStmt f   -> collectSuspending(f.body(), out);
+            case Node.TryStmt t     -> { collectSuspending(t.body(), out); collectSuspending(t.catchBody(), out); collectSuspending(t.finallyBody(), out); }
+            case Node.SwitchStmt w  -> w.cases().forEach(c -> c.body().forEach(b -> collectSuspending(b, out)));
+            default -> { }
+        }
+    }
+
+    /** Düğüm (iç fonksiyonlar hariç) bir await içeriyor mu */
+    static boolean containsAwait(Node n) {
+        if (n == null) return false;
+        return switch (n) {
+            case Node.Await a       -> true;
+            case Node.AsyncBody b   -> false;
+            case Node.FuncDecl f    -> false;
+            case Node.FuncExpr f    -> false;
+            case Node.ArrowFunc a   -> false;
+            case Node.Lit l         -> false;
+            case Node.Ident id      -> false;
+            case Node.BreakStmt b   -> false;
+            case Node.ContinueStmt c -> false;
+            case Node.Program p     -> any(p.body());
+            case Node.Block b       -> any(b.body());
+            case Node.ExprStmt s    -> containsAwait(s.expr());
+            case Node.VarDecl d     -> d.decls().stream().anyMatch(x -> containsAwait(x.init()));
+            case Node.IfStmt i      -> containsAwait(i.test()) || containsAwait(i.then()) || containsAwait(i.else_());
+            case Node.WhileStmt w   -> containsAwait(w.test()) || containsAwait(w.body());
+            case Node.DoWhileStmt d -> containsAwait(d.body()) || containsAwait(d.test());
+            case Node.ForStmt f     -> containsAwait(f.init()) || containsAwait(f.test()) || containsAwait(f.update()) || containsAwait(f.body());
+            case Node.ForInStmt f   -> containsAwait(f.obj()) || containsAwait(f.body());
+            case Node.ReturnStmt r  -> containsAwait(r.value());
+            case Node.ThrowStmt t   -> containsAwait(t.value());
+            case Node.TryStmt t     -> containsAwait(t.body()) || containsAwait(t.catchBody()) || containsAwait(t.finallyBody());
+            case Node.SwitchStmt s  -> containsAwait(s.disc())
+                    || s.cases().stream().anyMatch(c -> containsAwait(c.test()) || any(c.body()));
+            case Node.Assign a      -> containsAwait(a.target()) || containsAwait(a.value());
+            case Node.Binary b      -> containsAwait(b.left()) || containsAwait(b.right());
+            case Node.Logical l     -> containsAwait(l.left()) || containsAwait(l.right());
+            case Node.Unary u       -> containsAwait(u.operand());
+            case Node.Update u      -> containsAwait(u.operand());
+            case Node.Ternary t     -> containsAwait(t.test()) || containsAwait(t.then()) || containsAwait(t.else_());
+            case Node.Call c        -> containsAwait(c.callee()) || any(c.args());
+            case Node.Member m      -> containsAwait(m.obj());
+            case Node.Index i       -> containsAwait(i.obj()) || containsAwait(i.key());
+            case Node.New_ nw       -> containsAwait(nw.callee()) || any(nw.args());
+            case Node.ArrayLit a    -> any(a.elements());
+            case Node.ObjLit o      -> o.props().stream().anyMatch(p -> containsAwait(p.value()));
+            case Node.Spread s      -> containsAwait(s.expr());
+            case Node.Template t    -> any(t.exprs());
+        };
+    }
+
+    private static boolean any(List<Node> nodes) {
+        for (Node n : nodes) if (containsAwait(n)) return true;
+        return false;
+    }
+}
@@ -0,0 +1,340 @@
+package dev.nanoscript.jsengine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tek bir async fonksiyon çağrısının askıya alınabilir yürütmesi.
+ *
+ * Interpreter özyinelemeli çalışır; bir await'te Java çağrı yığınını
+ * bırakıp sonra kaldığı yerden devam edemez. Bu yüzden await yolu
+ * üzerindeki ifadeler (AsyncBody.suspending) burada açık bir çerçeve
+ * yığınıyla yürütülür: blok → sıradaki ifade indeksi, döngü → koşul /
+ * güncelleme, try → hangi bölümde olunduğu. Yol dışındaki ifadeler
+ * Interpreter'a tek seferde verilir, yani await içermeyen kod her zamanki
+ * hızında çalışır.
+ *
+ * Gövde ilk await'e kadar senkron çalışır; await edilen promise
+ * tamamlanınca devam bir microtask olarak çalışır. Return / throw / break /
+ * continue Interpreter'daki sinyallerle aynı şekilde yakalanıp çerçeveler
+ * boyunca çözülür; sonuç çağırana dönen promise'i tamamlar.
+ */
+final class Coroutine {
+
+    private final Interpreter interpreter;
+    private final Node.AsyncBody fn;
+    private final JSPromise result;
+    private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+
+    // Askıdaki "var x = await ..." — devamda x bu scope'ta tanımlanır
+    private String awaitName;
+    private Environment awaitEnv;
+
+    Coroutine(Interpreter interpreter, Node.AsyncBody fn, Environment funcEnv, JSPromise result) {
+        this.interpreter = interpreter;
+        this.fn          = fn;
+        this.result      = result;
+        // Fonksiyon gövdesi yeni scope açmaz (Interpreter.executeBody ile aynı)
+        interpreter.hoistFunctions(fn.body().hoisted(), funcEnv);
+        stack.push(new BlockFrame(fn.body().body(), funcEnv));
+    }
+
+    void start() {
+        run(null);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Run loop
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Yığın boşalana veya bir await'te askıya alınana kadar ilerler */
+    private void run(RuntimeException abrupt) {
+        while (true) {
+            try {
+                if (abrupt != null) {
+                    RuntimeException a = abrupt;
+                    abrupt = null;
+                    if (!unwind(a)) { complete(a); return; }
+                }
+                Frame top = stack.peek();
+                if (top == null) { result.resolve(JSValue.UNDEFINED); return; }
+                interpreter.safepoint();
+                if (!top.step()) return; // await: devam promise'e bağlandı
+            } catch (Watchdog.WatchdogError e) {
+                throw e;   // catch/finally çerçeveleri açılmaz, promise reddedilmez
+            } catch (RuntimeException e) {
+                abrupt = e;
+            }
+        }
+    }
+
+    /** Kesintiyi karşılayan çerçeveye kadar yığını açar; kimse karşılamazsa false */
+    private boolean unwind(RuntimeException abrupt) {
+        while (!stack.isEmpty()) {
+            if (stack.peek().handle(abrupt)) return true;
+            stack.pop();
+        }
+        return false;
+    }
+
+    private void complete(RuntimeException abrupt) {
+        if (abrupt instanceof ReturnSignal r) result.resolve(r.value);
+        else result.reject(JSPromise.reason(abrupt));
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Statements
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * İfadeye girer: await yolu üzerindeyse çerçeve açar, değilse tek
+     * seferde çalıştırır.
+     * @return askıya alındıysa false
+     */
+    private boolean enter(Node s, Environment env) {
+        if (s == null) return true;
+        if (!fn.suspending().contains(s)) {
+            interpreter.executeNode(s, env);
+            return true;
+        }
+        // AwaitLowering sonrası await yalnızca bu iki biçimde bulunur
+        if (s instanceof Node.ExprStmt e && e.expr() instanceof Node.Await a)
+            return await(a.arg(), null, env);
+        if (s instanceof Node.VarDecl d && d.decls().get(0).init() instanceof Node.Await a)
+            return await(a.arg(), d.decls().get(0).name(), env);
+
+        switch (s) {
+            case Node.Block b -> {
+                Environment blockEnv = b.scoped() ? new Environment(env) : env;
+                interpreter.hoistFunctions(b.hoisted(), blockEnv);
+                stack.push(new BlockFrame(b.body(), blockEnv));
+            }
+            case Node.IfStmt i -> {
+                return enter(interpreter.evalExpr(i.test(), env).asBoolean() ? i.then() : i.else_(), env);
+            }
+            case Node.WhileStmt w    -> stack.push(new WhileFrame(w, env));
+            case Node.DoWhileStmt d  -> stack.push(new DoWhileFrame(d, env));
+            case Node.ForStmt f      -> stack.push(new ForFrame(f, env));
+            case Node.ForInStmt f    -> stack.push(new ForInFrame(f, env));
+            case Node.TryStmt t      -> stack.push(new TryFrame(t, env));
+            case Node.SwitchStmt w   -> stack.push(new SwitchFrame(w, env));
+            default -> throw new JsError("await burada desteklenmiyor: " + s.getClass().getSimpleName());
+        }
+        return true;
+    }
+
+    /** await arg — promise'e abone olur ve askıya alır */
+    private boolean await(Node arg, String name, Environment env) {
+        JSPromise awaited = JSPromise.from(interpreter.getEventLoop(), interpreter.evalExpr(arg, env));
+        awaitName = name;
+        awaitEnv  = env;
+        awaited.subscribe(this::resume, reason -> run(new ThrowSignal(reason)));
+        return false;
+    }
+
+    private void resume(JSValue value) {
+        if (awaitName != null) awaitEnv.define(awaitName, value);
+        awaitName = null;
+        awaitEnv  = null;
+        run(null);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Frames
+    // ──────────────────────────────────────────────────────────────────
+
+    private abstract static class Frame {
+        /** Bir adım ilerler (bitince kendini yığından çıkarır); askıya alındıysa false */
+        abstract boolean step();
+
+        /** Kesintiyi (return / break / continue / throw) bu çerçeve karşılıyor mu */
+        boolean handle(RuntimeException abrupt) { return false; }
+    }
+
+    private final class BlockFrame extends Frame {
+        private final List<Node> body;
+        private final Environment env;
+        private int pc = 0;
+
+        BlockFrame(List<Node> body, Environment env) {
+            this.body = body;
+            this.env  = env;
+        }
+
+        @Override boolean step() {
+            if (pc >= body.size()) { stack.pop(); return true; }
+            return enter(body.get(pc++), env);
+        }
+    }
+
+    /** Döngü çerçeveleri için ortak break / continue davranışı */
+    private abstract class LoopFrame extends Frame {
+        @Override boolean handle(RuntimeException abrupt) {
+            if (abrupt instanceof BreakSignal) { stack.pop(); return true; }
+            return abrupt instanceof ContinueSignal; // sonraki step koşula döner
+        }
+    }
+
+    private final class WhileFrame extends LoopFrame {
+        private final Node.WhileStmt w;
+        private final Environment env;
+
+        WhileFrame(Node.WhileStmt w, Environment env) {
+            this.w   = w;
+            this.env = env;
+        }
+
+        @Override boolean step() {
+            if (!interpreter.evalExpr(w.test(), env).asBoolean()) { stack.pop(); return true; }
+            return enter(w.body(), env);
+        }
+    }
+
+    private final class DoWhileFrame extends LoopFrame {
+        private final Node.DoWhileStmt d;
+        private final Environment env;
+        private boolean started = false;
+
+        DoWhileFrame(Node.DoWhileStmt d, Environment env) {
+            this.d   = d;
+            this.env = env;
+        }
+
+        @Override boolean step() {
+            if (started && !interpreter.evalExpr(d.test(), env).asBoolean()) { stack.pop(); return true; }
+            started = true;
+            return enter(d.body(), env);
+        }
+    }
+
+    private final class ForFrame extends LoopFrame {
+        private final Node.ForStmt f;
+        private final Environment env;
+        private boolean started = false;
+
+        ForFrame(Node.ForStmt f, Environment outer) {
+            this.f   = f;
+            this.env = f.init() instanceof Node.VarDecl ? new Environment(outer) : outer;
+            if (f.init() != null) interpreter.executeNode(f.init(), env);
+        }
+
+        @Override boolean step() {
+            if (started && f.update() != null) interpreter.evalExpr(f.update(), env);
+            started = true;
+            if (f.test() != null && !interpreter.evalExpr(f.test(), env).asBoolean()) { stack.pop(); return true; }
+            return enter(f.body(), env);
+        }
+    }
+
+    private final class ForInFrame extends LoopFrame {
+        private final Node.ForInStmt f;
+        private final Environment env;
+        /** Başlangıçtaki değerler / anahtarlar — gövde await ederken koleksiyon değişebilir */
+        private final List<JSValue> items = new ArrayList<>();
+        private int index = 0;
+
+        ForInFrame(Node.ForInStmt f, Environment outer) {
+            this.f = f;
+            JSValue obj = interpreter.evalExpr(f.obj(), outer);
+            if (f.isOf()) {
+                if (obj.isArray()) items.addAll(obj.asArray().elements());
+                else if (obj.isString()) for (char ch : obj.asString().toCharArray()) items.add(JSValue.of(String.valueOf(ch)));
+            } else if (obj.isObject() && obj.asObject() != null) {
+                for (String key : obj.asObject().ownKeys()) items.add(JSValue.of(key));
+            }
+            this.env = new Environment(outer);
+            env.define(f.var(), JSValue.UNDEFINED);
+        }
+
+        @Override boolean step() {
+            if (index >= items.size()) { stack.pop(); return true; }
+            env.set(f.var(), items.get(index++));
+            return enter(f.body(), env);
+        }
+    }
+
+    private final class TryFrame extends Frame {
+        private static final int BODY = 0, CATCH = 1, FINALLY = 2;
+
+        private final Node.TryStmt t;
+        private final Environment env;
+        private int phase = BODY;
+        private boolean entered = false;
+        private JSValue caught;
+        /** finally bitince devam edecek kesinti (return / throw ...) */
+        private RuntimeException pending;
+
+        TryFrame(Node.TryStmt t, Environment env) {
+            this.t   = t;
+            this.env = env;
+        }
+
+        @Override boolean step() {
+            if (!entered) {
+                entered = true;
+                return switch (phase) {
+                    case BODY  -> enter(t.body(), env);
+                    case CATCH -> enter(t.catchBody(), catchEnv());
+                    default    -> enter(t.finallyBody(), env);
+                };
+            }
+            // Bölüm normal bitti
+            if (phase != FINALLY && t.finallyBody() != null) {
+                phase = FINALLY;
+                entered = false;
+                return true;
+            }
+            stack.pop();
+            if (pending != null) throw pending;
+            return true;
+        }
+
+        @Override boolean handle(RuntimeException abrupt) {
+            if (phase == BODY && abrupt instanceof ThrowSignal thrown && t.catchBody() != null) {
+                phase = CATCH;
+                entered = false;
+                caught = thrown.value;
+                return true;
+            }
+            if (phase != FINALLY && t.finallyBody() != null) {
+                phase = FINALLY;
+                entered = false;
+                pending = abrupt;
+                return true;
+            }
+            return false;
+        }
+
+        private Environment catchEnv() {
+            if (t.catchVar() == null) return env;
+            Environment catchEnv = new Environment(env);
+            catchEnv.define(t.catchVar(), caught);
+            return catchEnv;
+        }
+    }
+
+    private final class SwitchFrame extends Frame {
+        private final List<Node> body = new ArrayList<>();
+        private final Environment env;
+        private int pc = 0;
+
+        SwitchFrame(Node.SwitchStmt s, Environment env) {
+            this.env = env;
+            int start = interpreter.switchTarget(s, interpreter.evalExpr(s.disc(), env), env);
+            // Eşleşen case'ten itibaren fall-through: gövdeler tek listede
+            for (int i = Math.max(start, 0); start >= 0 && i < s.cases().size(); i++)
+                body.addAll(s.cases().get(i).body());
+        }
+
+        @Override boolean step() {
+            if (pc >= body.size()) { stack.pop(); return true; }
+            return enter(body.get(pc++), env);
+        }
+
+        @Override boolean handle(RuntimeException abrupt) {
+            if (abrupt instanceof BreakSignal) { stack.pop(); return true; }
+            return false;
+        }
+    }
+}
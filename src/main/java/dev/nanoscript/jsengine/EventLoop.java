@@ -0,0 +1,129 @@
+package dev.nanoscript.jsengine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Motor başına olay döngüsü: microtask kuyruğu + tick tabanlı zamanlayıcılar.
+ *
+ * Promise callback'leri ve await devamları microtask olarak sıraya girer;
+ * NanoEngine her dış çağrının (execute / call) sonunda kuyruğu boşaltır.
+ * Zamanlayıcılar (server.sleep) sunucu tick'i ile ilerler: tick() plugin'in
+ * tek per-tick görevinden çağrılır, her await adımı için ayrı BukkitTask açılmaz.
+ *
+ * Thread-safe değildir; yalnızca motorun kendi thread'inden kullanılır.
+ */
+public class EventLoop {
+
+    /** Tek boşaltmada çalışacak en fazla microtask — sonsuz then zinciri tick'i kilitlemesin */
+    private static final int MAX_MICROTASKS_PER_DRAIN = 100_000;
+
+    private record Timer(long due, long seq, Runnable task) implements Comparable<Timer> {
+        @Override
+        public int compareTo(Timer o) {
+            return due != o.due ? Long.compare(due, o.due) : Long.compare(seq, o.seq);
+        }
+    }
+
+    private final ArrayDeque<Runnable> microtasks = new ArrayDeque<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    /** Handler'sız reddedilen promise'ler — boşaltma sonunda hâlâ handler'sızsa raporlanır */
+    private final List<JSPromise> rejections = new ArrayList<>();
+
+    private long currentTick = 0;
+    private long timerSeq = 0;
+    private boolean draining = false;
+
+    private Consumer<String> errorSink = msg -> System.err.println("[ERR] " + msg);
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Scheduling
+    // ──────────────────────────────────────────────────────────────────
+
+    public void queueMicrotask(Runnable task) {
+        microtasks.add(task);
+    }
+
+    /**
+     * task'ı en az 1 tick sonra çalıştırır.
+     * @return clearTimeout için zamanlayıcı kimliği
+     */
+    public long setTimeout(long ticks, Runnable task) {
+        long id = ++timerSeq;
+        timers.add(new Timer(currentTick + Math.max(1, ticks), id, task));
+        return id;
+    }
+
+    public void clearTimeout(long id) {
+        timers.removeIf(t -> t.seq() == id);
+    }
+
+    void trackRejection(JSPromise promise) {
+        rejections.add(promise);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Driving
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Kuyruk boşalana kadar (veya limit dolana kadar) microtask çalıştırır.
+     * Fatal bütçe aşımında boşaltma durur ve hata çağırana (NanoEngine) geçer.
+     */
+    public void runMicrotasks() {
+        if (draining) return; // iç içe çağrı: dıştaki boşaltma devam ediyor
+        draining = true;
+        try {
+            for (int n = 0; n < MAX_MICROTASKS_PER_DRAIN; n++) {
+                Runnable task = microtasks.poll();
+                if (task == null) break;
+                try { task.run(); }
+                catch (Watchdog.WatchdogError e) { throw e; }
+                catch (RuntimeException e) { errorSink.accept("Microtask hatası: " + describe(e)); }
+            }
+        } finally {
+            draining = false;
+        }
+        reportRejections();
+    }
+
+    /** Bir tick ilerler: zamanı gelen zamanlayıcılar ve ardından microtask'lar */
+    public void tick() {
+        currentTick++;
+        while (!timers.isEmpty() && timers.peek().due() <= currentTick) {
+            Runnable task = timers.poll().task();
+            try { task.run(); }
+            catch (Watchdog.WatchdogError e) { throw e; }
+            catch (RuntimeException e) { errorSink.accept("Zamanlayıcı hatası: " + describe(e)); }
+            runMicrotasks();
+        }
+        runMicrotasks();
+    }
+
+    private void reportRejections() {
+        if (rejections.isEmpty()) return;
+        for (JSPromise p : rejections) {
+            if (!p.isHandled()) errorSink.accept("Yakalanmamış promise reddi: " + p.getResult().asString());
+        }
+        rejections.clear();
+    }
+
+    private static String describe(RuntimeException e) {
+        if (e instanceof ThrowSignal t) return t.value.asString();
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Status
+    // ──────────────────────────────────────────────────────────────────
+
+    public void setErrorSink(Consumer<String> sink) { this.errorSink = sink; }
+
+    public boolean isIdle()           { return microtasks.isEmpty() && timers.isEmpty(); }
+    public int getPendingMicrotasks() { return microtasks.size(); }
+    public int getPendingTimers()     { return timers.size(); }
+    public long getCurrentTick()      { return currentTick; }
+}
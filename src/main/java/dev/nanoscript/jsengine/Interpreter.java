@@ -16,13 +16,30 @@ import java.util.List;
 public class Interpreter {
 
     private final Environment globalEnv;
+    private final EventLoop eventLoop = new EventLoop();
+
+    /** CPU bekçisi (null = sınırsız) ve bir sonraki saat kontrolüne kalan safepoint */
+    private Watchdog watchdog;
+    private int fuel = Watchdog.POLL_INTERVAL;
 
     public Interpreter() {
         this.globalEnv = new Environment(null);
         JSBuiltins.install(globalEnv);
+        JSBuiltins.installPromise(globalEnv, eventLoop);
     }
 
     public Environment getGlobalEnv() { return globalEnv; }
+    public EventLoop getEventLoop()   { return eventLoop; }
+
+    public void setWatchdog(Watchdog watchdog) { this.watchdog = watchdog; }
+    public Watchdog getWatchdog()              { return watchdog; }
+
+    /** Döngü geri dönüşü / fonksiyon girişi: sayaç azalır, arada bir bekçi saate bakar */
+    void safepoint() {
+        if (--fuel > 0) return;
+        fuel = Watchdog.POLL_INTERVAL;
+        if (watchdog != null) watchdog.check();
+    }
 
     // ──────────────────────────────────────────────────────────────────
     //  Entry points
@@ -34,7 +51,7 @@ public class Interpreter {
 
     public JSValue execute(Node.Program program, Environment env) {
         // First pass: hoist function declarations
-        hoistFunctions(program.body(), env);
+        hoistFunctions(Node.Block.functionsOf(program.body()), env);
         JSValue last = JSValue.UNDEFINED;
         for (Node stmt : program.body()) {
             last = executeNode(stmt, env);
@@ -53,8 +70,9 @@ public class Interpreter {
             case Node.Program p -> execute(p, env);
 
             case Node.Block b -> {
-                Environment blockEnv = new Environment(env);
-                hoistFunctions(b.body(), blockEnv);
+                // Bildirim içermeyen blok çevreleyen scope'u kullanır
+                Environment blockEnv = b.scoped() ? new Environment(env) : env;
+                hoistFunctions(b.hoisted(), blockEnv);
                 JSValue result = JSValue.UNDEFINED;
                 for (Node s : b.body()) result = executeNode(s, blockEnv);
                 yield result;
@@ -86,6 +104,7 @@ public class Interpreter {
 
             case Node.WhileStmt w -> {
                 while (evalExpr(w.test(), env).asBoolean()) {
+                    safepoint();
                     try { executeNode(w.body(), env); }
                     catch (BreakSignal b) { break; }
                     catch (ContinueSignal c) { /* continue */ }
@@ -95,6 +114,7 @@ public class Interpreter {
 
             case Node.DoWhileStmt d -> {
                 do {
+                    safepoint();
                     try { executeNode(d.body(), env); }
                     catch (BreakSignal b) { break; }
                     catch (ContinueSignal c) { /* continue */ }
@@ -103,10 +123,12 @@ public class Interpreter {
             }
 
             case Node.ForStmt f -> {
-                Environment forEnv = new Environment(env);
+                // Yalnızca init bir bildirimse (for (let i = ...)) ayrı scope gerekir
+                Environment forEnv = f.init() instanceof Node.VarDecl ? new Environment(env) : env;
                 if (f.init() != null) executeNode(f.init(), forEnv);
                 outer:
                 while (f.test() == null || evalExpr(f.test(), forEnv).asBoolean()) {
+                    safepoint();
                     try { executeNode(f.body(), forEnv); }
                     catch (BreakSignal b) { break; }
                     catch (ContinueSignal c) { /* continue to update */ }
@@ -124,6 +146,7 @@ public class Interpreter {
                     if (obj.isArray()) {
                         for (JSValue val : obj.asArray().elements()) {
                             forEnv.set(f.var(), val);
+                            safepoint();
                             try { executeNode(f.body(), forEnv); }
                             catch (BreakSignal b) { break; }
                             catch (ContinueSignal c) { /* continue */ }
@@ -131,6 +154,7 @@ public class Interpreter {
                     } else if (obj.isString()) {
                         for (char ch : obj.asString().toCharArray()) {
                             forEnv.set(f.var(), JSValue.of(String.valueOf(ch)));
+                            safepoint();
                             try { executeNode(f.body(), forEnv); }
                             catch (BreakSignal b) { break; }
                             catch (ContinueSignal c) { /* continue */ }
@@ -141,6 +165,7 @@ public class Interpreter {
                     if (obj.isObject()) {
                         for (String key : obj.asObject().ownKeys()) {
                             forEnv.set(f.var(), JSValue.of(key));
+                            safepoint();
                             try { executeNode(f.body(), forEnv); }
                             catch (BreakSignal b) { break; }
                             catch (ContinueSignal c) { /* continue */ }
@@ -162,43 +187,44 @@ public class Interpreter {
             }
 
             case Node.TryStmt t -> {
+                boolean aborted = false;
                 try {
-                    executeNode(t.body(), env);
-                } catch (ThrowSignal thrown) {
-                    if (t.catchBody() != null) {
-                        Environment catchEnv = new Environment(env);
-                        if (t.catchVar() != null) catchEnv.define(t.catchVar(), thrown.value);
-                        try { executeNode(t.catchBody(), catchEnv); }
-                        catch (ReturnSignal | BreakSignal | ContinueSignal sig) {
-                            if (t.finallyBody() != null) executeNode(t.finallyBody(), env);
-                            throw sig;
+                    try {
+                        executeNode(t.body(), env);
+                    } catch (ThrowSignal thrown) {
+                        if (t.catchBody() != null) {
+                            Environment catchEnv = env;
+                            if (t.catchVar() != null) {
+                                catchEnv = new Environment(env);
+                                catchEnv.define(t.catchVar(), thrown.value);
+                            }
+                            try { executeNode(t.catchBody(), catchEnv); }
+                            catch (ReturnSignal | BreakSignal | ContinueSignal sig) {
+                                if (t.finallyBody() != null) executeNode(t.finallyBody(), env);
+                                throw sig;
+                            }
                         }
+                    } catch (ReturnSignal | BreakSignal | ContinueSignal sig) {
+                        if (t.finallyBody() != null) executeNode(t.finallyBody(), env);
+                        throw sig;
                     }
-                } catch (ReturnSignal | BreakSignal | ContinueSignal sig) {
-                    if (t.finallyBody() != null) executeNode(t.finallyBody(), env);
-                    throw sig;
+                } catch (Watchdog.WatchdogError e) {
+                    aborted = true;   // fatal bütçe aşımı: finally de çalışmaz
+                    throw e;
                 } finally {
-                    if (t.finallyBody() != null) executeNode(t.finallyBody(), env);
+                    if (!aborted && t.finallyBody() != null) executeNode(t.finallyBody(), env);
                 }
                 yield JSValue.UNDEFINED;
             }
 
             case Node.SwitchStmt s -> {
                 JSValue disc = evalExpr(s.disc(), env);
-                boolean matched = false;
+                int start = switchTarget(s, disc, env);
                 outer:
-                for (Node.SwitchStmt.SwitchCase c : s.cases()) {
-                    if (!matched && c.test() != null) {
-                        JSValue test = evalExpr(c.test(), env);
-                        matched = disc.strictEquals(test);
-                    } else if (c.test() == null) {
-                        matched = true; // default
-                    }
-                    if (matched) {
-                        for (Node stmt : c.body()) {
-                            try { executeNode(stmt, env); }
-                            catch (BreakSignal b) { break outer; }
-                        }
+                for (int i = start; i >= 0 && i < s.cases().size(); i++) {
+                    for (Node stmt : s.cases().get(i).body()) {
+                        try { executeNode(stmt, env); }
+                        catch (BreakSignal b) { break outer; }
                     }
                 }
                 yield JSValue.UNDEFINED;
@@ -209,6 +235,26 @@ public class Interpreter {
         };
     }
 
+    /**
+     * Eşleşen case'in indeksini bulur (yoksa default, o da yoksa -1).
+     * Literal case'ler jumpTable'dan O(1) bulunur; literal olmayan case'ler
+     * yalnızca bu eşleşmeden önce geliyorsa, sırayla değerlendirilir.
+     */
+    int switchTarget(Node.SwitchStmt s, JSValue disc, Environment env) {
+        Object key = switch (disc.getType()) {
+            case NULL -> Node.SwitchStmt.NULL_KEY;
+            case NUMBER, STRING, BOOLEAN -> disc.javaRaw();
+            default -> null;
+        };
+        Integer hit = key != null ? s.jumpTable().get(key) : null;
+        int limit = hit != null ? hit : Integer.MAX_VALUE;
+        for (int i : s.dynamicCases()) {
+            if (i > limit) break;
+            if (disc.strictEquals(evalExpr(s.cases().get(i).test(), env))) return i;
+        }
+        return hit != null ? hit : s.defaultIndex();
+    }
+
     // ──────────────────────────────────────────────────────────────────
     //  Expression evaluator
     // ──────────────────────────────────────────────────────────────────
@@ -216,20 +262,18 @@ public class Interpreter {
     public JSValue evalExpr(Node node, Environment env) {
         return switch (node) {
 
-            case Node.Lit l -> {
-                Object val = l.value();
-                if (val == null)             yield JSValue.NULL;
-                if (val instanceof Boolean b) yield JSValue.of(b);
-                if (val instanceof Double d)  yield JSValue.of(d);
-                if (val instanceof String s)  yield JSValue.of(s);
-                yield JSValue.UNDEFINED;
-            }
+            case Node.Lit l -> literal(l.value());
 
             case Node.Ident id -> env.get(id.name());
 
             case Node.Template t -> {
-                StringBuilder sb = new StringBuilder();
-                for (Node part : t.parts()) sb.append(evalExpr(part, env).asString());
+                List<String> quasis = t.quasis();
+                List<Node> exprs = t.exprs();
+                StringBuilder sb = new StringBuilder(t.sizeHint()).append(quasis.get(0));
+                for (int i = 0; i < exprs.size(); i++) {
+                    evalExpr(exprs.get(i), env).appendTo(sb);
+                    sb.append(quasis.get(i + 1));
+                }
                 yield JSValue.of(sb.toString());
             }
 
@@ -294,6 +338,9 @@ public class Interpreter {
             // Spread in other contexts
             case Node.Spread s -> evalExpr(s.expr(), env);
 
+            // AwaitLowering'den geçmiş bir async gövde dışında await kalamaz
+            case Node.Await a -> throw new JsError("await yalnızca async fonksiyon içinde kullanılabilir");
+
             default -> executeNode(node, env); // fallback to statement eval
         };
     }
@@ -306,16 +353,9 @@ public class Interpreter {
         JSValue value = evalExpr(assign.value(), env);
 
         // Compound assignment: first read current value
-        if (!assign.op().equals("=")) {
+        if (assign.op() != null) {
             JSValue current = evalExpr(assign.target(), env);
-            value = switch (assign.op()) {
-                case "+=" -> evalBinary("+", current, value);
-                case "-=" -> evalBinary("-", current, value);
-                case "*=" -> evalBinary("*", current, value);
-                case "/=" -> evalBinary("/", current, value);
-                case "%=" -> evalBinary("%", current, value);
-                default   -> value;
-            };
+            value = evalBinary(assign.op(), current, value);
         }
 
         // Write target
@@ -343,46 +383,51 @@ public class Interpreter {
     //  Binary operators
     // ──────────────────────────────────────────────────────────────────
 
-    private JSValue evalBinary(String op, JSValue left, JSValue right) {
+    /** Operatörü uygular. Yan etkisizdir; Optimizer sabit katlamada da kullanır. */
+    static JSValue evalBinary(Node.Op op, JSValue left, JSValue right) {
         return switch (op) {
-            case "+" -> {
+            case ADD -> {
                 // String concat wins over addition if either side is string
                 if (left.isString() || right.isString())
                     yield JSValue.of(left.asString() + right.asString());
                 yield JSValue.of(left.asNumber() + right.asNumber());
             }
-            case "-"  -> JSValue.of(left.asNumber() - right.asNumber());
-            case "*"  -> JSValue.of(left.asNumber() * right.asNumber());
-            case "/"  -> JSValue.of(left.asNumber() / right.asNumber());
-            case "%"  -> JSValue.of(left.asNumber() % right.asNumber());
-            case "**" -> JSValue.of(Math.pow(left.asNumber(), right.asNumber()));
-            case "<"  -> JSValue.of(left.asNumber() < right.asNumber());
-            case ">"  -> JSValue.of(left.asNumber() > right.asNumber());
-            case "<=" -> JSValue.of(left.asNumber() <= right.asNumber());
-            case ">=" -> JSValue.of(left.asNumber() >= right.asNumber());
-            case "==" , "!=" -> {
-                boolean eq = left.looseEquals(right);
-                yield JSValue.of(op.equals("==") ? eq : !eq);
-            }
-            case "===", "!==" -> {
-                boolean eq = left.strictEquals(right);
-                yield JSValue.of(op.equals("===") ? eq : !eq);
-            }
-            case "&"  -> JSValue.of((double)(left.asInt() & right.asInt()));
-            case "|"  -> JSValue.of((double)(left.asInt() | right.asInt()));
-            case "^"  -> JSValue.of((double)(left.asInt() ^ right.asInt()));
-            case "<<" -> JSValue.of((double)(left.asInt() << right.asInt()));
-            case ">>" -> JSValue.of((double)(left.asInt() >> right.asInt()));
-            case ">>>"-> JSValue.of((double)(left.asInt() >>> right.asInt()));
-            case "instanceof" -> JSValue.of(left.isJava() && right.isJava() && right.javaRaw() instanceof Class<?> cls && cls.isInstance(left.javaRaw()));
-            case "in" -> {
+            case SUB        -> JSValue.of(left.asNumber() - right.asNumber());
+            case MUL        -> JSValue.of(left.asNumber() * right.asNumber());
+            case DIV        -> JSValue.of(left.asNumber() / right.asNumber());
+            case MOD        -> JSValue.of(left.asNumber() % right.asNumber());
+            case EXP        -> JSValue.of(Math.pow(left.asNumber(), right.asNumber()));
+            case LT         -> JSValue.of(left.asNumber() < right.asNumber());
+            case GT         -> JSValue.of(left.asNumber() > right.asNumber());
+            case LTE        -> JSValue.of(left.asNumber() <= right.asNumber());
+            case GTE        -> JSValue.of(left.asNumber() >= right.asNumber());
+            case EQ         -> JSValue.of(left.looseEquals(right));
+            case NEQ        -> JSValue.of(!left.looseEquals(right));
+            case STRICT_EQ  -> JSValue.of(left.strictEquals(right));
+            case STRICT_NEQ -> JSValue.of(!left.strictEquals(right));
+            case BIT_AND    -> JSValue.of((double)(left.asInt() & right.asInt()));
+            case BIT_OR     -> JSValue.of((double)(left.asInt() | right.asInt()));
+            case BIT_XOR    -> JSValue.of((double)(left.asInt() ^ right.asInt()));
+            case LSHIFT     -> JSValue.of((double)(left.asInt() << right.asInt()));
+            case RSHIFT     -> JSValue.of((double)(left.asInt() >> right.asInt()));
+            case URSHIFT    -> JSValue.of((double)(left.asInt() >>> right.asInt()));
+            case INSTANCEOF -> JSValue.of(left.isJava() && right.isJava() && right.javaRaw() instanceof Class<?> cls && cls.isInstance(left.javaRaw()));
+            case IN -> {
                 if (right.isObject()) yield JSValue.of(right.asObject().has(left.asString()));
                 yield JSValue.FALSE;
             }
-            default -> throw new JsError("Bilinmeyen operator: " + op);
         };
     }
 
+    /** Node.Lit değerini (Double, String, Boolean veya null) JSValue'ya çevirir */
+    static JSValue literal(Object val) {
+        if (val == null)             return JSValue.NULL;
+        if (val instanceof Boolean b) return JSValue.of(b);
+        if (val instanceof Double d)  return JSValue.of(d);
+        if (val instanceof String s)  return JSValue.of(s);
+        return JSValue.UNDEFINED;
+    }
+
     // ──────────────────────────────────────────────────────────────────
     //  Unary / Update
     // ──────────────────────────────────────────────────────────────────
@@ -465,6 +510,13 @@ public class Interpreter {
             return JSBuiltins.callStringMethod(obj.asString(), methodName, args);
         }
 
+        // JSFunction property (like .call, .apply, .bind, Promise.resolve)
+        if (obj instanceof JSFunction fn) {
+            JSValue prop = fn.getProp(methodName);
+            if (prop.isFunction()) return invokeCallable(prop, obj, args);
+            throw new JsError("'" + methodName + "' bir fonksiyon değil");
+        }
+
         // JSObject methods
         if (obj.isObject()) {
             JSValue prop = obj.asObject().get(methodName);
@@ -481,12 +533,6 @@ public class Interpreter {
             throw new JsError("'" + methodName + "' bir fonksiyon değil");
         }
 
-        // JSFunction property (like .call, .apply, .bind)
-        if (obj.isFunction()) {
-            JSValue prop = ((JSFunction) obj).getProp(methodName);
-            if (prop.isFunction()) return invokeCallable(prop, obj, args);
-        }
-
         // Java object method call
         if (obj.isJava()) {
             return JavaInterop.invoke(obj.javaRaw(), methodName, args);
@@ -606,12 +652,33 @@ public class Interpreter {
     //  Function hoisting
     // ──────────────────────────────────────────────────────────────────
 
-    private void hoistFunctions(List<Node> stmts, Environment env) {
-        for (Node stmt : stmts) {
-            if (stmt instanceof Node.FuncDecl f) {
-                JSFunction fn = makeFunction(f.name(), f.params(), f.body(), env);
-                env.define(f.name(), fn);
-            }
+    void hoistFunctions(List<Node.FuncDecl> decls, Environment env) {
+        for (Node.FuncDecl f : decls) {
+            JSFunction fn = makeFunction(f.name(), f.params(), f.body(), env);
+            env.define(f.name(), fn);
+        }
+    }
+
+    /**
+     * async fonksiyon gövdesini başlatır: ilk await'e kadar senkron çalışır,
+     * sonucu (return / throw) dönen promise'e yansır.
+     */
+    JSValue startAsync(Node.AsyncBody body, Environment funcEnv) {
+        JSPromise promise = new JSPromise(eventLoop);
+        new Coroutine(this, body, funcEnv, promise).start();
+        return JSValue.of(promise);
+    }
+
+    /**
+     * Fonksiyon gövdesini çalıştırır. funcEnv çağrı başına zaten yeni bir
+     * scope olduğundan gövde bloğu için ikinci bir Environment açılmaz.
+     */
+    void executeBody(Node body, Environment funcEnv) {
+        if (body instanceof Node.Block b) {
+            hoistFunctions(b.hoisted(), funcEnv);
+            for (Node s : b.body()) executeNode(s, funcEnv);
+        } else {
+            executeNode(body, funcEnv);
         }
     }
 
@@ -145,9 +145,6 @@ public class JSBuiltins {
             catch (Exception ex) { return args.length > 0 ? args[0] : JSValue.UNDEFINED; }
         }));
 
-        env.define("setTimeout",   fn("setTimeout",   (args, e) -> JSValue.of(0))); // stub
-        env.define("clearTimeout", fn("clearTimeout", (args, e) -> JSValue.UNDEFINED)); // stub
-
         // ── Date ───────────────────────────────────────────────────────
         // new Date() ile kullanılabilir
         env.define("Date", JSFunction.native1("Date", (dateArgs, e2) -> {
@@ -168,6 +165,114 @@ public class JSBuiltins {
 
     }
 
+    // ── Promise / zamanlayıcılar (motorun EventLoop'una bağlı) ─────────
+
+    public static void installPromise(Environment env, EventLoop loop) {
+        // new Promise(function(resolve, reject) { ... })
+        JSFunction promise = fn("Promise", (args, e) -> {
+            if (args.length == 0 || !(args[0] instanceof JSFunction executor))
+                throw new JsError("Promise(executor) bir fonksiyon bekler");
+            JSPromise p = new JSPromise(loop);
+            try { executor.call(JSValue.UNDEFINED, new JSValue[]{ resolver(p), rejecter(p) }); }
+            catch (Watchdog.WatchdogError ex) { throw ex; }   // fatal aşım reddedilmiş promise'e dönüşmez
+            catch (ThrowSignal | JsError ex) { p.reject(JSPromise.reason(ex)); }
+            return JSValue.of(p);
+        });
+        promise.withStatic("resolve", fn("resolve", (args, e) -> JSValue.of(JSPromise.from(loop, arg0(args)))));
+        promise.withStatic("reject",  fn("reject",  (args, e) -> JSValue.of(JSPromise.rejected(loop, arg0(args)))));
+
+        // Promise.all([...]) — hepsi tamamlanınca sıralı sonuç dizisi, ilk redde reddedilir
+        promise.withStatic("all", fn("all", (args, e) -> {
+            List<JSValue> items = arrayArg(args, "Promise.all");
+            JSPromise out = new JSPromise(loop);
+            JSValue[] results = new JSValue[items.size()];
+            int[] remaining = { items.size() };
+            if (items.isEmpty()) out.resolve(JSValue.of(new JSArray()));
+            for (int i = 0; i < items.size(); i++) {
+                int idx = i;
+                JSPromise.from(loop, items.get(i)).subscribe(v -> {
+                    results[idx] = v;
+                    if (--remaining[0] == 0) out.resolve(JSValue.of(arrayOf(results)));
+                }, out::reject);
+            }
+            return JSValue.of(out);
+        }));
+
+        // Promise.allSettled([...]) — { status, value | reason } dizisi, hiç reddedilmez
+        promise.withStatic("allSettled", fn("allSettled", (args, e) -> {
+            List<JSValue> items = arrayArg(args, "Promise.allSettled");
+            JSPromise out = new JSPromise(loop);
+            JSValue[] results = new JSValue[items.size()];
+            int[] remaining = { items.size() };
+            if (items.isEmpty()) out.resolve(JSValue.of(new JSArray()));
+            for (int i = 0; i < items.size(); i++) {
+                int idx = i;
+                JSPromise.from(loop, items.get(i)).subscribe(
+                    v -> { results[idx] = settled("fulfilled", "value", v);  if (--remaining[0] == 0) out.resolve(JSValue.of(arrayOf(results))); },
+                    r -> { results[idx] = settled("rejected", "reason", r);  if (--remaining[0] == 0) out.resolve(JSValue.of(arrayOf(results))); });
+            }
+            return JSValue.of(out);
+        }));
+
+        // Promise.race([...]) — ilk tamamlanan / reddedilen kazanır
+        promise.withStatic("race", fn("race", (args, e) -> {
+            JSPromise out = new JSPromise(loop);
+            for (JSValue item : arrayArg(args, "Promise.race"))
+                JSPromise.from(loop, item).subscribe(out::resolve, out::reject);
+            return JSValue.of(out);
+        }));
+        env.define("Promise", promise);
+
+        env.define("queueMicrotask", fn("queueMicrotask", (args, e) -> {
+            if (args.length > 0 && args[0] instanceof JSFunction cb)
+                loop.queueMicrotask(() -> cb.call(JSValue.UNDEFINED, new JSValue[0]));
+            return JSValue.UNDEFINED;
+        }));
+
+        // setTimeout(fn, ms) — motorun tick saatiyle çalışır (50ms = 1 tick)
+        env.define("setTimeout", fn("setTimeout", (args, e) -> {
+            if (args.length == 0 || !(args[0] instanceof JSFunction cb))
+                throw new JsError("setTimeout(function, ms) şeklinde kullanın");
+            long ticks = args.length > 1 ? (long) Math.ceil(args[1].asNumber() / 50.0) : 1;
+            JSValue[] rest = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : new JSValue[0];
+            return JSValue.of(loop.setTimeout(ticks, () -> cb.call(JSValue.UNDEFINED, rest)));
+        }));
+        env.define("clearTimeout", fn("clearTimeout", (args, e) -> {
+            if (args.length > 0) loop.clearTimeout(args[0].asLong());
+            return JSValue.UNDEFINED;
+        }));
+    }
+
+    private static JSFunction resolver(JSPromise p) {
+        return fn("resolve", (a, e) -> { p.resolve(arg0(a)); return JSValue.UNDEFINED; });
+    }
+
+    private static JSFunction rejecter(JSPromise p) {
+        return fn("reject", (a, e) -> { p.reject(arg0(a)); return JSValue.UNDEFINED; });
+    }
+
+    private static List<JSValue> arrayArg(JSValue[] args, String name) {
+        if (args.length == 0 || !args[0].isArray()) throw new JsError(name + "(dizi) şeklinde kullanın");
+        return new ArrayList<>(args[0].asArray().elements());
+    }
+
+    private static JSArray arrayOf(JSValue[] values) {
+        JSArray arr = new JSArray();
+        for (JSValue v : values) arr.push(v);
+        return arr;
+    }
+
+    private static JSValue settled(String status, String key, JSValue value) {
+        JSObject o = new JSObject();
+        o.set("status", JSValue.of(status));
+        o.set(key, value);
+        return JSValue.of(o);
+    }
+
+    private static JSValue arg0(JSValue[] args) {
+        return args.length > 0 ? args[0] : JSValue.UNDEFINED;
+    }
+
     // ── String methods (called from JSValue.getProp) ──────────────────
 
     public static JSValue getStringMethod(String name) {
@@ -29,6 +29,9 @@ public class JSFunction extends JSValue {
     // The interpreter reference (set when function is created)
     private Interpreter interpreter;
 
+    // Statik özellikler (Promise.resolve gibi) — yalnızca gerektiğinde oluşturulur
+    private JSObject statics;
+
     // ── Constructors ──────────────────────────────────────────────────
 
     /** User-defined function */
@@ -78,6 +81,7 @@ public class JSFunction extends JSValue {
 
         if (interpreter == null)
             throw new JsError("Fonksiyon '" + name + "' için interpreter bağlı değil");
+        interpreter.safepoint();
 
         // Yeni scope oluştur (closure'ı parent olarak kullan)
         Environment funcEnv = new Environment(closure);
@@ -95,8 +99,10 @@ public class JSFunction extends JSValue {
         for (JSValue arg : args) argsArray.push(arg);
         funcEnv.define("arguments", JSValue.of(argsArray));
 
+        if (body instanceof Node.AsyncBody async) return interpreter.startAsync(async, funcEnv);
+
         try {
-            interpreter.executeNode(body, funcEnv);
+            interpreter.executeBody(body, funcEnv);
             return JSValue.UNDEFINED;
         } catch (ReturnSignal ret) {
             return ret.value;
@@ -126,15 +132,24 @@ public class JSFunction extends JSValue {
                 JSValue boundThis = bindArgs.length > 0 ? bindArgs[0] : JSValue.UNDEFINED;
                 return JSFunction.native1("bound_" + this.name, (a, e) -> thisFunc.call(boundThis, a));
             });
-            default -> JSValue.UNDEFINED;
+            default -> statics != null ? statics.get(name) : JSValue.UNDEFINED;
         };
     }
 
+    /** Fonksiyona statik özellik ekler (builtin constructor'lar için) */
+    public JSFunction withStatic(String key, JSValue value) {
+        if (statics == null) statics = new JSObject();
+        statics.set(key, value);
+        return this;
+    }
+
     // ── Helpers ───────────────────────────────────────────────────────
 
     public void setInterpreter(Interpreter interp) { this.interpreter = interp; }
     public Interpreter getInterpreter() { return interpreter; }
     public String getFnName() { return name; }
+    public List<String> getParams() { return params; }
+    public Node getBody() { return body; }
     public boolean isNative() { return native_ != null; }
 
     @Override
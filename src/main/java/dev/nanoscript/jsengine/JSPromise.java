@@ -0,0 +1,195 @@
+package dev.nanoscript.jsengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JS Promise — bekleyen / tamamlanmış / reddedilmiş bir değer.
+ *
+ * Tepkiler (then / catch / finally / await devamı) her zaman EventLoop
+ * üzerinden microtask olarak çalışır, hiçbir zaman resolve() çağrısının
+ * içinde değil. then/catch/finally JS tarafından get() ile okunur; ayrı bir
+ * prototype nesnesi yoktur.
+ */
+public class JSPromise extends JSObject {
+
+    public enum State { PENDING, FULFILLED, REJECTED }
+
+    private record Reaction(Consumer<JSValue> onFulfilled, Consumer<JSValue> onRejected) {}
+
+    private final EventLoop loop;
+    private State state = State.PENDING;
+    private JSValue result = JSValue.UNDEFINED;
+    /** resolve(başka promise) sonrası sonuç o promise'e bağlanır; yeni resolve/reject yok sayılır */
+    private boolean locked = false;
+    private boolean handled = false;
+    private List<Reaction> reactions;
+
+    public JSPromise(EventLoop loop) {
+        this.loop = loop;
+    }
+
+    /** Değer zaten bir JSPromise ise kendisi, değilse onunla çözülen yeni bir promise */
+    public static JSPromise from(EventLoop loop, JSValue value) {
+        if (value.asObject() instanceof JSPromise p) return p;
+        JSPromise p = new JSPromise(loop);
+        p.resolve(value);
+        return p;
+    }
+
+    public static JSPromise rejected(EventLoop loop, JSValue reason) {
+        JSPromise p = new JSPromise(loop);
+        p.reject(reason);
+        return p;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Settle
+    // ──────────────────────────────────────────────────────────────────
+
+    public void resolve(JSValue value) {
+        if (locked) return;
+        locked = true;
+        adopt(value);
+    }
+
+    /** Promise çözüm adımları: başka promise'e / thenable'a bağlan veya değerle tamamlan */
+    private void adopt(JSValue value) {
+        if (value.asObject() instanceof JSPromise other) {
+            if (other == this) { settle(State.REJECTED, JSValue.of("Promise kendisiyle çözülemez")); return; }
+            other.subscribe(v -> settle(State.FULFILLED, v), r -> settle(State.REJECTED, r));
+            return;
+        }
+        // thenable: { then(resolve, reject) { ... } }
+        if (value.isObject() && !value.isFunction() && value.asObject().get("then") instanceof JSFunction then) {
+            loop.queueMicrotask(() -> {
+                boolean[] once = {false};
+                JSFunction res = JSFunction.native1("resolve", (a, e) -> {
+                    if (!once[0]) { once[0] = true; adopt(arg(a)); }
+                    return JSValue.UNDEFINED;
+                });
+                JSFunction rej = JSFunction.native1("reject", (a, e) -> {
+                    if (!once[0]) { once[0] = true; settle(State.REJECTED, arg(a)); }
+                    return JSValue.UNDEFINED;
+                });
+                try { then.call(value, new JSValue[]{ res, rej }); }
+                catch (Watchdog.WatchdogError ex) { throw ex; }
+                catch (RuntimeException ex) { if (!once[0]) { once[0] = true; settle(State.REJECTED, reason(ex)); } }
+            });
+            return;
+        }
+        settle(State.FULFILLED, value);
+    }
+
+    public void reject(JSValue reason) {
+        if (locked) return;
+        locked = true;
+        settle(State.REJECTED, reason);
+    }
+
+    private void settle(State s, JSValue value) {
+        if (state != State.PENDING) return;
+        state = s;
+        result = value;
+        if (reactions != null) {
+            for (Reaction r : reactions) schedule(r);
+            reactions = null;
+        }
+        if (s == State.REJECTED && !handled) loop.trackRejection(this);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Reactions
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Java tarafı tepki (await devamı, Promise.all ...) — microtask olarak çağrılır */
+    public void subscribe(Consumer<JSValue> onFulfilled, Consumer<JSValue> onRejected) {
+        handled = true;
+        Reaction r = new Reaction(onFulfilled, onRejected);
+        if (state == State.PENDING) {
+            if (reactions == null) reactions = new ArrayList<>(2);
+            reactions.add(r);
+        } else {
+            schedule(r);
+        }
+    }
+
+    private void schedule(Reaction r) {
+        JSValue value = result;
+        if (state == State.FULFILLED) loop.queueMicrotask(() -> r.onFulfilled().accept(value));
+        else loop.queueMicrotask(() -> r.onRejected().accept(value));
+    }
+
+    /** p.then(onFulfilled, onRejected) — callback'in sonucu yeni promise'i çözer */
+    public JSPromise then(JSValue onFulfilled, JSValue onRejected) {
+        JSPromise derived = new JSPromise(loop);
+        subscribe(
+            v -> derived.settleWith(onFulfilled, v, false),
+            r -> derived.settleWith(onRejected, r, true));
+        return derived;
+    }
+
+    private void settleWith(JSValue callback, JSValue value, boolean rejected) {
+        if (!(callback instanceof JSFunction fn)) {
+            if (rejected) reject(value); else resolve(value);
+            return;
+        }
+        try { resolve(fn.call(JSValue.UNDEFINED, new JSValue[]{ value })); }
+        catch (Watchdog.WatchdogError e) { throw e; }   // bütçe aşımı reddedilen promise'e dönüşmez
+        catch (RuntimeException e) { reject(reason(e)); }
+    }
+
+    /** p.finally(fn) — fn argümansız çağrılır, sonuç değişmeden aktarılır */
+    private JSPromise doFinally(JSValue onFinally) {
+        JSPromise derived = new JSPromise(loop);
+        subscribe(
+            v -> { if (runFinally(onFinally, derived)) derived.resolve(v); },
+            r -> { if (runFinally(onFinally, derived)) derived.reject(r); });
+        return derived;
+    }
+
+    private static boolean runFinally(JSValue onFinally, JSPromise derived) {
+        if (!(onFinally instanceof JSFunction fn)) return true;
+        try { fn.call(JSValue.UNDEFINED, new JSValue[0]); return true; }
+        catch (Watchdog.WatchdogError e) { throw e; }
+        catch (RuntimeException e) { derived.reject(reason(e)); return false; }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  JS property access
+    // ──────────────────────────────────────────────────────────────────
+
+    @Override
+    public JSValue get(String key) {
+        return switch (key) {
+            case "then"    -> JSFunction.native1("then", (a, e) -> JSValue.of(then(arg(a), a.length > 1 ? a[1] : JSValue.UNDEFINED)));
+            case "catch"   -> JSFunction.native1("catch", (a, e) -> JSValue.of(then(JSValue.UNDEFINED, arg(a))));
+            case "finally" -> JSFunction.native1("finally", (a, e) -> JSValue.of(doFinally(arg(a))));
+            default        -> super.get(key);
+        };
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    /** JS'e aktarılacak red sebebi: throw edilen değer veya hata mesajı */
+    public static JSValue reason(RuntimeException e) {
+        if (e instanceof ThrowSignal t) return t.value;
+        return JSValue.of(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+
+    private static JSValue arg(JSValue[] args) {
+        return args.length > 0 ? args[0] : JSValue.UNDEFINED;
+    }
+
+    public State getState()    { return state; }
+    public JSValue getResult() { return result; }
+    public boolean isHandled() { return handled; }
+
+    @Override
+    public String toString() {
+        return "Promise { <" + state.name().toLowerCase() + "> }";
+    }
+}
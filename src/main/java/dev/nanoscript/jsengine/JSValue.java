@@ -125,6 +125,22 @@ public class JSValue {
         };
     }
 
+    /**
+     * asString() ile aynı metni doğrudan sb'ye yazar; string ve tam sayılar
+     * için ara String oluşturmaz (template literal hızlı yolu).
+     */
+    public void appendTo(StringBuilder sb) {
+        switch (type) {
+            case STRING -> sb.append((String) raw);
+            case NUMBER -> {
+                double d = (Double) raw;
+                if (d == Math.floor(d) && Math.abs(d) < 1e15) sb.append((long) d);
+                else sb.append(asString());
+            }
+            default -> sb.append(asString());
+        }
+    }
+
     public JSObject asObject() {
         if (type == Type.OBJECT) return (JSObject) raw;
         return null;
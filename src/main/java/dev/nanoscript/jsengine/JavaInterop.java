@@ -2,6 +2,7 @@ package dev.nanoscript.jsengine;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Java nesneleri üzerinde reflection ile method/field erişimi.
@@ -16,7 +17,8 @@ import java.util.*;
 public class JavaInterop {
 
     // Method cache: ClassName#methodName+arity → Method
-    private static final Map<String, Method[]> METHOD_CACHE = new HashMap<>();
+    // Tüm script motorları (ana thread + runAsync izole motorları) paylaşır
+    private static final Map<String, Method[]> METHOD_CACHE = new ConcurrentHashMap<>();
 
     // ── Property get (field veya no-arg getter) ───────────────────────
 
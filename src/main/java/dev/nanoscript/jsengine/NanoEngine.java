@@ -18,6 +18,8 @@ public class NanoEngine {
 
     private final Interpreter interpreter;
     private final Environment globalEnv;
+    /** İç içe execute/call derinliği — microtask'lar en dıştaki çağrı bitince çalışır */
+    private int depth = 0;
 
     public NanoEngine() {
         this.interpreter  = new Interpreter();
@@ -34,9 +36,10 @@ public class NanoEngine {
      * @throws JsError parse veya runtime hatalarında
      */
     public JSValue execute(String source) {
+        enter();
         try {
             List<Token> tokens = new Lexer(source).tokenize();
-            Node.Program ast = new Parser(tokens).parse();
+            Node.Program ast = new Optimizer().optimize(new Parser(tokens).parse());
             return interpreter.execute(ast);
         } catch (JsError e) {
             throw e;
@@ -46,6 +49,8 @@ public class NanoEngine {
             throw new JsError("Script throw: " + t.value.asString());
         } catch (Exception e) {
             throw new JsError("Çalışma hatası: " + e.getMessage());
+        } finally {
+            leave();
         }
     }
 
@@ -86,11 +91,86 @@ public class NanoEngine {
      * Örnek: engine.call(listenerFn, new JSValue[]{ JSValue.wrap(event) })
      */
     public JSValue call(JSValue fn, JSValue[] args) {
-        return interpreter.callFunction(fn, args);
+        enter();
+        try {
+            return interpreter.callFunction(fn, args);
+        } finally {
+            leave();
+        }
     }
 
     public JSValue call(JSValue fn, JSValue thisVal, JSValue[] args) {
-        return interpreter.callFunction(fn, thisVal, args);
+        enter();
+        try {
+            return interpreter.callFunction(fn, thisVal, args);
+        } finally {
+            leave();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Event loop
+    // ──────────────────────────────────────────────────────────────────
+
+    /** En dıştaki çağrıya girerken bekçinin süre ölçümünü başlatır */
+    private void enter() {
+        if (depth++ == 0 && interpreter.getWatchdog() != null) interpreter.getWatchdog().enter();
+    }
+
+    /** En dıştaki çağrıdan çıkarken bekleyen promise tepkilerini çalıştırır (aynı ölçüm içinde) */
+    private void leave() {
+        if (--depth > 0) return;
+        try {
+            interpreter.getEventLoop().runMicrotasks();
+        } finally {
+            if (interpreter.getWatchdog() != null) interpreter.getWatchdog().exit();
+        }
+    }
+
+    /** Bir sunucu tick'i: zamanı gelen await server.sleep(...) devamları + microtask'lar */
+    public void tick() {
+        if (depth > 0) return;
+        Watchdog watchdog = interpreter.getWatchdog();
+        if (watchdog != null) {
+            watchdog.newTick();
+            watchdog.enter();
+        }
+        try {
+            interpreter.getEventLoop().tick();
+        } finally {
+            if (watchdog != null) watchdog.exit();
+        }
+    }
+
+    /** Dışarıdan (ör. async sonucu) tamamlanan promise'lerin tepkilerini hemen çalıştırır */
+    public void runMicrotasks() {
+        if (depth > 0) return;
+        Watchdog watchdog = interpreter.getWatchdog();
+        if (watchdog != null) watchdog.enter();
+        try {
+            interpreter.getEventLoop().runMicrotasks();
+        } finally {
+            if (watchdog != null) watchdog.exit();
+        }
+    }
+
+    /** CPU bekçisini bağlar (null = sınırsız) */
+    public void setWatchdog(Watchdog watchdog) { interpreter.setWatchdog(watchdog); }
+    public Watchdog getWatchdog()              { return interpreter.getWatchdog(); }
+
+    public EventLoop getEventLoop() { return interpreter.getEventLoop(); }
+
+    /**
+     * Başka bir motorda tanımlanmış kullanıcı fonksiyonunun kodunu bu motorun
+     * global scope'una bağlar. Closure taşınmaz: fonksiyon yalnızca kendi
+     * parametrelerini ve bu motorun global'lerini görür. AST değişmez
+     * olduğundan farklı thread'lerdeki motorlar aynı gövdeyi paylaşabilir.
+     */
+    public JSFunction adopt(JSFunction fn) {
+        if (fn.isNative()) throw new JsError("Native fonksiyon başka motora taşınamaz: " + fn.getFnName());
+        JSFunction copy = new JSFunction(fn.getFnName(), fn.getParams(), fn.getBody(), globalEnv);
+        copy.setInterpreter(interpreter);
+        return copy;
     }
 
     // ──────────────────────────────────────────────────────────────────
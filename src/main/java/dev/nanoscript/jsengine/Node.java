@@ -1,6 +1,13 @@
 package dev.nanoscript.jsengine;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Tüm AST (Abstract Syntax Tree) düğüm tipleri burada tanımlıdır.
@@ -17,7 +24,9 @@ public sealed interface Node permits
     Node.Assign, Node.Binary, Node.Logical, Node.Unary, Node.Update,
     Node.Ternary, Node.Call, Node.Member, Node.Index, Node.New_,
     Node.Ident, Node.Lit, Node.ArrayLit, Node.ObjLit,
-    Node.FuncExpr, Node.ArrowFunc, Node.Spread, Node.Template
+    Node.FuncExpr, Node.ArrowFunc, Node.Spread, Node.Template,
+    // async
+    Node.Await, Node.AsyncBody
 {
 
     // ──────────────────────────────────────────────────────────────────
@@ -25,7 +34,34 @@ public sealed interface Node permits
     // ──────────────────────────────────────────────────────────────────
 
     record Program(List<Node> body)         implements Node {}
-    record Block(List<Node> body)            implements Node {}
+
+    /**
+     * { ... } — scoped ve hoisted parse anında bir kez hesaplanır:
+     * doğrudan var/let/const/function bildirmeyen bloklar yeni Environment
+     * açmaz, hoist edilecek fonksiyonlar her girişte yeniden taranmaz.
+     */
+    record Block(List<Node> body, boolean scoped, List<FuncDecl> hoisted) implements Node {
+        public Block(List<Node> body) {
+            this(body, declaresBindings(body), functionsOf(body));
+        }
+
+        /** Listede doğrudan bulunan (hoist edilecek) fonksiyon bildirimleri */
+        public static List<FuncDecl> functionsOf(List<Node> stmts) {
+            List<FuncDecl> out = null;
+            for (Node s : stmts) {
+                if (s instanceof FuncDecl f) {
+                    if (out == null) out = new ArrayList<>();
+                    out.add(f);
+                }
+            }
+            return out == null ? List.of() : List.copyOf(out);
+        }
+
+        private static boolean declaresBindings(List<Node> stmts) {
+            for (Node s : stmts) if (s instanceof VarDecl || s instanceof FuncDecl) return true;
+            return false;
+        }
+    }
     record ExprStmt(Node expr)              implements Node {}
 
     // ──────────────────────────────────────────────────────────────────
@@ -55,19 +91,57 @@ public sealed interface Node permits
     record ThrowStmt(Node value)                             implements Node {}
     record TryStmt(Node body, String catchVar, Node catchBody, Node finallyBody) implements Node {}
 
-    record SwitchStmt(Node disc, List<SwitchCase> cases)     implements Node {
+    /**
+     * switch (disc) { case ... }
+     * jumpTable: literal case değeri → ilk case indeksi (parse anında bir kez kurulur).
+     * dynamicCases: literal olmayan case'lerin indeksleri (sırayla değerlendirilir).
+     * defaultIndex: default case indeksi, yoksa -1.
+     */
+    record SwitchStmt(Node disc, List<SwitchCase> cases,
+                      Map<Object, Integer> jumpTable, int[] dynamicCases, int defaultIndex) implements Node {
         record SwitchCase(Node test, List<Node> body) {} // test==null → default
+
+        /** null literal için tablo anahtarı (HashMap null anahtarı yerine) */
+        public static final Object NULL_KEY = new Object();
+
+        public SwitchStmt(Node disc, List<SwitchCase> cases) {
+            this(disc, cases, jumpTableOf(cases), dynamicCasesOf(cases), defaultIndexOf(cases));
+        }
+
+        private static Map<Object, Integer> jumpTableOf(List<SwitchCase> cases) {
+            Map<Object, Integer> table = new HashMap<>();
+            for (int i = 0; i < cases.size(); i++) {
+                if (cases.get(i).test() instanceof Lit lit)
+                    table.putIfAbsent(lit.value() == null ? NULL_KEY : lit.value(), i);
+            }
+            return table;
+        }
+
+        private static int[] dynamicCasesOf(List<SwitchCase> cases) {
+            int[] idx = new int[cases.size()];
+            int n = 0;
+            for (int i = 0; i < cases.size(); i++) {
+                Node test = cases.get(i).test();
+                if (test != null && !(test instanceof Lit)) idx[n++] = i;
+            }
+            return Arrays.copyOf(idx, n);
+        }
+
+        private static int defaultIndexOf(List<SwitchCase> cases) {
+            for (int i = 0; i < cases.size(); i++) if (cases.get(i).test() == null) return i;
+            return -1;
+        }
     }
 
     // ──────────────────────────────────────────────────────────────────
     //  Expressions
     // ──────────────────────────────────────────────────────────────────
 
-    /** x = expr  /  x += expr  /  x -= expr  etc. */
-    record Assign(Node target, String op, Node value)        implements Node {}
+    /** x = expr  /  x += expr  /  x -= expr  etc.  (op == null → düz atama) */
+    record Assign(Node target, Op op, Node value)            implements Node {}
 
     /** a + b  /  a * b  /  a === b  etc. */
-    record Binary(String op, Node left, Node right)          implements Node {}
+    record Binary(Op op, Node left, Node right)              implements Node {}
 
     /** a && b  /  a || b  /  a ?? b */
     record Logical(String op, Node left, Node right)         implements Node {}
@@ -116,6 +190,73 @@ public sealed interface Node permits
     /** ...expr  (spread in call/array) */
     record Spread(Node expr)                                 implements Node {}
 
-    /** `hello ${name}!`  — parts alternates between string literals and expressions */
-    record Template(List<Node> parts)                        implements Node {}
+    /**
+     * `hello ${name}!`  — quasis: sabit parçalar (exprs.size() + 1 adet, boş olabilir),
+     * exprs: aradaki ifadeler. sizeHint, StringBuilder için önceden hesaplanan kapasite.
+     */
+    record Template(List<String> quasis, List<Node> exprs, int sizeHint) implements Node {
+        /** Her ifade için tahmini karakter sayısı (sayı, isim vb.) */
+        private static final int EXPR_SIZE_GUESS = 8;
+
+        public Template(List<String> quasis, List<Node> exprs) {
+            this(quasis, exprs, sizeHintOf(quasis, exprs.size()));
+        }
+
+        private static int sizeHintOf(List<String> quasis, int exprCount) {
+            int n = exprCount * EXPR_SIZE_GUESS;
+            for (String q : quasis) n += q.length();
+            return n;
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  async / await
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * await expr — AwaitLowering sonrası yalnızca iki biçimde kalır:
+     * {@code ExprStmt(Await)} ve tek bildirimli {@code VarDecl(x = Await)}.
+     */
+    record Await(Node arg)                                   implements Node {}
+
+    /**
+     * async fonksiyon gövdesi. suspending: bir await'e giden yol üzerindeki
+     * ifadeler (kimlik kümesi) — Coroutine yalnızca bunlara adım adım girer,
+     * diğerlerini Interpreter'a tek seferde çalıştırır. Küme gövdeden
+     * hesaplandığı için gövdeyi değiştiren her geçiş yeni bir AsyncBody kurar.
+     */
+    record AsyncBody(Block body, Set<Node> suspending)       implements Node {
+        public AsyncBody(Block body) {
+            this(body, suspendingOf(body));
+        }
+
+        private static Set<Node> suspendingOf(Block body) {
+            Set<Node> out = Collections.newSetFromMap(new IdentityHashMap<>());
+            AwaitLowering.collectSuspending(body, out);
+            return Collections.unmodifiableSet(out);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Operators
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * İkili operatörler. Parser sembolü bir kez çözer; Interpreter bu enum
+     * üzerinden switch yapar (her değerlendirmede string karşılaştırması yok).
+     */
+    enum Op {
+        ADD("+"), SUB("-"), MUL("*"), DIV("/"), MOD("%"), EXP("**"),
+        LT("<"), GT(">"), LTE("<="), GTE(">="),
+        EQ("=="), NEQ("!="), STRICT_EQ("==="), STRICT_NEQ("!=="),
+        BIT_AND("&"), BIT_OR("|"), BIT_XOR("^"),
+        LSHIFT("<<"), RSHIFT(">>"), URSHIFT(">>>"),
+        INSTANCEOF("instanceof"), IN("in");
+
+        public final String symbol;
+
+        Op(String symbol) { this.symbol = symbol; }
+
+        @Override public String toString() { return symbol; }
+    }
 }
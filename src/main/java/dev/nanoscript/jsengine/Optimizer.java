@@ -0,0 +1,331 @@
+package dev.nanoscript.jsengine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * AST Optimizer — Parser ile Interpreter arasında tek geçişlik sadeleştirme.
+ *
+ * Yapılanlar:
+ *  - Sabit katlama:   20 * 60 * 5 → 6000,  "&a" + "Hoş geldin" → "&aHoş geldin",  -1, !true
+ *  - Sabit yayılımı:  top-level {@code const DEBUG = false;} hiç yeniden tanımlanmıyor /
+ *                     atanmıyorsa, sonraki kullanımlar literal ile değiştirilir
+ *  - Ölü dal eleme:   sabit koşullu if / while / ?: / && / || / ??
+ *  - Erişilemez kod:  return / throw / break / continue sonrasındaki ifadeler
+ *                     (hoist edilen function bildirimleri korunur)
+ *
+ * Katlama Interpreter.evalBinary ile yapılır; sonuçlar çalışma anıyla birebir aynıdır.
+ */
+public class Optimizer {
+
+    /** Silinen ifade yerine konan boş blok (ifade listelerinden tamamen çıkarılır) */
+    private static final Node.Block EMPTY = new Node.Block(List.of());
+
+    /** Programın herhangi bir yerinde bildirilen isimler → bildirim sayısı */
+    private final Map<String, Integer> declCount = new HashMap<>();
+    /** Atama veya ++/-- hedefi olan isimler */
+    private final Set<String> assigned = new HashSet<>();
+    /** Yayılabilen top-level const değerleri */
+    private final Map<String, Node.Lit> constants = new HashMap<>();
+
+    public Node.Program optimize(Node.Program program) {
+        for (Node stmt : program.body()) scan(stmt);
+        return new Node.Program(statements(program.body(), true));
+    }
+
+    private void collectConstants(Node.VarDecl d) {
+        for (Node.VarDecl.Declarator decl : d.decls()) {
+            if (decl.init() instanceof Node.Lit lit
+                    && declCount.getOrDefault(decl.name(), 0) == 1
+                    && !assigned.contains(decl.name())) {
+                constants.put(decl.name(), lit);
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Statements
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Bir ifade listesini sırayla sadeleştirir. topLevel ise const bildirimleri
+     * işlendikçe kaydedilir; yalnızca sonraki ifadelerde yayılırlar.
+     */
+    private List<Node> statements(List<Node> stmts, boolean topLevel) {
+        List<Node> out = new ArrayList<>(stmts.size());
+        boolean reachable = true;
+        for (Node stmt : stmts) {
+            if (!reachable) {
+                // Erişilemez — ama function bildirimleri blok başında hoist edilir
+                if (stmt instanceof Node.FuncDecl) out.add(node(stmt));
+                continue;
+            }
+            Node opt = node(stmt);
+            if (opt == EMPTY) continue;
+            out.add(opt);
+            if (topLevel && opt instanceof Node.VarDecl d && d.kind().equals("const")) collectConstants(d);
+            if (opt instanceof Node.ReturnStmt || opt instanceof Node.ThrowStmt
+                    || opt instanceof Node.BreakStmt || opt instanceof Node.ContinueStmt) {
+                reachable = false;
+            }
+        }
+        return out;
+    }
+
+    private Node node(Node n) {
+        if (n == null) return null;
+        return switch (n) {
+            case Node.Program p -> new Node.Program(statements(p.body(), false));
+
+            case Node.Block b -> {
+                List<Node> body = statements(b.body(), false);
+                yield body.isEmpty() ? EMPTY : new Node.Block(body);
+            }
+
+            case Node.ExprStmt s -> new Node.ExprStmt(node(s.expr()));
+
+            case Node.VarDecl d -> {
+                List<Node.VarDecl.Declarator> decls = new ArrayList<>(d.decls().size());
+                for (Node.VarDecl.Declarator decl : d.decls())
+                    decls.add(new Node.VarDecl.Declarator(decl.name(), node(decl.init())));
+                yield new Node.VarDecl(d.kind(), decls);
+            }
+
+            case Node.FuncDecl f -> new Node.FuncDecl(f.name(), f.params(), body(f.body()));
+
+            case Node.IfStmt i -> {
+                Node test = node(i.test());
+                if (test instanceof Node.Lit lit) {
+                    Node taken = truthy(lit) ? i.then() : i.else_();
+                    yield taken == null ? EMPTY : node(taken);
+                }
+                yield new Node.IfStmt(test, node(i.then()), node(i.else_()));
+            }
+
+            case Node.WhileStmt w -> {
+                Node test = node(w.test());
+                if (test instanceof Node.Lit lit && !truthy(lit)) yield EMPTY;
+                yield new Node.WhileStmt(test, node(w.body()));
+            }
+
+            case Node.DoWhileStmt d -> new Node.DoWhileStmt(node(d.body()), node(d.test()));
+
+            case Node.ForStmt f -> new Node.ForStmt(node(f.init()), node(f.test()), node(f.update()), node(f.body()));
+
+            case Node.ForInStmt f -> new Node.ForInStmt(f.kind(), f.var(), node(f.obj()), node(f.body()), f.isOf());
+
+            case Node.ReturnStmt r    -> new Node.ReturnStmt(node(r.value()));
+            case Node.BreakStmt b     -> b;
+            case Node.ContinueStmt c  -> c;
+            case Node.ThrowStmt t     -> new Node.ThrowStmt(node(t.value()));
+
+            case Node.TryStmt t -> new Node.TryStmt(body(t.body()), t.catchVar(), body(t.catchBody()), body(t.finallyBody()));
+
+            case Node.SwitchStmt s -> {
+                List<Node.SwitchStmt.SwitchCase> cases = new ArrayList<>(s.cases().size());
+                for (Node.SwitchStmt.SwitchCase c : s.cases())
+                    cases.add(new Node.SwitchStmt.SwitchCase(node(c.test()), statements(c.body(), false)));
+                yield new Node.SwitchStmt(node(s.disc()), cases);
+            }
+
+            // ── Expressions ──────────────────────────────────────────
+
+            case Node.Lit l -> l;
+
+            case Node.Ident id -> {
+                Node.Lit lit = constants.get(id.name());
+                yield lit != null ? lit : id;
+            }
+
+            case Node.Binary b -> {
+                Node left = node(b.left()), right = node(b.right());
+                if (left instanceof Node.Lit l && right instanceof Node.Lit r
+                        && b.op() != Node.Op.INSTANCEOF && b.op() != Node.Op.IN) {
+                    Node.Lit folded = toLit(Interpreter.evalBinary(b.op(), Interpreter.literal(l.value()), Interpreter.literal(r.value())));
+                    if (folded != null) yield folded;
+                }
+                yield new Node.Binary(b.op(), left, right);
+            }
+
+            case Node.Logical l -> {
+                Node left = node(l.left()), right = node(l.right());
+                if (left instanceof Node.Lit lit) {
+                    boolean pickLeft = switch (l.op()) {
+                        case "&&" -> !truthy(lit);
+                        case "||" -> truthy(lit);
+                        default   -> lit.value() != null; // ??
+                    };
+                    yield pickLeft ? left : right;
+                }
+                yield new Node.Logical(l.op(), left, right);
+            }
+
+            case Node.Unary u -> {
+                Node operand = node(u.operand());
+                if (operand instanceof Node.Lit lit) {
+                    JSValue v = Interpreter.literal(lit.value());
+                    Node.Lit folded = switch (u.op()) {
+                        case "-" -> toLit(JSValue.of(-v.asNumber()));
+                        case "+" -> toLit(JSValue.of(v.asNumber()));
+                        case "!" -> toLit(JSValue.of(!v.asBoolean()));
+                        case "~" -> toLit(JSValue.of((double) (~v.asInt())));
+                        default  -> null;
+                    };
+                    if (folded != null) yield folded;
+                }
+                yield new Node.Unary(u.op(), operand, u.prefix());
+            }
+
+            case Node.Update u   -> new Node.Update(u.op(), node(u.operand()), u.prefix());
+
+            case Node.Assign a   -> new Node.Assign(target(a.target()), a.op(), node(a.value()));
+
+            case Node.Ternary t -> {
+                Node test = node(t.test());
+                if (test instanceof Node.Lit lit) yield node(truthy(lit) ? t.then() : t.else_());
+                yield new Node.Ternary(test, node(t.then()), node(t.else_()));
+            }
+
+            case Node.Call c     -> new Node.Call(node(c.callee()), nodes(c.args()));
+            case Node.Member m   -> new Node.Member(node(m.obj()), m.prop());
+            case Node.Index i    -> new Node.Index(node(i.obj()), node(i.key()));
+            case Node.New_ nw    -> new Node.New_(node(nw.callee()), nodes(nw.args()));
+            case Node.ArrayLit a -> new Node.ArrayLit(nodes(a.elements()));
+
+            case Node.ObjLit o -> {
+                List<Node.ObjLit.ObjProp> props = new ArrayList<>(o.props().size());
+                for (Node.ObjLit.ObjProp p : o.props())
+                    props.add(new Node.ObjLit.ObjProp(p.key(), node(p.value()), p.computed()));
+                yield new Node.ObjLit(props);
+            }
+
+            case Node.FuncExpr f  -> new Node.FuncExpr(f.name(), f.params(), body(f.body()));
+            case Node.ArrowFunc a -> new Node.ArrowFunc(a.params(), body(a.body()));
+            case Node.Spread s    -> new Node.Spread(node(s.expr()));
+            case Node.Template t  -> template(t);
+
+            // Gövde değişince await yolu yeniden hesaplanmalı (kimlik kümesi)
+            case Node.Await a     -> new Node.Await(node(a.arg()));
+            case Node.AsyncBody b -> new Node.AsyncBody((Node.Block) body(b.body()));
+        };
+    }
+
+    /**
+     * Sabite dönüşen ${...} ifadelerini komşu sabit parçaya katar; hiç ifade
+     * kalmazsa template tek bir intern'lenmiş string literal olur.
+     */
+    private Node template(Node.Template t) {
+        List<String> quasis = new ArrayList<>(t.quasis().size());
+        List<Node> exprs = new ArrayList<>(t.exprs().size());
+        StringBuilder chunk = new StringBuilder(t.quasis().get(0));
+        for (int i = 0; i < t.exprs().size(); i++) {
+            Node expr = node(t.exprs().get(i));
+            if (expr instanceof Node.Lit lit) {
+                Interpreter.literal(lit.value()).appendTo(chunk);
+            } else {
+                quasis.add(chunk.toString());
+                exprs.add(expr);
+                chunk.setLength(0);
+            }
+            chunk.append(t.quasis().get(i + 1));
+        }
+        if (exprs.isEmpty()) return new Node.Lit(chunk.toString().intern());
+        quasis.add(chunk.toString());
+        return new Node.Template(List.copyOf(quasis), List.copyOf(exprs));
+    }
+
+    /** Fonksiyon / try gövdesi: boşalsa bile blok olarak kalır (EMPTY ifade listesine özeldir) */
+    private Node body(Node n) {
+        Node opt = node(n);
+        return opt == EMPTY ? new Node.Block(List.of()) : opt;
+    }
+
+    /** Atama hedefi: Ident literal ile değiştirilmez, yalnızca alt ifadeler sadeleşir */
+    private Node target(Node n) {
+        return switch (n) {
+            case Node.Member m -> new Node.Member(node(m.obj()), m.prop());
+            case Node.Index i  -> new Node.Index(node(i.obj()), node(i.key()));
+            default            -> n;
+        };
+    }
+
+    private List<Node> nodes(List<Node> list) {
+        List<Node> out = new ArrayList<>(list.size());
+        for (Node n : list) out.add(node(n));
+        return out;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    private static boolean truthy(Node.Lit lit) {
+        return Interpreter.literal(lit.value()).asBoolean();
+    }
+
+    /** Primitive bir sonucu tekrar literal'e çevirir; diğer tipler için null */
+    private static Node.Lit toLit(JSValue v) {
+        return switch (v.getType()) {
+            case NULL    -> new Node.Lit(null);
+            case BOOLEAN -> new Node.Lit(v.asBoolean());
+            case NUMBER  -> new Node.Lit(v.asNumber());
+            case STRING  -> new Node.Lit(v.asString());
+            default      -> null;
+        };
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Binding analysis (sabit yayılımı için)
+    // ──────────────────────────────────────────────────────────────────
+
+    private void declare(String name) {
+        if (name != null) declCount.merge(name, 1, Integer::sum);
+    }
+
+    /** Tüm ağacı dolaşıp bildirimleri ve atama hedeflerini toplar */
+    private void scan(Node n) {
+        if (n == null) return;
+        switch (n) {
+            case Node.Program p     -> p.body().forEach(this::scan);
+            case Node.Block b       -> b.body().forEach(this::scan);
+            case Node.ExprStmt s    -> scan(s.expr());
+            case Node.VarDecl d     -> d.decls().forEach(decl -> { declare(decl.name()); scan(decl.init()); });
+            case Node.FuncDecl f    -> { declare(f.name()); f.params().forEach(this::declare); scan(f.body()); }
+            case Node.IfStmt i      -> { scan(i.test()); scan(i.then()); scan(i.else_()); }
+            case Node.WhileStmt w   -> { scan(w.test()); scan(w.body()); }
+            case Node.DoWhileStmt d -> { scan(d.body()); scan(d.test()); }
+            case Node.ForStmt f     -> { scan(f.init()); scan(f.test()); scan(f.update()); scan(f.body()); }
+            case Node.ForInStmt f   -> { declare(f.var()); scan(f.obj()); scan(f.body()); }
+            case Node.ReturnStmt r  -> scan(r.value());
+            case Node.ThrowStmt t   -> scan(t.value());
+            case Node.TryStmt t     -> { scan(t.body()); declare(t.catchVar()); scan(t.catchBody()); scan(t.finallyBody()); }
+            case Node.SwitchStmt s  -> { scan(s.disc()); s.cases().forEach(c -> { scan(c.test()); c.body().forEach(this::scan); }); }
+            case Node.Assign a      -> { if (a.target() instanceof Node.Ident id) assigned.add(id.name()); scan(a.target()); scan(a.value()); }
+            case Node.Update u      -> { if (u.operand() instanceof Node.Ident id) assigned.add(id.name()); scan(u.operand()); }
+            case Node.Binary b      -> { scan(b.left()); scan(b.right()); }
+            case Node.Logical l     -> { scan(l.left()); scan(l.right()); }
+            case Node.Unary u       -> scan(u.operand());
+            case Node.Ternary t     -> { scan(t.test()); scan(t.then()); scan(t.else_()); }
+            case Node.Call c        -> { scan(c.callee()); c.args().forEach(this::scan); }
+            case Node.Member m      -> scan(m.obj());
+            case Node.Index i       -> { scan(i.obj()); scan(i.key()); }
+            case Node.New_ nw       -> { scan(nw.callee()); nw.args().forEach(this::scan); }
+            case Node.ArrayLit a    -> a.elements().forEach(this::scan);
+            case Node.ObjLit o      -> o.props().forEach(p -> scan(p.value()));
+            case Node.FuncExpr f    -> { declare(f.name()); f.params().forEach(this::declare); scan(f.body()); }
+            case Node.ArrowFunc a   -> { a.params().forEach(this::declare); scan(a.body()); }
+            case Node.Spread s      -> scan(s.expr());
+            case Node.Template t    -> t.exprs().forEach(this::scan);
+            case Node.Await a       -> scan(a.arg());
+            case Node.AsyncBody b   -> scan(b.body());
+            case Node.BreakStmt b    -> { }
+            case Node.ContinueStmt c -> { }
+            case Node.Ident id       -> { }
+            case Node.Lit l          -> { }
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package dev.nanoscript.jsengine;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Recursive Descent Parser
+ * Recursive Descent Parser (ifadeler için Pratt / precedence climbing)
  * Token listesini alır, AST (Node.Program) üretir.
  *
+ * İkili operatörler tek bir parseBinary() döngüsünde, INFIX binding power
+ * tablosuna göre ayrıştırılır; her literal/identifier için 13 seviyelik
+ * çağrı zinciri yerine parseBinary → parseUnary → parsePostfix yeterlidir.
+ *
  * Precedence (düşükten yükseğe):
  *   Assignment  =  +=  -=  ...
  *   Ternary     ? :
@@ -30,6 +36,77 @@ public class Parser {
 
     private final List<Token> tokens;
     private int pos;
+    /** async fonksiyon gövdesi içindeyiz: 'await' operatördür */
+    private boolean inAsync = false;
+
+    // ── Binding power tablosu ────────────────────────────────────────
+
+    private enum InfixKind { ASSIGN, TERNARY, LOGICAL, BINARY }
+
+    /** op: BINARY ve bileşik ASSIGN için operatör; sym: LOGICAL için sembol */
+    private record Infix(Node.Op op, String sym, int bp, InfixKind kind, boolean rightAssoc) {}
+
+    private static final int BP_ASSIGN = 1;
+
+    private static final Map<TokenType, Infix> INFIX = new EnumMap<>(TokenType.class);
+
+    static {
+        // Lexer &=, |=, <<= vb. için de ASSIGN üretir; hepsi "=" olarak ele alınır
+        assign(TokenType.ASSIGN,         null);
+        assign(TokenType.PLUS_ASSIGN,    Node.Op.ADD);
+        assign(TokenType.MINUS_ASSIGN,   Node.Op.SUB);
+        assign(TokenType.STAR_ASSIGN,    Node.Op.MUL);
+        assign(TokenType.SLASH_ASSIGN,   Node.Op.DIV);
+        assign(TokenType.PERCENT_ASSIGN, Node.Op.MOD);
+
+        INFIX.put(TokenType.QUESTION, new Infix(null, "?", 2, InfixKind.TERNARY, true));
+
+        logical(TokenType.OR,      "||", 3);
+        logical(TokenType.NULLISH, "??", 3);
+        logical(TokenType.AND,     "&&", 4);
+
+        binary(TokenType.BIT_OR,     Node.Op.BIT_OR,     5);
+        binary(TokenType.BIT_XOR,    Node.Op.BIT_XOR,    6);
+        binary(TokenType.BIT_AND,    Node.Op.BIT_AND,    7);
+
+        binary(TokenType.EQ,         Node.Op.EQ,         8);
+        binary(TokenType.NEQ,        Node.Op.NEQ,        8);
+        binary(TokenType.STRICT_EQ,  Node.Op.STRICT_EQ,  8);
+        binary(TokenType.STRICT_NEQ, Node.Op.STRICT_NEQ, 8);
+
+        binary(TokenType.LT,         Node.Op.LT,         9);
+        binary(TokenType.GT,         Node.Op.GT,         9);
+        binary(TokenType.LTE,        Node.Op.LTE,        9);
+        binary(TokenType.GTE,        Node.Op.GTE,        9);
+        binary(TokenType.INSTANCEOF, Node.Op.INSTANCEOF, 9);
+        binary(TokenType.IN,         Node.Op.IN,         9);
+
+        binary(TokenType.LSHIFT,     Node.Op.LSHIFT,     10);
+        binary(TokenType.RSHIFT,     Node.Op.RSHIFT,     10);
+        binary(TokenType.URSHIFT,    Node.Op.URSHIFT,    10);
+
+        binary(TokenType.PLUS,       Node.Op.ADD,        11);
+        binary(TokenType.MINUS,      Node.Op.SUB,        11);
+
+        binary(TokenType.STAR,       Node.Op.MUL,        12);
+        binary(TokenType.SLASH,      Node.Op.DIV,        12);
+        binary(TokenType.PERCENT,    Node.Op.MOD,        12);
+
+        INFIX.put(TokenType.STARSTAR, new Infix(Node.Op.EXP, null, 13, InfixKind.BINARY, true));
+    }
+
+    private static void assign(TokenType type, Node.Op op) {
+        INFIX.put(type, new Infix(op, null, BP_ASSIGN, InfixKind.ASSIGN, true));
+    }
+
+    private static void logical(TokenType type, String sym, int bp) {
+        INFIX.put(type, new Infix(null, sym, bp, InfixKind.LOGICAL, false));
+    }
+
+    private static void binary(TokenType type, Node.Op op, int bp) {
+        INFIX.put(type, new Infix(op, null, bp, InfixKind.BINARY, false));
+    }
+
 
     public Parser(List<Token> tokens) {
         this.tokens = tokens;
@@ -55,7 +132,7 @@ public class Parser {
             case SEMI       -> { advance(); yield null; }
             case LBRACE     -> parseBlock();
             case VAR, LET, CONST -> parseVarDecl();
-            case FUNCTION   -> parseFuncDecl();
+            case FUNCTION   -> parseFuncDecl(false);
             case IF         -> parseIf();
             case WHILE      -> parseWhile();
             case DO         -> parseDoWhile();
@@ -66,6 +143,7 @@ public class Parser {
             case THROW      -> parseThrow();
             case TRY        -> parseTry();
             case SWITCH     -> parseSwitch();
+            case IDENT      -> isAsyncFunction() ? parseAsyncFuncDecl() : parseExprStmt();
             default         -> parseExprStmt();
         };
     }
@@ -94,14 +172,73 @@ public class Parser {
         return new Node.VarDecl(kind, decls);
     }
 
-    private Node parseFuncDecl() {
+    private Node parseFuncDecl(boolean async) {
         consume(TokenType.FUNCTION);
         String name = consume(TokenType.IDENT).value();
         List<String> params = parseParams();
-        Node body = parseBlock();
+        Node body = parseFunctionBody(async);
         return new Node.FuncDecl(name, params, body);
     }
 
+    private Node parseAsyncFuncDecl() {
+        advance(); // async
+        return parseFuncDecl(true);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  async / await — bağlamsal anahtar kelimeler: yalnızca 'async function',
+    //  'async (...) =>' ve async gövde içindeki 'await' özel anlam taşır;
+    //  server.async gibi isimler normal identifier olarak kalır.
+    // ──────────────────────────────────────────────────────────────────
+
+    private boolean isAsyncFunction() {
+        return isContextual("async") && peekAt(1).type() == TokenType.FUNCTION;
+    }
+
+    private boolean isContextual(String word) {
+        return at(TokenType.IDENT) && word.equals(peek().value());
+    }
+
+    /** Gövde: async ise await'ler AwaitLowering ile ifade seviyesine indirilir */
+    private Node parseFunctionBody(boolean async) {
+        boolean outer = inAsync;
+        inAsync = async;
+        try {
+            Node.Block body = parseBlock();
+            return async ? AwaitLowering.lower(body) : body;
+        } finally {
+            inAsync = outer;
+        }
+    }
+
+    /** Arrow gövdesi: async ise ifade gövdesi return'e sarılır */
+    private Node parseArrowBody(boolean async) {
+        boolean outer = inAsync;
+        inAsync = async;
+        try {
+            Node body = at(TokenType.LBRACE) ? parseBlock() : parseAssignment();
+            if (!async) return body;
+            Node.Block block = body instanceof Node.Block b ? b : new Node.Block(List.of(new Node.ReturnStmt(body)));
+            return AwaitLowering.lower(block);
+        } finally {
+            inAsync = outer;
+        }
+    }
+
+    /** 'async' identifier'ı sonrası: async function / async (...) => / düz isim */
+    private Node parseAsyncPrimary() {
+        Token asyncTok = advance();
+        if (at(TokenType.FUNCTION)) return parseFuncExpr(true);
+        if (at(TokenType.LPAREN)) {
+            int save = pos;
+            advance();
+            List<String> params = tryParseArrowParams();
+            if (params != null && match(TokenType.ARROW)) return new Node.ArrowFunc(params, parseArrowBody(true));
+            pos = save;
+        }
+        return new Node.Ident(asyncTok.value());
+    }
+
     private Node parseIf() {
         consume(TokenType.IF);
         consume(TokenType.LPAREN);
@@ -244,7 +381,7 @@ public class Parser {
     }
 
     // ──────────────────────────────────────────────────────────────────
-    //  Expressions (precedence climbing)
+    //  Expressions (Pratt / precedence climbing)
     // ──────────────────────────────────────────────────────────────────
 
     private Node parseExpression() {
@@ -252,157 +389,40 @@ public class Parser {
     }
 
     private Node parseAssignment() {
-        Node left = parseTernary();
-        TokenType t = peek().type();
-        String op = switch (t) {
-            case ASSIGN        -> "=";
-            case PLUS_ASSIGN   -> "+=";
-            case MINUS_ASSIGN  -> "-=";
-            case STAR_ASSIGN   -> "*=";
-            case SLASH_ASSIGN  -> "/=";
-            case PERCENT_ASSIGN -> "%=";
-            default            -> null;
-        };
-        if (op != null) {
-            advance();
-            Node right = parseAssignment();
-            return new Node.Assign(left, op, right);
-        }
-        return left;
-    }
-
-    private Node parseTernary() {
-        Node test = parseLogicalOr();
-        if (match(TokenType.QUESTION)) {
-            Node then = parseAssignment();
-            consume(TokenType.COLON);
-            Node else_ = parseAssignment();
-            return new Node.Ternary(test, then, else_);
-        }
-        return test;
-    }
-
-    private Node parseLogicalOr() {
-        Node left = parseLogicalAnd();
-        while (at(TokenType.OR) || at(TokenType.NULLISH)) {
-            String op = advance().value();
-            Node right = parseLogicalAnd();
-            left = new Node.Logical(op, left, right);
-        }
-        return left;
-    }
-
-    private Node parseLogicalAnd() {
-        Node left = parseBitOr();
-        while (at(TokenType.AND)) {
-            advance();
-            Node right = parseBitOr();
-            left = new Node.Logical("&&", left, right);
-        }
-        return left;
-    }
-
-    private Node parseBitOr() {
-        Node left = parseBitXor();
-        while (at(TokenType.BIT_OR)) {
-            advance();
-            left = new Node.Binary("|", left, parseBitXor());
-        }
-        return left;
-    }
-
-    private Node parseBitXor() {
-        Node left = parseBitAnd();
-        while (at(TokenType.BIT_XOR)) {
-            advance();
-            left = new Node.Binary("^", left, parseBitAnd());
-        }
-        return left;
-    }
-
-    private Node parseBitAnd() {
-        Node left = parseEquality();
-        while (at(TokenType.BIT_AND)) {
-            advance();
-            left = new Node.Binary("&", left, parseEquality());
-        }
-        return left;
+        return parseBinary(BP_ASSIGN);
     }
 
-    private Node parseEquality() {
-        Node left = parseRelational();
+    /**
+     * Tek döngülü operatör ayrıştırıcı: sol operand parseUnary()'den gelir,
+     * ardından INFIX tablosundaki bağlama gücü minBp'den küçük olmayan
+     * operatörler sola doğru katlanır. Sağ-birleşimli operatörlerde (=, **)
+     * sağ taraf aynı güçle, diğerlerinde bir fazlasıyla ayrıştırılır.
+     */
+    private Node parseBinary(int minBp) {
+        Node left = parseUnary();
         while (true) {
-            String op = switch (peek().type()) {
-                case EQ         -> "==";
-                case NEQ        -> "!=";
-                case STRICT_EQ  -> "===";
-                case STRICT_NEQ -> "!==";
-                default         -> null;
-            };
-            if (op == null) break;
+            Infix op = INFIX.get(peek().type());
+            if (op == null || op.bp() < minBp) return left;
             advance();
-            left = new Node.Binary(op, left, parseRelational());
-        }
-        return left;
-    }
-
-    private Node parseRelational() {
-        Node left = parseShift();
-        while (true) {
-            String op = switch (peek().type()) {
-                case LT          -> "<";
-                case GT          -> ">";
-                case LTE         -> "<=";
-                case GTE         -> ">=";
-                case INSTANCEOF  -> "instanceof";
-                case IN          -> "in";
-                default          -> null;
+            left = switch (op.kind()) {
+                case ASSIGN  -> new Node.Assign(left, op.op(), parseBinary(op.bp()));
+                case TERNARY -> {
+                    Node then = parseAssignment();
+                    consume(TokenType.COLON);
+                    yield new Node.Ternary(left, then, parseAssignment());
+                }
+                case LOGICAL -> new Node.Logical(op.sym(), left, parseBinary(op.bp() + 1));
+                case BINARY  -> new Node.Binary(op.op(), left, parseBinary(op.rightAssoc() ? op.bp() : op.bp() + 1));
             };
-            if (op == null) break;
-            advance();
-            left = new Node.Binary(op, left, parseShift());
-        }
-        return left;
-    }
-
-    private Node parseShift() {
-        Node left = parseAdditive();
-        while (at(TokenType.LSHIFT) || at(TokenType.RSHIFT) || at(TokenType.URSHIFT)) {
-            String op = advance().value();
-            left = new Node.Binary(op, left, parseAdditive());
-        }
-        return left;
-    }
-
-    private Node parseAdditive() {
-        Node left = parseMultiplicative();
-        while (at(TokenType.PLUS) || at(TokenType.MINUS)) {
-            String op = advance().value();
-            left = new Node.Binary(op, left, parseMultiplicative());
         }
-        return left;
-    }
-
-    private Node parseMultiplicative() {
-        Node left = parseExponent();
-        while (at(TokenType.STAR) || at(TokenType.SLASH) || at(TokenType.PERCENT)) {
-            String op = advance().value();
-            left = new Node.Binary(op, left, parseExponent());
-        }
-        return left;
-    }
-
-    private Node parseExponent() {
-        Node left = parseUnary();
-        if (at(TokenType.STARSTAR)) {
-            advance();
-            Node right = parseExponent(); // right-associative
-            return new Node.Binary("**", left, right);
-        }
-        return left;
     }
 
     private Node parseUnary() {
+        if (isContextual("await")) {
+            if (inAsync) { advance(); return new Node.Await(parseUnary()); }
+            if (startsOperand(peekAt(1).type()))
+                throw new JsError("await yalnızca async fonksiyon içinde kullanılabilir", peek().line());
+        }
         return switch (peek().type()) {
             case NOT      -> { advance(); yield new Node.Unary("!", parseUnary(), true); }
             case MINUS    -> { advance(); yield new Node.Unary("-", parseUnary(), true); }
@@ -430,7 +450,7 @@ public class Parser {
             if (at(TokenType.LPAREN)) {
                 expr = new Node.Call(expr, parseArgList());
             } else if (match(TokenType.DOT)) {
-                String prop = consume(TokenType.IDENT).value();
+                String prop = parsePropertyName();
                 expr = new Node.Member(expr, prop);
             } else if (at(TokenType.LBRACK)) {
                 advance();
@@ -452,9 +472,13 @@ public class Parser {
             case FALSE    -> { advance(); yield new Node.Lit(Boolean.FALSE); }
             case NUMBER   -> { advance(); yield new Node.Lit(parseNumber(t.value())); }
             case STRING   -> { advance(); yield parseStringLit(t.value()); }
-            case IDENT    -> { advance(); yield new Node.Ident(t.value()); }
+            case IDENT    -> {
+                if ("async".equals(t.value())) yield parseAsyncPrimary();
+                advance();
+                yield new Node.Ident(t.value());
+            }
             case THIS     -> { advance(); yield new Node.Ident("this"); }
-            case FUNCTION -> parseFuncExpr();
+            case FUNCTION -> parseFuncExpr(false);
             case NEW      -> parseNew();
             case LBRACK   -> parseArrayLit();
             case LBRACE   -> parseObjLit();
@@ -465,8 +489,7 @@ public class Parser {
                 List<String> arrowParams = tryParseArrowParams();
                 if (arrowParams != null && at(TokenType.ARROW)) {
                     advance(); // consume =>
-                    Node body = at(TokenType.LBRACE) ? parseBlock() : parseAssignment();
-                    yield new Node.ArrowFunc(arrowParams, body);
+                    yield new Node.ArrowFunc(arrowParams, parseArrowBody(false));
                 }
                 pos = save;
                 Node expr = parseExpression();
@@ -495,17 +518,30 @@ public class Parser {
         return null; // Not an arrow function param list
     }
 
-    private Node parseFuncExpr() {
+    private Node parseFuncExpr(boolean async) {
         consume(TokenType.FUNCTION);
         String name = at(TokenType.IDENT) ? advance().value() : null;
         List<String> params = parseParams();
-        Node body = parseBlock();
+        Node body = parseFunctionBody(async);
         return new Node.FuncExpr(name, params, body);
     }
 
+    /** new Foo.Bar(args) — callee'de çağrı yok; argüman listesi new'e aittir */
     private Node parseNew() {
         consume(TokenType.NEW);
-        Node callee = parseCallMember();
+        Node callee = parsePrimary();
+        while (true) {
+            if (match(TokenType.DOT)) {
+                callee = new Node.Member(callee, parsePropertyName());
+            } else if (at(TokenType.LBRACK)) {
+                advance();
+                Node key = parseExpression();
+                consume(TokenType.RBRACK);
+                callee = new Node.Index(callee, key);
+            } else {
+                break;
+            }
+        }
         List<Node> args = at(TokenType.LPAREN) ? parseArgList() : List.of();
         return new Node.New_(callee, args);
     }
@@ -529,6 +565,9 @@ public class Parser {
         while (!at(TokenType.RBRACE) && !at(TokenType.EOF)) {
             String key;
             boolean computed = false;
+            // async method shorthand: { async foo() { ... } }
+            boolean asyncMethod = isContextual("async") && peekAt(1).type() == TokenType.IDENT;
+            if (asyncMethod) advance();
             if (at(TokenType.LBRACK)) {
                 advance(); computed = true;
                 key = "__computed__";
@@ -553,7 +592,7 @@ public class Parser {
             } else if (at(TokenType.LPAREN)) {
                 // Method shorthand: { foo(a) { ... } }
                 List<String> params = parseParams();
-                Node body = parseBlock();
+                Node body = parseFunctionBody(asyncMethod);
                 value = new Node.FuncExpr(key, params, body);
             } else {
                 // Shorthand: { x } → { x: x }
@@ -566,6 +605,14 @@ public class Parser {
         return new Node.ObjLit(props);
     }
 
+    /** Nokta sonrası isim: anahtar kelimeler de özellik adı olabilir (p.catch, p.finally) */
+    private String parsePropertyName() {
+        Token t = peek();
+        boolean keyword = t.type() != TokenType.IDENT && t.type() != TokenType.STRING && t.type() != TokenType.NUMBER
+                && !t.value().isEmpty() && Character.isLetter(t.value().charAt(0));
+        return keyword ? advance().value() : consume(TokenType.IDENT).value();
+    }
+
     private List<Node> parseArgList() {
         consume(TokenType.LPAREN);
         List<Node> args = new ArrayList<>();
@@ -596,25 +643,27 @@ public class Parser {
 
     private Node parseStringLit(String raw) {
         if (!raw.contains("\u0001")) return new Node.Lit(raw);
-        // Template literal with expressions
-        List<Node> parts = new ArrayList<>();
+        // Template literal with expressions: çift indeksler sabit, tekler ifade
+        List<String> quasis = new ArrayList<>();
+        List<Node> exprs = new ArrayList<>();
         String[] segments = raw.split("\u0001", -1);
         for (int i = 0; i < segments.length; i++) {
             if (i % 2 == 0) {
-                // literal string part
-                if (!segments[i].isEmpty()) parts.add(new Node.Lit(segments[i]));
+                quasis.add(segments[i]);
             } else {
                 // expression part — re-parse
                 try {
                     List<Token> exprTokens = new Lexer(segments[i]).tokenize();
-                    Node expr = new Parser(exprTokens).parseExpression();
-                    parts.add(expr);
+                    Parser sub = new Parser(exprTokens);
+                    sub.inAsync = inAsync;
+                    exprs.add(sub.parseExpression());
                 } catch (Exception e) {
-                    parts.add(new Node.Lit("[error]"));
+                    exprs.add(new Node.Lit("[error]"));
                 }
             }
         }
-        return new Node.Template(parts);
+        if (quasis.size() == exprs.size()) quasis.add("");
+        return new Node.Template(List.copyOf(quasis), List.copyOf(exprs));
     }
 
     // ──────────────────────────────────────────────────────────────────
@@ -633,6 +682,16 @@ public class Parser {
 
     private Token peek() { return tokens.get(Math.min(pos, tokens.size() - 1)); }
 
+    private Token peekAt(int offset) { return tokens.get(Math.min(pos + offset, tokens.size() - 1)); }
+
+    /** Bu token bir ifadenin başlangıcı olabilir mi (await'in yanlış yerde kullanımını yakalamak için) */
+    private static boolean startsOperand(TokenType type) {
+        return switch (type) {
+            case IDENT, NUMBER, STRING, THIS, NEW, FUNCTION, LBRACK -> true;
+            default -> false;
+        };
+    }
+
     private Token advance() { return tokens.get(pos++); }
 
     private boolean at(TokenType type) { return peek().type() == type; }
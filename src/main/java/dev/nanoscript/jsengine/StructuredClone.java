@@ -0,0 +1,57 @@
+package dev.nanoscript.jsengine;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Thread'ler / motorlar arası değer aktarımı için derin kopya.
+ *
+ * JSObject, JSArray ve Environment thread-safe değildir; bir değer başka
+ * bir thread'e (veya izole bir NanoEngine'e) geçerken paylaşılmaz, kopyalanır.
+ * Desteklenenler: undefined, null, boolean, number, string, dizi ve düz objeler
+ * (döngüsel referanslar korunur). Fonksiyonlar ve Java nesneleri (Player,
+ * World...) kopyalanamaz — JsError fırlatılır.
+ */
+public final class StructuredClone {
+
+    private StructuredClone() {}
+
+    public static JSValue copy(JSValue value) {
+        return copy(value, new IdentityHashMap<>());
+    }
+
+    private static JSValue copy(JSValue value, Map<JSObject, JSValue> seen) {
+        if (value == null) return JSValue.UNDEFINED;
+        if (value.isFunction())
+            throw new JsError("Fonksiyonlar thread'ler arası aktarılamaz: " + value.asString());
+
+        return switch (value.getType()) {
+            // Primitive'ler değişmez — olduğu gibi paylaşılabilir
+            case UNDEFINED, NULL, BOOLEAN, NUMBER, STRING -> value;
+
+            case JAVA -> throw new JsError("Java nesneleri thread'ler arası aktarılamaz: "
+                    + (value.javaRaw() != null ? value.javaRaw().getClass().getSimpleName() : "null"));
+
+            case OBJECT -> {
+                JSObject src = value.asObject();
+                JSValue done = seen.get(src);
+                if (done != null) yield done;
+
+                if (src instanceof JSArray arr) {
+                    JSArray dst = new JSArray();
+                    JSValue wrapped = JSValue.of(dst);
+                    seen.put(src, wrapped);
+                    for (JSValue el : arr.elements()) dst.push(copy(el, seen));
+                    yield wrapped;
+                }
+
+                JSObject dst = new JSObject();
+                JSValue wrapped = JSValue.of(dst);
+                seen.put(src, wrapped);
+                for (Map.Entry<String, JSValue> e : src.ownProps().entrySet())
+                    dst.set(e.getKey(), copy(e.getValue(), seen));
+                yield wrapped;
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package dev.nanoscript.jsengine;
+
+/**
+ * Script CPU bekçisi — sonsuz döngünün sunucuyu dondurmasını engeller.
+ *
+ * Interpreter döngü geri dönüşlerinde ve fonksiyon girişinde safepoint()
+ * çağırır; bu yalnızca bir sayaç azaltmasıdır. Sayaç her POLL_INTERVAL
+ * safepoint'te bir bittiğinde check() saate bakar:
+ *   - invocation bütçesi: tek bir dış çağrının (event handler, zamanlayıcı,
+ *     dosya yükleme) süresi
+ *   - tick bütçesi: scriptin bu tick'te harcadığı toplam süre
+ * Aşımda fatal modda JS'in yakalayamadığı WatchdogError fırlatılır.
+ * Yakalanabilir modda önce JS hatası (try/catch ile yakalanabilir) atılır;
+ * script buna rağmen bir sonraki kontrolde hâlâ bütçe dışındaysa fatal olur.
+ *
+ * Motorun thread'inden kullanılır; metrikler /ns list için okunur, abort()
+ * başka bir thread'den çağrılabilir.
+ */
+public final class Watchdog {
+
+    /** Saat okumaları arasındaki safepoint sayısı */
+    public static final int POLL_INTERVAL = 1024;
+
+    /** JS tarafından yakalanamayan bütçe aşımı — çağrıyı her durumda sonlandırır */
+    public static final class WatchdogError extends JsError {
+        public WatchdogError(String message) { super(message); }
+    }
+
+    private final long invocationBudgetNanos; // 0 = sınırsız
+    private final long tickBudgetNanos;       // 0 = sınırsız
+    private final boolean fatal;
+
+    private boolean active = false;
+    private boolean tripped = false;
+    private long invocationStart;
+    private long tickUsed;
+    /** abort() ile dışarıdan durdurma nedeni — null değilse her kontrol fatal */
+    private volatile String abortReason;
+
+    // Metrikler
+    private volatile long lastTickNanos;
+    private volatile long totalNanos;
+    private volatile int violations;
+
+    public Watchdog(double invocationMs, double tickMs, boolean fatal) {
+        this.invocationBudgetNanos = (long) (Math.max(0, invocationMs) * 1_000_000);
+        this.tickBudgetNanos       = (long) (Math.max(0, tickMs) * 1_000_000);
+        this.fatal = fatal;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Invocation
+    // ──────────────────────────────────────────────────────────────────
+
+    /** En dıştaki çağrı başlarken (iç içe çağrılar yok sayılır) */
+    void enter() {
+        if (active) return;
+        active = true;
+        tripped = false;
+        invocationStart = System.nanoTime();
+    }
+
+    /** En dıştaki çağrı biterken: süre tick ve toplam sayaçlarına eklenir */
+    void exit() {
+        if (!active) return;
+        active = false;
+        long spent = System.nanoTime() - invocationStart;
+        tickUsed += spent;
+        totalNanos += spent;
+    }
+
+    /** Per-tick görevden: tick bütçesi penceresini sıfırlar */
+    public void newTick() {
+        lastTickNanos = tickUsed;
+        tickUsed = 0;
+    }
+
+    /**
+     * Motoru başka bir thread'den durdurur (worker terminate): çalışan çağrı
+     * bir sonraki saat kontrolünde yakalanamayan WatchdogError ile sonlanır.
+     */
+    public void abort(String reason) {
+        abortReason = reason;
+    }
+
+    /** POLL_INTERVAL safepoint'te bir: saat okunur ve bütçeler denetlenir */
+    void check() {
+        if (abortReason != null) throw new WatchdogError(abortReason);
+        if (!active) return;
+        long spent = System.nanoTime() - invocationStart;
+        if (invocationBudgetNanos > 0 && spent > invocationBudgetNanos)
+            violate("Script CPU bütçesi aşıldı: çağrı " + ms(spent) + " ms sürdü (sınır " + ms(invocationBudgetNanos) + " ms)");
+        else if (tickBudgetNanos > 0 && tickUsed + spent > tickBudgetNanos)
+            violate("Script CPU bütçesi aşıldı: bu tick " + ms(tickUsed + spent) + " ms (sınır " + ms(tickBudgetNanos) + " ms)");
+    }
+
+    private void violate(String message) {
+        violations++;
+        if (fatal || tripped) throw new WatchdogError(message);
+        tripped = true;
+        throw new ThrowSignal(JSValue.of(message));
+    }
+
+    private static String ms(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Metrics
+    // ──────────────────────────────────────────────────────────────────
+
+    public int getViolations()     { return violations; }
+    public double getLastTickMs()  { return lastTickNanos / 1_000_000.0; }
+    public double getTotalMs()     { return totalNanos / 1_000_000.0; }
+    public boolean isFatal()       { return fatal; }
+}
@@ -0,0 +1,106 @@
+package dev.nanoscript.listener;
+
+import dev.nanoscript.engine.ScriptExecutor;
+import dev.nanoscript.jsengine.*;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * em.onBatched(event, key, windowTicks, handler) — patlama halinde gelen
+ * event'leri anahtar başına biriktirir, handler'ı pencere başına bir kez çağırır.
+ *
+ * Biriktirme Java'da yapılır; event geldiğinde JS'e girilmez. Anahtar
+ * hazır seçicilerden biriyse ("player", "world", "block", "global") tamamen
+ * Java'da hesaplanır; JS fonksiyonu verilirse anahtar için yine bir çağrı
+ * yapılır (handler çağrısından çok daha ucuz olsa da).
+ *
+ * Pencere sonunda handler(anahtar, events, toplam) ana thread'de çağrılır.
+ * Event nesneleri artık dağıtım dışında olduğundan yalnızca okunmalıdır
+ * (iptal vb. etkisizdir). Anahtar başına en fazla MAX_BATCH event tutulur;
+ * toplam sayı üçüncü argümandadır.
+ */
+public class BatchedListener extends DynamicListener {
+
+    /** Anahtar başına tutulan en fazla event */
+    private static final int MAX_BATCH = 1000;
+
+    private record Batch(JSArray events, int[] total) {}
+
+    private final String keySelector;   // null ise keyFn
+    private final JSFunction keyFn;
+    private Map<String, Batch> pending = new LinkedHashMap<>();
+
+    public BatchedListener(JSFunction callback, String eventName, NanoEngine engine,
+                           ScriptExecutor executor, Logger logger, boolean ignoreCancelled,
+                           EventFilter filter, JSValue key) {
+        super(callback, eventName, engine, executor, logger, ignoreCancelled, filter);
+        if (key.isFunction()) {
+            this.keyFn = (JSFunction) key;
+            this.keySelector = null;
+        } else {
+            this.keyFn = null;
+            this.keySelector = key.isNullish() ? "global" : key.asString();
+            if (!keySelector.matches("player|world|block|global"))
+                throw new JsError("em.onBatched: anahtar \"player\", \"world\", \"block\", \"global\" veya fonksiyon olmalı");
+        }
+    }
+
+    @Override
+    public void handleEvent(Event event, JSValue jsEvent) {
+        String key = keySelector != null
+                ? selectKey(event)
+                : executor.callAndWait(() -> engine.call(keyFn, new JSValue[]{ jsEvent }).asString(), null);
+        if (key == null) return;
+        synchronized (this) {
+            Batch batch = pending.computeIfAbsent(key, k -> new Batch(new JSArray(), new int[1]));
+            if (batch.total()[0]++ < MAX_BATCH) batch.events().push(jsEvent);
+        }
+    }
+
+    /** Pencere sonu (ana thread, zamanlayıcı çarkından): her anahtar için tek çağrı */
+    public void flush() {
+        Map<String, Batch> ready;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            ready = pending;
+            pending = new LinkedHashMap<>();
+        }
+        for (Map.Entry<String, Batch> e : ready.entrySet()) {
+            Batch batch = e.getValue();
+            try {
+                engine.call(callback, new JSValue[]{
+                        JSValue.of(e.getKey()), JSValue.of(batch.events()), JSValue.of(batch.total()[0]) });
+            } catch (JsError ex) {
+                logger.warning("[NanoScript] " + eventName + " toplu handler hatası: " + ex.getMessage());
+            } catch (Exception ex) {
+                logger.warning("[NanoScript] " + eventName + " beklenmedik hata: " + ex.getMessage());
+            }
+        }
+    }
+
+    private String selectKey(Event event) {
+        switch (keySelector) {
+            case "player" -> {
+                Player player = EventFilter.playerOf(event);
+                return player != null ? player.getName() : null;
+            }
+            case "world" -> {
+                World world = EventFilter.worldOf(event);
+                return world != null ? world.getName() : null;
+            }
+            case "block" -> {
+                if (!(event instanceof BlockEvent e)) return null;
+                Block b = e.getBlock();
+                return b.getWorld().getName() + ":" + b.getX() + "," + b.getY() + "," + b.getZ();
+            }
+            default -> { return "global"; }
+        }
+    }
+}
@@ -1,33 +1,54 @@
 package dev.nanoscript.listener;
 
+import dev.nanoscript.engine.ScriptExecutor;
 import dev.nanoscript.jsengine.*;
 import org.bukkit.event.Event;
-import org.bukkit.event.Listener;
 
 import java.util.logging.Logger;
 
 /**
- * Bukkit event geldiğinde JS callback'i çağıran listener.
- * Artık Rhino yerine NanoEngine kullanıyor.
+ * Bukkit event geldiğinde JS callback'i çağıran handler.
+ * Artık Rhino yerine NanoEngine kullanıyor. Bukkit'e doğrudan kaydedilmez;
+ * EventHub aynı event'i dinleyen tüm handler'lara dağıtır.
+ *
+ * Async event'ler (AsyncPlayerChatEvent vb.) başka thread'den gelir; handler
+ * scriptin ScriptExecutor'ı üzerinden ana thread'de çalıştırılır ve async
+ * thread sonucu bekler, böylece event yine iptal edilebilir/değiştirilebilir.
  */
-public class DynamicListener implements Listener {
+public class DynamicListener {
 
-    private final JSFunction callback;
-    private final String eventName;
-    private final NanoEngine engine;
-    private final Logger logger;
+    protected final JSFunction callback;
+    protected final String eventName;
+    protected final NanoEngine engine;
+    protected final ScriptExecutor executor;
+    protected final Logger logger;
+    private final boolean ignoreCancelled;
+    private final EventFilter filter; // null = her event
 
-    public DynamicListener(JSFunction callback, String eventName, NanoEngine engine, Logger logger) {
+    public DynamicListener(JSFunction callback, String eventName, NanoEngine engine,
+                           ScriptExecutor executor, Logger logger, boolean ignoreCancelled,
+                           EventFilter filter) {
         this.callback  = callback;
         this.eventName = eventName;
         this.engine    = engine;
+        this.executor  = executor;
         this.logger    = logger;
+        this.ignoreCancelled = ignoreCancelled;
+        this.filter = filter;
     }
 
-    public void handleEvent(Event event) {
+    /** Filtre Java'da, JS çağrısından (ve async event'te ana thread beklemesinden) önce */
+    public boolean accepts(Event event) {
+        return filter == null || filter.test(event);
+    }
+
+    /** @param jsEvent EventHub'ın bu dağıtım için bir kez sardığı event */
+    public void handleEvent(Event event, JSValue jsEvent) {
+        executor.callAndWait(() -> { invoke(jsEvent); return null; }, null);
+    }
+
+    private void invoke(JSValue jsEvent) {
         try {
-            // Java Event nesnesini JSValue'ya sar ve callback'e gönder
-            JSValue jsEvent = JSValue.wrap(event);
             engine.call(callback, new JSValue[]{jsEvent});
         } catch (JsError e) {
             logger.warning("[NanoScript] " + eventName + " handler hatası: " + e.getMessage());
@@ -36,5 +57,6 @@ public class DynamicListener implements Listener {
         }
     }
 
-    public String getEventName() { return eventName; }
+    public String getEventName()      { return eventName; }
+    public boolean isIgnoreCancelled() { return ignoreCancelled; }
 }
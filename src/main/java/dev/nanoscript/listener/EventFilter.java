@@ -0,0 +1,193 @@
+package dev.nanoscript.listener;
+
+import dev.nanoscript.jsengine.JSArray;
+import dev.nanoscript.jsengine.JSObject;
+import dev.nanoscript.jsengine.JSValue;
+import dev.nanoscript.jsengine.JsError;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.inventory.InventoryInteractEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.world.WorldEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.reflect.Method;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * em.on seçeneklerindeki bildirimsel filtre — JS'e girmeden Java'da değerlendirilir.
+ *
+ *   em.on("PlayerMoveEvent", fn, {
+ *       blockChanged: true,          // yalnızca blok değiştiyse (baş çevirme elenir)
+ *       minDistance: 0.5,            // from → to en az bu kadar
+ *       worlds: ["world", "nether"], // yalnızca bu dünyalarda
+ *       permission: "vip.trail",     // oyuncunun izni olmalı
+ *       item: ["DIAMOND_SWORD"],     // event'in item'ı / eldeki item
+ *       throttleMs: 250              // oyuncu başına en fazla 250 ms'de bir
+ *   })
+ *
+ * Sıralama ucuzdan pahalıya; throttle durum tuttuğu için en sonda.
+ */
+public final class EventFilter {
+
+    /** Throttle tablosunun budanma eşiği (çıkmış oyuncuların kayıtları) */
+    private static final int THROTTLE_PRUNE_SIZE = 1024;
+    /** Oyuncu çıkarılamayan event'lerde throttle tek anahtar kullanır */
+    private static final UUID GLOBAL_KEY = new UUID(0, 0);
+
+    private static final ClassValue<Method> PLAYER_GETTER = new ClassValue<>() {
+        @Override protected Method computeValue(Class<?> type) { return getter(type, "getPlayer", Player.class); }
+    };
+    private static final ClassValue<Method> ITEM_GETTER = new ClassValue<>() {
+        @Override protected Method computeValue(Class<?> type) { return getter(type, "getItem", ItemStack.class); }
+    };
+
+    private final boolean blockChanged;
+    private final double minDistanceSq;
+    private final Set<String> worlds;
+    private final String permission;
+    private final Set<Material> items;
+    private final long throttleMs;
+    private final Map<UUID, Long> lastPass;
+
+    private EventFilter(boolean blockChanged, double minDistance, Set<String> worlds,
+                        String permission, Set<Material> items, long throttleMs) {
+        this.blockChanged  = blockChanged;
+        this.minDistanceSq = minDistance * minDistance;
+        this.worlds        = worlds;
+        this.permission    = permission;
+        this.items         = items;
+        this.throttleMs    = throttleMs;
+        this.lastPass      = throttleMs > 0 ? new ConcurrentHashMap<>() : null;
+    }
+
+    /** Seçeneklerden filtre kurar; filtre anahtarı yoksa null */
+    public static EventFilter from(JSObject opts) {
+        if (opts == null) return null;
+        boolean blockChanged = opts.get("blockChanged").asBoolean();
+        double minDistance   = opts.has("minDistance") ? opts.get("minDistance").asNumber() : 0;
+        Set<String> worlds   = opts.has("worlds") ? strings(opts.get("worlds")) : null;
+        String permission    = opts.has("permission") ? opts.get("permission").asString() : null;
+        Set<Material> items  = null;
+        if (opts.has("item")) {
+            items = EnumSet.noneOf(Material.class);
+            for (String name : strings(opts.get("item"))) {
+                Material m = Material.matchMaterial(name);
+                if (m == null) throw new JsError("em.on filtresi: bilinmeyen item '" + name + "'");
+                items.add(m);
+            }
+        }
+        long throttleMs = opts.has("throttleMs") ? opts.get("throttleMs").asLong() : 0;
+
+        if (!blockChanged && minDistance <= 0 && worlds == null && permission == null
+                && items == null && throttleMs <= 0) return null;
+        return new EventFilter(blockChanged, minDistance, worlds, permission, items, throttleMs);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Test
+    // ──────────────────────────────────────────────────────────────────
+
+    public boolean test(Event event) {
+        if ((blockChanged || minDistanceSq > 0) && event instanceof PlayerMoveEvent move && !moved(move)) return false;
+
+        if (worlds != null) {
+            World world = worldOf(event);
+            if (world == null || !worlds.contains(world.getName())) return false;
+        }
+
+        Player player = (permission != null || items != null || throttleMs > 0) ? playerOf(event) : null;
+        if (permission != null && (player == null || !player.hasPermission(permission))) return false;
+
+        if (items != null) {
+            ItemStack item = itemOf(event, player);
+            if (item == null || !items.contains(item.getType())) return false;
+        }
+
+        if (throttleMs > 0) return throttle(player != null ? player.getUniqueId() : GLOBAL_KEY);
+        return true;
+    }
+
+    private boolean moved(PlayerMoveEvent move) {
+        Location from = move.getFrom(), to = move.getTo();
+        if (to == null) return false;
+        if (from.getWorld() != to.getWorld()) return true;
+        if (blockChanged && from.getBlockX() == to.getBlockX()
+                && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ()) return false;
+        return minDistanceSq <= 0 || from.distanceSquared(to) >= minDistanceSq;
+    }
+
+    private boolean throttle(UUID key) {
+        long now = System.currentTimeMillis();
+        Long last = lastPass.get(key);
+        if (last != null && now - last < throttleMs) return false;
+        lastPass.put(key, now);
+        if (lastPass.size() > THROTTLE_PRUNE_SIZE) lastPass.values().removeIf(t -> now - t >= throttleMs);
+        return true;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Event alanları
+    // ──────────────────────────────────────────────────────────────────
+
+    static World worldOf(Event event) {
+        if (event instanceof PlayerEvent e) return e.getPlayer().getWorld();
+        if (event instanceof EntityEvent e) return e.getEntity().getWorld();
+        if (event instanceof BlockEvent e)  return e.getBlock().getWorld();
+        if (event instanceof WorldEvent e)  return e.getWorld();
+        Player player = playerOf(event);
+        return player != null ? player.getWorld() : null;
+    }
+
+    static Player playerOf(Event event) {
+        if (event instanceof PlayerEvent e) return e.getPlayer();
+        if (event instanceof EntityEvent e) return e.getEntity() instanceof Player p ? p : null;
+        if (event instanceof InventoryInteractEvent e) return e.getWhoClicked() instanceof Player p ? p : null;
+        // BlockBreakEvent, BlockPlaceEvent vb. — getPlayer() sınıf başına bir kez aranır
+        return (Player) invoke(PLAYER_GETTER.get(event.getClass()), event);
+    }
+
+    private static ItemStack itemOf(Event event, Player player) {
+        ItemStack item = (ItemStack) invoke(ITEM_GETTER.get(event.getClass()), event);
+        if (item != null) return item;
+        return player != null ? player.getInventory().getItemInMainHand() : null;
+    }
+
+    private static Method getter(Class<?> type, String name, Class<?> returnType) {
+        try {
+            Method m = type.getMethod(name);
+            return returnType.isAssignableFrom(m.getReturnType()) ? m : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Method getter, Event event) {
+        if (getter == null) return null;
+        try { return getter.invoke(event); }
+        catch (ReflectiveOperationException e) { return null; }
+    }
+
+    private static Set<String> strings(JSValue value) {
+        Set<String> out = new HashSet<>();
+        if (value.isArray()) {
+            JSArray arr = value.asArray();
+            for (JSValue v : arr.elements()) out.add(v.asString());
+        } else {
+            out.add(value.asString());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,128 @@
+package dev.nanoscript.listener;
+
+import dev.nanoscript.NanoScript;
+import dev.nanoscript.jsengine.JSValue;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tüm scriptlerin em.on handler'larını toplayan event dağıtıcısı.
+ *
+ * Her (event sınıfı, öncelik) çifti için Bukkit'e tek bir executor kaydedilir;
+ * o çifte kayıtlı bütün scriptlerin handler'ları bir kanalda copy-on-write
+ * dizide tutulur. Event dağıtımda bir kez JSValue'ya sarılır (sarmalayıcı
+ * değişmezdir, scriptler arasında paylaşılabilir) ve ignoreCancelled
+ * handler'lar JS'e girmeden elenir. 40 script PlayerMoveEvent dinlese bile
+ * Bukkit'te tek bir handler yuvası vardır.
+ *
+ * Kayıt / kaldırma ana thread'den yapılır; dağıtım async event'ler için
+ * başka thread'den de gelebilir (dizi volatile okunur).
+ */
+public class EventHub {
+
+    private record Key(Class<? extends Event> type, EventPriority priority) {}
+
+    private final NanoScript plugin;
+    private final Map<Key, Channel> channels = new ConcurrentHashMap<>();
+
+    public EventHub(NanoScript plugin) {
+        this.plugin = plugin;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Registration
+    // ──────────────────────────────────────────────────────────────────
+
+    public synchronized void register(Class<? extends Event> type, EventPriority priority, DynamicListener handler) {
+        Key key = new Key(type, priority);
+        Channel channel = channels.get(key);
+        if (channel == null) {
+            channel = new Channel(type);
+            Bukkit.getPluginManager().registerEvent(type, channel, priority,
+                    (listener, event) -> ((Channel) listener).dispatch(event), plugin, false);
+            channels.put(key, channel);
+        }
+        channel.add(handler);
+    }
+
+    /** Handler'ı kaldırır; boşalan kanalın Bukkit kaydı da silinir */
+    public synchronized void unregister(DynamicListener handler) {
+        channels.entrySet().removeIf(entry -> {
+            Channel channel = entry.getValue();
+            if (!channel.remove(handler) || channel.handlers.length > 0) return false;
+            HandlerList.unregisterAll(channel);
+            return true;
+        });
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Dispatch
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Bir (event sınıfı, öncelik) için Bukkit'e kayıtlı tek listener */
+    private static final class Channel implements Listener {
+        private static final DynamicListener[] EMPTY = new DynamicListener[0];
+
+        private final Class<? extends Event> type;
+        private volatile DynamicListener[] handlers = EMPTY;
+
+        Channel(Class<? extends Event> type) {
+            this.type = type;
+        }
+
+        void add(DynamicListener handler) {
+            DynamicListener[] next = Arrays.copyOf(handlers, handlers.length + 1);
+            next[next.length - 1] = handler;
+            handlers = next;
+        }
+
+        boolean remove(DynamicListener handler) {
+            DynamicListener[] current = handlers;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] != handler) continue;
+                DynamicListener[] next = new DynamicListener[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                handlers = next;
+                return true;
+            }
+            return false;
+        }
+
+        void dispatch(Event event) {
+            // Alt sınıf event'leri üst sınıfın HandlerList'ini paylaşabilir
+            if (!type.isInstance(event)) return;
+            DynamicListener[] current = handlers;
+            if (current.length == 0) return;
+
+            JSValue wrapped = JSValue.wrap(event);
+            Cancellable cancellable = event instanceof Cancellable c ? c : null;
+            for (DynamicListener handler : current) {
+                if (handler.isIgnoreCancelled() && cancellable != null && cancellable.isCancelled()) continue;
+                if (!handler.accepts(event)) continue;
+                handler.handleEvent(event, wrapped);
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Status
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Bukkit'e kayıtlı listener sayısı ((sınıf, öncelik) çifti başına bir) */
+    public int getChannelCount() { return channels.size(); }
+
+    public int getHandlerCount() {
+        int total = 0;
+        for (Channel channel : channels.values()) total += channel.handlers.length;
+        return total;
+    }
+}
@@ -0,0 +1,202 @@
+package dev.nanoscript.listener;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Logger;
+
+/**
+ * Event adı → sınıf dizini (em.on("PlayerJoinEvent", ...) çözümlemesi).
+ *
+ * İlk aramada bir kez kurulur: sunucu API jar'ındaki event paketleri ve
+ * yüklü plugin jar'ları taranır, adı "Event" ile biten sınıflar basit ad
+ * (küçük harf) → aday listesi olarak kaydedilir. Sınıflar yalnızca
+ * istendiğinde ve initialize edilmeden yüklenir; sonuç önbelleğe alınır.
+ * Dizin plugin ömrü boyunca tektir, script reload'larında yeniden kurulmaz.
+ *
+ * Eski yöntem (her paket için Class.forName + ClassNotFoundException)
+ * API jar'ı taranamadıysa ya da adın hiç adayı yoksa geri dönüş olarak
+ * kullanılır.
+ */
+public class EventIndex {
+
+    /** API jar'ında taranan paketler (öncelik sırasıyla; aynı ad çakışırsa ilki kazanır) */
+    private static final String[] API_PACKAGES = {
+            "org/bukkit/event/",
+            "io/papermc/paper/event/",
+            "com/destroystokyo/paper/event/",
+    };
+
+    /** API jar'ı taranamazsa ya da ad dizinde yoksa denenecek paketler */
+    private static final String[] FALLBACK_PACKAGES = {
+            "org.bukkit.event.player.",
+            "org.bukkit.event.block.",
+            "org.bukkit.event.entity.",
+            "org.bukkit.event.inventory.",
+            "org.bukkit.event.server.",
+            "org.bukkit.event.world.",
+            "org.bukkit.event.weather.",
+            "org.bukkit.event.vehicle.",
+            "org.bukkit.event.hanging.",
+            "io.papermc.paper.event.player.",
+            "io.papermc.paper.event.entity.",
+    };
+
+    private record Candidate(String className, ClassLoader loader) {}
+
+    private final Logger logger;
+    private Map<String, List<Candidate>> candidates;
+    /** API jar'ı bulunup okunabildi — değilse Bukkit event'leri dizinde yok */
+    private boolean apiIndexed;
+    private final Map<String, Class<? extends Event>> resolved = new HashMap<>();
+
+    public EventIndex(Logger logger) {
+        this.logger = logger;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Lookup
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Basit ad (büyük/küçük harf duyarsız) veya tam sınıf adıyla event sınıfını bulur.
+     * @return bulunamazsa null
+     */
+    public synchronized Class<? extends Event> resolve(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Class<? extends Event> cached = resolved.get(key);
+        if (cached != null) return cached;
+
+        Class<? extends Event> found = name.indexOf('.') >= 0 ? load(name, EventIndex.class.getClassLoader()) : lookup(name, key);
+        if (found != null) resolved.put(key, found);
+        return found;
+    }
+
+    private Class<? extends Event> lookup(String name, String key) {
+        ensureBuilt();
+        List<Candidate> list = candidates.get(key);
+        Class<? extends Event> found = list != null ? first(list) : null;
+        if (found != null || (apiIndexed && list != null)) return found;
+        for (String pkg : FALLBACK_PACKAGES) {
+            Class<? extends Event> c = load(pkg + name, EventIndex.class.getClassLoader());
+            if (c != null) return c;
+        }
+        return null;
+    }
+
+    /** Adaylardan yüklenebilen ilk Event alt sınıfı */
+    private static Class<? extends Event> first(List<Candidate> list) {
+        for (Candidate c : list) {
+            Class<? extends Event> type = load(c.className(), c.loader());
+            if (type != null) return type;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Event> load(String className, ClassLoader loader) {
+        try {
+            Class<?> type = Class.forName(className, false, loader);
+            return Event.class.isAssignableFrom(type) ? (Class<? extends Event>) type : null;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * /ns events — filtreyle eşleşen basit adlar (sıralı). Plugin jar'larındaki
+     * adaylar yalnızca ada göre toplandığından Event olmayanlar burada elenir.
+     */
+    public synchronized List<String> list(String filter) {
+        ensureBuilt();
+        String f = filter == null ? "" : filter.toLowerCase(Locale.ROOT);
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, List<Candidate>> e : candidates.entrySet()) {
+            if (!e.getKey().contains(f)) continue;
+            Class<? extends Event> type = resolved.get(e.getKey());
+            if (type == null) type = first(e.getValue());
+            if (type == null) continue;
+            resolved.put(e.getKey(), type);
+            names.add(type.getSimpleName());
+        }
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+        return names;
+    }
+
+    public synchronized int size() {
+        ensureBuilt();
+        return candidates.size();
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Build
+    // ──────────────────────────────────────────────────────────────────
+
+    private void ensureBuilt() {
+        if (candidates != null) return;
+        candidates = new HashMap<>();
+        long start = System.nanoTime();
+
+        File apiJar = jarOf(Event.class);
+        apiIndexed = apiJar != null && scan(apiJar, Event.class.getClassLoader(), API_PACKAGES);
+
+        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+            File jar = jarOf(plugin.getClass());
+            if (jar != null && !jar.equals(apiJar)) scan(jar, plugin.getClass().getClassLoader(), null);
+        }
+
+        logger.info("[NanoScript] Event dizini: " + candidates.size() + " event, "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * @param prefixes yalnızca bu paketler (null = tüm jar)
+     * @return jar okunabildi
+     */
+    private boolean scan(File jar, ClassLoader loader, String[] prefixes) {
+        try (JarFile file = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = file.entries();
+            while (entries.hasMoreElements()) {
+                String path = entries.nextElement().getName();
+                if (!path.endsWith("Event.class") || path.indexOf('$') >= 0) continue;
+                if (prefixes != null && !startsWithAny(path, prefixes)) continue;
+                String className = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+                String simple = className.substring(className.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+                candidates.computeIfAbsent(simple, k -> new ArrayList<>(1)).add(new Candidate(className, loader));
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warning("[NanoScript] Event dizini: " + jar.getName() + " okunamadı: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean startsWithAny(String path, String[] prefixes) {
+        for (String p : prefixes) if (path.startsWith(p)) return true;
+        return false;
+    }
+
+    private static File jarOf(Class<?> type) {
+        try {
+            CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source == null) return null;
+            File file = new File(source.getLocation().toURI());
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException | SecurityException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
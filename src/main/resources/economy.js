@@ -3,7 +3,7 @@
  * Dosya: plugins/NanoScript/scripts/economy.js
  *
  * ✅ Reload, sunucu restart → bakiyeler KORUNUR
- * Veriler: plugins/NanoScript/data/economy.json
+ * Veriler: plugins/NanoScript/data/economy.nsb (okunabilir kopya: db.export())
  *
  * ESKİ YÖNTEM (bellekte, reload'da silinir):
  *   const accounts = {};           ← Bunu KULLANMA!
@@ -15,7 +15,7 @@
  */
 
 const server = getServer();
-const db = server.getStorage();   // → economy.json (otomatik kaydeder)
+const db = server.getStorage();   // → economy.nsb (otomatik kaydeder)
 const cm = server.getCommandManager();
 const em = server.getEventManager();
 
@@ -193,4 +193,4 @@ server.repeat(20 * 60 * 5, function() {
     db.save();
 });
 
-server.log("Ekonomi yüklendi! Kalıcı depolama: plugins/NanoScript/data/economy.json");
+server.log("Ekonomi yüklendi! Kalıcı depolama: plugins/NanoScript/data/economy.nsb");
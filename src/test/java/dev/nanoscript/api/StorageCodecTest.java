@@ -0,0 +1,122 @@
+package dev.nanoscript.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** NSB biçimi: sayıların bit bit korunması, deflate açık/kapalı ve bozuk başlıklar */
+class StorageCodecTest {
+
+    private static JsonObject roundTrip(JsonObject root, boolean compress) throws IOException {
+        byte[] bytes = StorageCodec.frame(StorageCodec.encode(root), compress);
+        assertTrue(StorageCodec.isBinary(bytes));
+        return StorageCodec.decode(bytes);
+    }
+
+    /** Gson -0.0 ile 0.0'ı eşit sayar; double'lar bitleriyle karşılaştırılır */
+    private static void assertSameBits(double expected, double actual) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual),
+                expected + " yerine " + actual);
+    }
+
+    private static JsonObject sample() {
+        JsonObject root = new JsonObject();
+        root.addProperty("name", "Steve");
+        root.addProperty("unicode", "ğüşıöç ✓ 𝄞");
+        root.addProperty("empty", "");
+        root.addProperty("on", true);
+        root.addProperty("off", false);
+        root.add("nothing", JsonNull.INSTANCE);
+        root.addProperty("int", 42);
+        root.addProperty("negative", -7);
+
+        JsonArray list = new JsonArray();
+        list.add("Steve");
+        list.add(1.5);
+        list.add(JsonNull.INSTANCE);
+        JsonObject nested = new JsonObject();
+        nested.addProperty("Steve", "Steve");
+        nested.add("deeper", new JsonArray());
+        list.add(nested);
+        root.add("list", list);
+        return root;
+    }
+
+    @Test
+    void treeRoundTripsWithAndWithoutDeflate() throws IOException {
+        JsonObject root = sample();
+        assertEquals(root, roundTrip(root, false));
+        assertEquals(root, roundTrip(root, true));
+    }
+
+    @Test
+    void numbersKeepTheirExactBits() throws IOException {
+        double[] values = {
+                0.0, -0.0, 1, -1, 0.1, -2.5, 1e300, -1e-300, Double.MIN_VALUE, Double.MAX_VALUE,
+                (1L << 53) - 1, -((1L << 53) - 1), 1L << 53, 1e17 + 64,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        };
+        JsonObject root = new JsonObject();
+        for (int i = 0; i < values.length; i++) root.addProperty("n" + i, values[i]);
+
+        for (boolean compress : new boolean[] { false, true }) {
+            JsonObject back = roundTrip(root, compress);
+            for (int i = 0; i < values.length; i++) {
+                assertSameBits(values[i], back.get("n" + i).getAsDouble());
+            }
+        }
+    }
+
+    @Test
+    void repeatedStringsAreStoredOnce() throws IOException {
+        JsonObject root = new JsonObject();
+        String uuid = "069a79f4-44e9-4726-a5be-fca90e38aaf5";
+        for (int i = 0; i < 100; i++) {
+            JsonObject player = new JsonObject();
+            player.addProperty("uuid", uuid);
+            player.addProperty("coins", i);
+            root.add("p" + i, player);
+        }
+        byte[] body = StorageCodec.encode(root);
+        byte[] needle = uuid.getBytes(StandardCharsets.UTF_8);
+        int hits = 0;
+        for (int i = 0; i + needle.length <= body.length; i++) {
+            if (Arrays.equals(body, i, i + needle.length, needle, 0, needle.length)) hits++;
+        }
+        assertEquals(1, hits);
+
+        byte[] compressed = StorageCodec.frame(body, true);
+        assertTrue(compressed.length < StorageCodec.frame(body, false).length);
+        assertEquals(root, StorageCodec.decode(compressed));
+    }
+
+    @Test
+    void rejectsForeignOrDamagedBytes() throws IOException {
+        byte[] json = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        assertFalse(StorageCodec.isBinary(json));
+        assertThrows(IOException.class, () -> StorageCodec.decode(json));
+
+        byte[] plain = StorageCodec.frame(StorageCodec.encode(sample()), false);
+        byte[] future = plain.clone();
+        future[3] = 2;
+        IOException version = assertThrows(IOException.class, () -> StorageCodec.decode(future));
+        assertTrue(version.getMessage().contains("sürüm"), version.getMessage());
+
+        byte[] truncated = Arrays.copyOf(plain, plain.length / 2);
+        assertThrows(IOException.class, () -> StorageCodec.decode(truncated));
+
+        byte[] compressed = StorageCodec.frame(StorageCodec.encode(sample()), true);
+        byte[] cut = Arrays.copyOf(compressed, compressed.length / 2);
+        assertThrows(IOException.class, () -> StorageCodec.decode(cut));
+    }
+}
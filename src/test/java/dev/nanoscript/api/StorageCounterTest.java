@@ -0,0 +1,136 @@
+package dev.nanoscript.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Sayaç deposu: eşzamanlı add, büyüme, yeniden açılış ve çökmeden kalan yuvalar */
+class StorageCounterTest {
+
+    @TempDir
+    File dir;
+
+    private StorageFlusher flusher;
+
+    @BeforeEach
+    void startFlusher() {
+        flusher = new StorageFlusher(Logger.getLogger("StorageCounterTest"), 20, 64);
+    }
+
+    @AfterEach
+    void stopFlusher() {
+        flusher.shutdown();
+    }
+
+    private StorageCounter open() throws IOException {
+        return StorageCounter.open(dir, "kills", "test/kills", flusher);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        StorageCounter counter = open();
+        int threads = 8;
+        int rounds = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        counter.add("shared", 1);
+                        counter.add("odd" + (i % 2), 2);
+                        // Her thread kendi anahtarlarını da ekler: yuva ayırma ve büyüme yarışır
+                        if (i % 100 == 0) counter.add("t" + id + "-" + i, id);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals((long) threads * rounds, counter.get("shared"));
+        assertEquals((long) threads * rounds, counter.get("odd0"));
+        assertEquals((long) threads * rounds, counter.get("odd1"));
+        assertEquals(3 + threads * (rounds / 100), counter.size());
+        assertEquals(7, counter.get("t7-19900"));
+        counter.close();
+    }
+
+    @Test
+    void valuesAndKeysSurviveReopen() throws IOException {
+        StorageCounter counter = open();
+        // İlk kapasite 1024 yuva; dosya en az bir kez büyür
+        for (int i = 0; i < 3000; i++) counter.add("p" + i, i);
+        counter.add("p0", -5);
+        counter.set("p1", Long.MAX_VALUE);
+        counter.close();
+        assertThrows(IllegalStateException.class, () -> counter.add("new", 1));
+
+        StorageCounter reopened = open();
+        assertEquals(3000, reopened.size());
+        assertEquals(-5, reopened.get("p0"));
+        assertEquals(Long.MAX_VALUE, reopened.get("p1"));
+        assertEquals(2999, reopened.get("p2999"));
+        assertEquals(0, reopened.get("missing"));
+        assertFalse(reopened.has("missing"));
+        List<String> keys = reopened.keys();
+        assertEquals("p0", keys.get(0));
+        assertEquals("p2999", keys.get(2999));
+
+        assertEquals(2999 + 1, reopened.add("p2999", 1));
+        assertEquals(1, reopened.add("p3000", 1));
+        reopened.close();
+    }
+
+    @Test
+    void slotWhoseKeyWasLostIsReset() throws IOException {
+        StorageCounter counter = open();
+        counter.add("alex", 3);
+        counter.add("steve", 4);
+        counter.close();
+        // Çökme: steve'in değeri dosyada ama anahtar satırı yarım kaldı
+        File keys = new File(dir, "kills.keys");
+        Files.writeString(keys.toPath(), "alex\nste", StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+
+        StorageCounter reopened = open();
+        assertEquals(List.of("alex"), reopened.keys());
+        assertEquals(3, reopened.get("alex"));
+        // Yeni anahtar aynı yuvayı alır ve eski değeri devralmaz
+        assertEquals(1, reopened.add("zombie", 1));
+        reopened.close();
+        assertEquals("alex\nzombie\n", Files.readString(keys.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void foreignFileIsRejected() throws IOException {
+        Files.write(new File(dir, "kills.cnt").toPath(), new byte[64]);
+        IOException e = assertThrows(IOException.class, this::open);
+        assertTrue(e.getMessage().contains("sayaç dosyası değil"), e.getMessage());
+    }
+}
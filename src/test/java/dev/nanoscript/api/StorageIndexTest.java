@@ -0,0 +1,97 @@
+package dev.nanoscript.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Skip list dizini: top / rank / range, her adımda sıralanmış bir referansla karşılaştırılır */
+class StorageIndexTest {
+
+    /** Dizinin sırası: değer büyükten küçüğe, eşitlikte anahtar alfabetik */
+    private static final Comparator<StorageIndex.Entry> ORDER =
+            Comparator.comparingDouble(StorageIndex.Entry::value).reversed()
+                      .thenComparing(StorageIndex.Entry::key);
+
+    private static List<StorageIndex.Entry> sorted(Map<String, Double> reference) {
+        List<StorageIndex.Entry> out = new ArrayList<>();
+        reference.forEach((k, v) -> out.add(new StorageIndex.Entry(k, v)));
+        out.sort(ORDER);
+        return out;
+    }
+
+    private static void assertMatches(StorageIndex index, Map<String, Double> reference) {
+        List<StorageIndex.Entry> expected = sorted(reference);
+        assertEquals(expected.size(), index.size());
+        assertEquals(expected, index.top(Integer.MAX_VALUE));
+        assertEquals(expected.subList(0, Math.min(10, expected.size())), index.top(10));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, index.rank(expected.get(i).key()), expected.get(i).key());
+        }
+    }
+
+    @Test
+    void randomUpdatesMatchSortedReference() {
+        StorageIndex index = new StorageIndex();
+        Map<String, Double> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 5_000; step++) {
+            String key = "p" + random.nextInt(300);
+            if (random.nextInt(5) == 0) {
+                index.remove(key);
+                reference.remove(key);
+            } else {
+                // Küçük değer aralığı: eşit değerlerde anahtar sırası da sınanır
+                double value = random.nextInt(50);
+                index.put(key, value);
+                reference.put(key, value);
+            }
+            if (step % 500 == 0) assertMatches(index, reference);
+        }
+        assertMatches(index, reference);
+    }
+
+    @Test
+    void rangeIsInclusiveDescendingAndLimited() {
+        StorageIndex index = new StorageIndex();
+        Map<String, Double> reference = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            double value = (i * 37) % 101 - 50.5;
+            index.put("k" + i, value);
+            reference.put("k" + i, value);
+        }
+        double[][] ranges = { { -10, 10 }, { -50.5, -50.5 }, { 100, 200 }, { -1e9, 1e9 }, { 3.5, 3.5 } };
+        for (double[] r : ranges) {
+            List<StorageIndex.Entry> expected = new ArrayList<>();
+            for (StorageIndex.Entry e : sorted(reference)) {
+                if (e.value() >= r[0] && e.value() <= r[1]) expected.add(e);
+            }
+            assertEquals(expected, index.range(r[0], r[1], Integer.MAX_VALUE));
+            assertEquals(expected.subList(0, Math.min(3, expected.size())), index.range(r[0], r[1], 3));
+        }
+    }
+
+    @Test
+    void missingKeyHasNoRankAndClearEmpties() {
+        StorageIndex index = new StorageIndex();
+        index.put("a", 1);
+        index.put("b", 2);
+        assertEquals(-1, index.rank("c"));
+        index.put("a", 3);
+        assertEquals(1, index.rank("a"));
+        assertEquals(2, index.rank("b"));
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(List.of(), index.top(5));
+        assertEquals(-1, index.rank("a"));
+        index.put("z", 0);
+        assertEquals(1, index.rank("z"));
+    }
+}
@@ -0,0 +1,190 @@
+package dev.nanoscript.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** WAL: kayıt sırası, yarım satırlar, batch kayıtları ve sıkıştırma sonrası tekrar oynatma */
+class StorageLogTest {
+
+    @TempDir
+    File dir;
+
+    /** StorageManager'ın yaptığı gibi: durum ve log birlikte güncellenir */
+    private final JsonObject state = new JsonObject();
+
+    private StorageLog open() {
+        return new StorageLog(dir, "test", () -> state, false);
+    }
+
+    private void set(StorageLog log, String key, double value) {
+        state.addProperty(key, value);
+        log.recordSet(key, new JsonPrimitive(value));
+    }
+
+    private void push(StorageLog log, String key, String value) {
+        if (!state.has(key)) state.add(key, new JsonArray());
+        JsonArray arr = state.getAsJsonArray(key);
+        arr.add(value);
+        log.recordPush(key, new JsonPrimitive(value), arr.size());
+    }
+
+    private static List<JsonObject> replay(StorageLog log) throws IOException {
+        List<JsonObject> records = new ArrayList<>();
+        log.replay(records::add);
+        return records;
+    }
+
+    private static List<String> ops(List<JsonObject> records) {
+        List<String> ops = new ArrayList<>();
+        for (JsonObject r : records) ops.add(r.get("o").getAsString() + (r.has("k") ? " " + r.get("k").getAsString() : ""));
+        return ops;
+    }
+
+    /**
+     * StorageManager.apply ile aynı kayıt anlamı; push'taki "n" alanı
+     * anlık görüntüde zaten bulunan öğenin tekrar eklenmesini önler.
+     */
+    private static void apply(JsonObject root, JsonObject record) {
+        String key = record.has("k") ? record.get("k").getAsString() : null;
+        switch (record.get("o").getAsString()) {
+            case "set"   -> root.add(key, record.get("v"));
+            case "del"   -> root.remove(key);
+            case "clear" -> root.entrySet().clear();
+            case "batch" -> {
+                for (JsonElement r : record.getAsJsonArray("r")) apply(root, r.getAsJsonObject());
+            }
+            case "push"  -> {
+                if (!root.has(key)) root.add(key, new JsonArray());
+                JsonArray arr = root.getAsJsonArray(key);
+                if (arr.size() < record.get("n").getAsInt()) arr.add(record.get("v"));
+            }
+            default -> throw new AssertionError("bilinmeyen kayıt " + record);
+        }
+    }
+
+    @Test
+    void replaysFlushedRecordsInOrder() throws IOException {
+        StorageLog log = open();
+        set(log, "a", 1);
+        log.recordDelete("b");
+        push(log, "list", "x");
+        log.recordClear();
+        assertTrue(log.flush() > 0);
+        assertTrue(log.isClean());
+
+        assertEquals(List.of("set a", "del b", "push list", "clear"), ops(replay(open())));
+    }
+
+    @Test
+    void tornLineIsSkippedAndLaterRecordsSurvive() throws IOException {
+        StorageLog log = open();
+        set(log, "a", 1);
+        log.flush();
+        // Çökme: son kayıt yarım kaldı, satır sonu yok
+        Files.writeString(new File(dir, "test.wal").toPath(), "{\"o\":\"set\",\"k\":\"b",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        set(log, "c", 3);
+        log.flush();
+
+        assertEquals(List.of("set a", "set c"), ops(replay(open())));
+    }
+
+    @Test
+    void failedFlushKeepsRecordsPending() throws IOException {
+        StorageLog log = open();
+        set(log, "a", 1);
+        log.flush();
+        // Log yazılamaz hale gelir (dosyanın yerinde bir klasör)
+        File wal = new File(dir, "test.wal");
+        File saved = new File(dir, "saved.wal");
+        Files.move(wal.toPath(), saved.toPath());
+        assertTrue(wal.mkdir());
+        set(log, "b", 2);
+        assertThrows(IOException.class, log::flush);
+        assertFalse(log.isClean());
+
+        assertTrue(wal.delete());
+        Files.move(saved.toPath(), wal.toPath());
+        set(log, "c", 3);
+        log.flush();
+        assertTrue(log.isClean());
+        assertEquals(List.of("set a", "set b", "set c"), ops(replay(open())));
+    }
+
+    @Test
+    void batchIsWrittenAsSingleRecord() throws IOException {
+        StorageLog log = open();
+        log.begin();
+        set(log, "a", 1);
+        set(log, "b", 2);
+        assertFalse(log.hasPending());
+        log.commit();
+        log.begin();
+        set(log, "rolledBack", 3);
+        log.rollback();
+        log.flush();
+
+        List<JsonObject> records = replay(open());
+        assertEquals(List.of("batch"), ops(records));
+        assertEquals(List.of("set a", "set b"), ops(toList(records.get(0).getAsJsonArray("r"))));
+    }
+
+    @Test
+    void compactionReplacesLogWithSnapshot() throws IOException {
+        StorageLog log = open();
+        set(log, "a", 1);
+        push(log, "list", "x");
+        log.flush();
+        log.compact();
+
+        StorageLog reopened = open();
+        assertEquals(state, reopened.readSnapshot());
+        assertEquals(List.of(), replay(reopened));
+        assertFalse(new File(dir, "test.wal").exists());
+    }
+
+    @Test
+    void replayOverCompactedSnapshotIsIdempotent() throws IOException {
+        StorageLog log = open();
+        set(log, "a", 1);
+        push(log, "list", "x");
+        push(log, "list", "y");
+        log.recordDelete("gone");
+        log.flush();
+        File wal = new File(dir, "test.wal");
+        File saved = new File(dir, "saved.wal");
+        Files.copy(wal.toPath(), saved.toPath());
+        log.compact();
+
+        // Çökme: anlık görüntü yazıldı ama log silinmeden önce durdu
+        Files.move(saved.toPath(), wal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        StorageLog reopened = open();
+        JsonObject root = reopened.readSnapshot();
+        for (JsonObject record : replay(reopened)) apply(root, record);
+        assertEquals(state, root);
+    }
+
+    private static List<JsonObject> toList(JsonArray arr) {
+        List<JsonObject> out = new ArrayList<>();
+        for (JsonElement el : arr) out.add(el.getAsJsonObject());
+        return out;
+    }
+}
@@ -0,0 +1,81 @@
+package dev.nanoscript.jsengine;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Parser verimi — büyük, üretilmiş bir script üzerinde token/saniye.
+ *
+ *   ./gradlew benchmark                       (yalnızca @Tag("benchmark"))
+ *   java -cp ... dev.nanoscript.jsengine.ParserBenchmark [satır grubu]
+ *
+ * Üretici yalnızca Lexer/Parser'ın genel API'sini kullanır; dosya eski bir
+ * commit'e kopyalanıp aynı komutla çalıştırılarak iki parser karşılaştırılır.
+ * Lexing ölçüme dahil değildir, token listesi bir kez üretilir.
+ */
+class ParserBenchmark {
+
+    /** Varsayılan boyut: ~2.8 MB kaynak, ~1.2M token */
+    private static final int GROUPS = 20_000;
+    private static final int WARMUP = 15;
+    private static final int ROUNDS = 20;
+
+    /**
+     * Her grup 3 ifade: bütün öncelik seviyelerinden ikili operatörler,
+     * mantıksal / ternary / ?? zincirleri, üye erişimi ve çağrılar.
+     */
+    static String generate(int groups, long seed) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder(groups * 150);
+        for (int i = 0; i < groups; i++) {
+            sb.append("var v").append(i).append(" = a").append(i % 7).append(" + b * ").append(r.nextInt(100))
+              .append(" - (c / d) % e;\n");
+            sb.append("if (x").append(i).append(" > 3 && y || !z) { call(foo.bar[").append(i)
+              .append("], \"s\", 1, true); }\n");
+            sb.append("obj.k").append(i).append(" = cond ? left : right ?? def;\n");
+        }
+        return sb.toString();
+    }
+
+    /** @return en iyi turun süresi (ns) */
+    static long measure(List<Token> tokens, int warmup, int rounds) {
+        for (int i = 0; i < warmup; i++) new Parser(tokens).parse();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long t0 = System.nanoTime();
+            new Parser(tokens).parse();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+
+    /** Üretilen script her derlemede ayrıştırılabilir kalmalı (hızlı, varsayılan test'te çalışır) */
+    @Test
+    void generatedScriptParses() {
+        Node.Program program = new Parser(new Lexer(generate(100, 42)).tokenize()).parse();
+        assertEquals(300, program.body().size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void parseThroughput() {
+        run(GROUPS);
+    }
+
+    public static void main(String[] args) {
+        run(args.length > 0 ? Integer.parseInt(args[0]) : GROUPS);
+    }
+
+    private static void run(int groups) {
+        String src = generate(groups, 42);
+        List<Token> tokens = new Lexer(src).tokenize();
+        long best = measure(tokens, WARMUP, ROUNDS);
+        System.out.printf("Parser: %d KB kaynak, %d token, en iyi %.2f ms -> %.1f Mtoken/s%n",
+                src.length() / 1024, tokens.size(), best / 1e6, tokens.size() / (best / 1e9) / 1e6);
+    }
+}
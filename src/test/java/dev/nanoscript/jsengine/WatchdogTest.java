@@ -0,0 +1,75 @@
+package dev.nanoscript.jsengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Fatal bütçe aşımı async kodda da yakalanamaz ve çağrıyı sonlandırır */
+class WatchdogTest {
+
+    private static NanoEngine engine(List<String> marks) {
+        NanoEngine engine = new NanoEngine();
+        engine.setWatchdog(new Watchdog(50, 0, true));
+        engine.getEventLoop().setErrorSink(marks::add);
+        engine.defineGlobal("mark", JSFunction.native1("mark", (args, env) -> {
+            marks.add(args[0].asString());
+            return JSValue.UNDEFINED;
+        }));
+        return engine;
+    }
+
+    @Test
+    void fatalOverrunInsideAsyncCannotBeCaught() {
+        List<String> marks = new ArrayList<>();
+        NanoEngine engine = engine(marks);
+        String source = """
+            async function spin() {
+                try {
+                    await null;
+                    while (true) {}
+                } catch (e) {
+                    mark("caught");
+                } finally {
+                    mark("finally ran");
+                }
+            }
+            spin().catch(function (e) { mark("caught in promise"); });
+            mark("end of script");
+            """;
+
+        assertThrows(Watchdog.WatchdogError.class, () -> engine.execute(source));
+        // Senkron kısım bitti; aşım microtask'ta oldu ve hiçbir handler çalışmadı
+        assertEquals(List.of("end of script"), marks);
+    }
+
+    @Test
+    void fatalOverrunSkipsSyncFinally() {
+        List<String> marks = new ArrayList<>();
+        NanoEngine engine = engine(marks);
+        String source = """
+            try { while (true) {} } finally { mark("finally ran"); }
+            mark("end of script");
+            """;
+
+        assertThrows(Watchdog.WatchdogError.class, () -> engine.execute(source));
+        assertEquals(List.of(), marks);
+    }
+
+    @Test
+    void fatalOverrunInPromiseExecutorIsNotARejection() {
+        List<String> marks = new ArrayList<>();
+        NanoEngine engine = engine(marks);
+        String source = """
+            new Promise(function (resolve) { while (true) {} })
+                .catch(function (e) { mark("caught in promise"); });
+            mark("after promise");
+            """;
+
+        assertThrows(Watchdog.WatchdogError.class, () -> engine.execute(source));
+        assertEquals(List.of(), marks);
+    }
+}